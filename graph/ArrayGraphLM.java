@@ -1,6 +1,13 @@
 package edu.union.adt.graph;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * A graph that establishes connections (edges) between objects of
@@ -22,13 +29,36 @@ import java.util.LinkedList;
  *
  * I affirm that I have carried out my academic endeavors with full academic honesty.
  */
-public class ArrayGraphLM<V> implements Graph<V> {
+public class ArrayGraphLM<V> implements IndexedGraph<V> {
 
 
     private static final int INITIAL =10;
 
-    private boolean [][] edges;
+    // each row of the adjacency matrix is a bitset: bit 'to' of row 'from' is set iff (from, to) is an edge
+    private long [][] edges;
+    // the transpose of edges: bit 'from' of row 'to' is set iff (from, to) is an edge
+    private long [][] reverseEdges;
     private Object[] labels;
+    private HashMap<V, Integer> indices;
+    private int vertexCount;
+    private int edgeCount;
+    // the sum kept by GraphStructure: vertex hashes plus edge hashes
+    private int structureHash;
+    // bumped by every change to the vertices or edges, so PathCache can tell its results are stale
+    private int modCount;
+    // answers pathLength and getPath once cachePaths is called; null until then
+    private PathCache<V> paths;
+
+    // copy-on-write state for snapshot(): a row belongs to this graph alone iff its epoch
+    // equals 'epoch'; any other row may also be seen by a snapshot and is copied before a write
+    private int epoch;
+    private int[] rowEpochs;
+    private int[] columnEpochs;
+    // whether a snapshot also holds the arrays of rows, or the labels and indices
+    private boolean sharedMatrix;
+    private boolean sharedVertices;
+    // true for a snapshot, which never changes
+    private boolean readOnly;
 
 
 
@@ -43,8 +73,12 @@ public class ArrayGraphLM<V> implements Graph<V> {
      */
     public ArrayGraphLM()
     {
-        edges= new boolean[INITIAL][INITIAL];
+        edges= new long[INITIAL][rowWords(INITIAL)];
+        reverseEdges= new long[INITIAL][rowWords(INITIAL)];
         labels= (V[]) new Object[INITIAL];
+        indices= new HashMap<V, Integer>();
+        rowEpochs= new int[INITIAL];
+        columnEpochs= new int[INITIAL];
 
     }
 
@@ -55,9 +89,57 @@ public class ArrayGraphLM<V> implements Graph<V> {
      */
    public ArrayGraphLM(int newCount)
     {
-        edges= new boolean[newCount][newCount];
+        edges= new long[newCount][rowWords(newCount)];
+        reverseEdges= new long[newCount][rowWords(newCount)];
         labels= (V[]) new Object[newCount];
+        indices= new HashMap<V, Integer>();
+        rowEpochs= new int[newCount];
+        columnEpochs= new int[newCount];
+
+    }
+
+
+    /**
+     * Create a graph from a builder's vertices and its sorted, distinct
+     * packed edges, sized exactly and written in one pass.
+     *
+     * @param vertices the vertices, in index order
+     * @param packedEdges the edges, packed by GraphBuilder.pack
+     * @param count how many entries of packedEdges are used
+     */
+    ArrayGraphLM(List<V> vertices, long[] packedEdges, int count)
+    {
+        this(Math.max(vertices.size(), 1));
+        for(V vertex : vertices){
+            labels[vertexCount]= vertex;
+            indices.put(vertex, vertexCount);
+            vertexCount++;
+        }
+        for(int i=0; i<count; i++){
+            setBit(GraphBuilder.source(packedEdges[i]), GraphBuilder.target(packedEdges[i]), true);
+        }
+        edgeCount= count;
+        structureHash= GraphStructure.hash(this);
+    }
 
+
+    /**
+     * Create a snapshot that shares every array with a graph.  The
+     * graph copies what it changes afterwards, so the snapshot keeps
+     * seeing the graph as it was.
+     *
+     * @param source the graph to take a snapshot of
+     */
+    private ArrayGraphLM(ArrayGraphLM<V> source)
+    {
+        edges= source.edges;
+        reverseEdges= source.reverseEdges;
+        labels= source.labels;
+        indices= source.indices;
+        vertexCount= source.vertexCount;
+        edgeCount= source.edgeCount;
+        structureHash= source.structureHash;
+        readOnly= true;
     }
 
 
@@ -70,6 +152,43 @@ public class ArrayGraphLM<V> implements Graph<V> {
     // GETTERS AND SETTERS
     //--------------------------------------------------------------------------------------------
 
+    /**
+     * @param capacity the number of vertices a row has to hold
+     * @return the number of longs needed for one bitset row
+     */
+    private static int rowWords(int capacity){
+        return (capacity + 63) >>> 6;
+    }
+
+
+    /**
+     * @param fromSpot the index of the starting vertex
+     * @param toSpot the index of the target vertex
+     * @return whether the bit for the edge is set
+     */
+    private boolean isSet(int fromSpot, int toSpot){
+        return (edges[fromSpot][toSpot >>> 6] & (1L << toSpot)) != 0;
+    }
+
+
+    /**
+     * sets the bit for an edge to a new setting, in both the matrix and its transpose
+     * @param fromSpot the index of the starting vertex
+     * @param toSpot the index of the target vertex
+     * @param setting: true or false, depending on if an edge occurs
+     */
+    private void setBit(int fromSpot, int toSpot, boolean setting){
+        if(setting){
+            ownRow(fromSpot)[toSpot >>> 6] |= 1L << toSpot;
+            ownColumn(toSpot)[fromSpot >>> 6] |= 1L << fromSpot;
+        }
+        else{
+            ownRow(fromSpot)[toSpot >>> 6] &= ~(1L << toSpot);
+            ownColumn(toSpot)[fromSpot >>> 6] &= ~(1L << fromSpot);
+        }
+    }
+
+
     /**
      * sets the edges to a new setting
      * @param from the starting vertex
@@ -79,7 +198,91 @@ public class ArrayGraphLM<V> implements Graph<V> {
     private void setEdges(V from, V to, boolean setting){
         int fromVertex= getVertexSpot(from);
         int toVertex= getVertexSpot(to);
-       edges[fromVertex][toVertex]= setting;
+        setBit(fromVertex, toVertex, setting);
+    }
+
+
+    /**
+     * @param spot the index of a vertex
+     * @return the vertex's row of edges, copied first if a snapshot may share it
+     */
+    private long[] ownRow(int spot){
+        unshareMatrix();
+        if(rowEpochs[spot]!=epoch){
+            edges[spot]= edges[spot].clone();
+            rowEpochs[spot]= epoch;
+        }
+        return edges[spot];
+    }
+
+
+    /**
+     * @param spot the index of a vertex
+     * @return the vertex's row of the transpose, copied first if a snapshot may share it
+     */
+    private long[] ownColumn(int spot){
+        unshareMatrix();
+        if(columnEpochs[spot]!=epoch){
+            reverseEdges[spot]= reverseEdges[spot].clone();
+            columnEpochs[spot]= epoch;
+        }
+        return reverseEdges[spot];
+    }
+
+
+    /**
+     * Copies the arrays of rows, but not the rows, if a snapshot holds them.
+     */
+    private void unshareMatrix(){
+        if(sharedMatrix){
+            edges= edges.clone();
+            reverseEdges= reverseEdges.clone();
+            sharedMatrix= false;
+        }
+    }
+
+
+    /**
+     * Copies the labels and indices if a snapshot holds them.
+     */
+    private void unshareVertices(){
+        if(sharedVertices){
+            labels= labels.clone();
+            indices= new HashMap<V, Integer>(indices);
+            sharedVertices= false;
+        }
+    }
+
+
+    /**
+     * Makes sure this graph can be changed.
+     */
+    private void checkWritable(){
+        if(readOnly){
+            throw new UnsupportedOperationException("ArrayGraphLM snapshot is immutable");
+        }
+    }
+
+
+    /**
+     * Gives an immutable view of the graph as it is now, in O(1).  The
+     * view shares all storage with the graph; afterwards the graph
+     * copies each row the first time it changes it, so the view never
+     * sees a later change, even a half-done one.  The view can be read
+     * from other threads while this graph is changed, as long as the
+     * snapshot is handed to them safely.
+     *
+     * @return an immutable graph with the current vertices and edges
+     */
+    public Graph<V> snapshot(){
+        if(readOnly){
+            return this;
+        }
+        ArrayGraphLM<V> view= new ArrayGraphLM<V>(this);
+        epoch++;
+        sharedMatrix= true;
+        sharedVertices= true;
+        return view;
     }
 
     /**
@@ -87,53 +290,52 @@ public class ArrayGraphLM<V> implements Graph<V> {
      */
     public int numVertices()
     {
-        int count=0;
-        for(int i=0; i<labels.length; i++){
-            if(labels[i]!=null){
-                count++;
-            }
-        }
-    return count;
+        return vertexCount;
     }
 
 
     /**
      * @param vertex the vertex we want to find the location of
-     * @return the index that corresponds to the vertex's location
+     * @return the index that corresponds to the vertex's location, or -1
+     * if the vertex is not in the graph
      */
     private int getVertexSpot(V vertex){
-        int i=0;
-        int index=0;
-
-        while(i<labels.length && !labels[i].equals(vertex)){
-            index++;
-            i++;
+        Integer index= indices.get(vertex);
+        if(index==null){
+            return -1;
         }
         return index;
     }
 
 
+    /**
+     * @param vertex a vertex
+     * @return the index of the vertex, or -1 if it is not in the graph
+     */
+    public int indexOf(V vertex)
+    {
+        return getVertexSpot(vertex);
+    }
 
 
     /**
-     * @return the number of edges in the graph.
+     * @param index an index between 0 and numVertices()-1
+     * @return the vertex stored at that index
      */
-    public int numEdges()
+    public V vertexAt(int index)
     {
-        int count=0;
-        for(int from=0; from<labels.length; from++) {
-            for (int to = 0; to < labels.length; to++) {
-                V rowVertex= (V) labels[from];
-                V columnVertex= (V) labels[to];
+        return (V) labels[index];
+    }
 
-                if (hasEdge(rowVertex, columnVertex)) {
-                    count++;
-                }
-            }
-        }
 
 
-        return count;
+
+    /**
+     * @return the number of edges in the graph.
+     */
+    public int numEdges()
+    {
+        return edgeCount;
     }
 
 //GETTERS AND SETTERS COMPLICATED
@@ -154,14 +356,10 @@ public class ArrayGraphLM<V> implements Graph<V> {
             throw new RuntimeException("Vertex does not exist");
         }
         else{
+            long[] row= edges[getVertexSpot(vertex)];
             int count=0;
-            for(int i=0; i<numVertices(); i++){
-                if(labels[i]!=null){
-                    V possibleConnect= (V) labels[i];
-                    if(hasEdge(vertex, possibleConnect)){
-                        count++;
-                    }
-                }
+            for(int w=0; w<row.length; w++){
+                count+= Long.bitCount(row[w]);
             }
 
             return count;
@@ -211,18 +409,175 @@ public class ArrayGraphLM<V> implements Graph<V> {
     public Iterable<V> adjacentTo(V from)
     {
         ArrayList<V> verticies= new ArrayList<V>();
+        if(!contains(from)){
+            return verticies;
+        }
 
-        for(int i=0; i<labels.length; i++){
-            if (labels[i]!=null){
-                V possibleConnect= (V) labels[i];
-                if(hasEdge(from, possibleConnect)){
-                    verticies.add(possibleConnect);
-                }
+        long[] row= edges[getVertexSpot(from)];
+        for(int w=0; w<row.length; w++){
+            long bits= row[w];
+            while(bits!=0){
+                int spot= (w << 6) + Long.numberOfTrailingZeros(bits);
+                verticies.add((V) labels[spot]);
+                bits&= bits - 1;
             }
+        }
+        return verticies;
+
+    }
 
+
+    /**
+     * Gets the number of vertices that have an edge to a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose in-degree we want.
+     * @return the number of edges whose destination is 'vertex'
+     */
+    public int inDegree(V vertex)
+    {
+        if(!contains(vertex)){
+            throw new RuntimeException("Vertex does not exist");
         }
+        long[] column= reverseEdges[getVertexSpot(vertex)];
+        int count=0;
+        for(int w=0; w<column.length; w++){
+            count+= Long.bitCount(column[w]);
+        }
+        return count;
+    }
+
+
+    /**
+     * Gets the vertices that have an edge to a given vertex, read from
+     * the transposed matrix.
+     *
+     * @param to the destination vertex
+     * @return an iterable collection for the set of vertices that are
+     * the sources of edges for which 'to' is the destination
+     * vertex.  If 'to' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> predecessorsOf(V to)
+    {
+        final ArrayList<V> verticies= new ArrayList<V>();
+        if(!contains(to)){
+            return verticies;
+        }
+        forEachBit(reverseEdges[getVertexSpot(to)], new IntConsumer() {
+            public void accept(int spot){
+                verticies.add((V) labels[spot]);
+            }
+        });
         return verticies;
+    }
+
+
+    /**
+     * Passes every vertex adjacent to a given vertex to an action
+     * without building a collection.  If 'from' is not a vertex in the
+     * graph, does nothing.
+     *
+     * @param from the source vertex
+     * @param action what to do with each adjacent vertex
+     */
+    public void forEachNeighbor(V from, final Consumer<V> action)
+    {
+        if(!contains(from)){
+            return;
+        }
+        forEachBit(edges[getVertexSpot(from)], new IntConsumer() {
+            public void accept(int spot){
+                action.accept((V) labels[spot]);
+            }
+        });
+    }
+
 
+    /**
+     * Passes the index of every vertex adjacent to the vertex at the
+     * given index to the action, walking the set bits of its row.
+     *
+     * @param index the index of the source vertex
+     * @param action what to do with each adjacent index
+     */
+    public void forEachNeighbor(int index, IntConsumer action)
+    {
+        forEachBit(edges[index], action);
+    }
+
+
+    /**
+     * Passes the index of every vertex that has an edge to the vertex
+     * at the given index to the action, walking the set bits of its
+     * row in the transposed matrix.
+     *
+     * @param index the index of the destination vertex
+     * @param action what to do with each predecessor index
+     */
+    public void forEachPredecessor(int index, IntConsumer action)
+    {
+        forEachBit(reverseEdges[index], action);
+    }
+
+
+    /**
+     * Tells whether any predecessor of a vertex is in a set of
+     * vertices by and-ing the set with the vertex's transposed row one
+     * word at a time.
+     *
+     * @param index the index of the destination vertex
+     * @param set a bitset of vertex indices
+     * @return true iff some vertex in the set has an edge to the vertex
+     */
+    public boolean hasPredecessorIn(int index, long[] set)
+    {
+        long[] row= reverseEdges[index];
+        int words= Math.min(row.length, set.length);
+        for(int w=0; w<words; w++){
+            if((row[w] & set[w])!=0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return a count of the changes made to the vertices and edges so far
+     */
+    public int modCount()
+    {
+        return modCount;
+    }
+
+
+    /**
+     * Answers pathLength, hasPath and getPath from a PathCache held by
+     * this graph from now on, or stops doing so.
+     *
+     * @param capacity the most sources to keep searches for, or 0 for no cache
+     */
+    void cachePaths(int capacity)
+    {
+        paths= capacity==0 ? null : new PathCache<V>(this, capacity);
+    }
+
+
+    /**
+     * @param row a bitset row
+     * @param action what to do with the index of each set bit
+     */
+    private static void forEachBit(long[] row, IntConsumer action)
+    {
+        for(int w=0; w<row.length; w++){
+            long bits= row[w];
+            while(bits!=0){
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits&= bits - 1;
+            }
+        }
     }
 
 
@@ -250,6 +605,10 @@ public class ArrayGraphLM<V> implements Graph<V> {
      */
     public void addEdge(V from, V to)
     {
+        checkWritable();
+        if(from==null || to==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
         //check if the verticies exist
         if(!contains(from)){
             addVertex(from);
@@ -261,6 +620,9 @@ public class ArrayGraphLM<V> implements Graph<V> {
         // if there isnt an edge add one
         if(!hasEdge(from, to)){
             setEdges(from, to, true);
+            edgeCount++;
+            structureHash+= GraphStructure.edgeHash(from, to);
+            modCount++;
         }
 
     }
@@ -274,15 +636,25 @@ public class ArrayGraphLM<V> implements Graph<V> {
      * added to the graph, with no edges connected to it.
      *
      * @param vertex the vertex to add
+     * @throws IllegalArgumentException if the vertex is null
      */
     public void addVertex(V vertex)
     {
+        checkWritable();
+        if(vertex==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
         if(!contains(vertex)){
             if(isAtMax()){
                 expandGraph();
             }
+            unshareVertices();
             int lastSpot= numVertices();
             labels[lastSpot]= vertex;
+            indices.put(vertex, lastSpot);
+            vertexCount++;
+            structureHash+= GraphStructure.vertexHash(vertex);
+            modCount++;
 
         }
 
@@ -294,39 +666,107 @@ public class ArrayGraphLM<V> implements Graph<V> {
 
 
 
-    //BOOLEAN METHODS
-    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds many directed edges at once, as if by calling addEdge on
+     * each (from, to) pair, but gathering and sorting them first so
+     * that the room for new vertices is made once and the row of each
+     * source is written once.
+     *
+     * @param pairs the edges to add, each as a (from, to) pair
+     * @throws IllegalArgumentException if any pair has a null vertex, in
+     * which case the graph is left as it was
+     */
+    public void addEdges(Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        GraphBuilder.addEdges(this, pairs);
+    }
 
 
     /**
-     * @return whether there is any space in the labels
+     * Adds every vertex and edge of another graph to this one.
+     *
+     * @param other the graph to copy from
      */
-    private boolean isAtMax(){
-        return labels.length == numVertices();
+    public void addAll(Graph<V> other)
+    {
+        GraphBuilder.addAll(this, other);
     }
 
+
     /**
-     * Tells whether or not a vertex is in the graph.
+     * Adds the vertices and edges gathered by GraphBuilder.addEdges,
+     * owning each source's row once and setting its new bits in place.
      *
-     * @param vertex a vertex
-     * @return true iff 'vertex' is a vertex in the graph.
+     * @param vertices the vertices the edges refer to, by position
+     * @param packed the sorted, distinct edges over those positions
+     * @param count how many edges to add
      */
-    public boolean contains(V vertex)
+    public void addPacked(List<V> vertices, long[] packed, int count)
     {
+        checkWritable();
+        int fresh=0;
+        for(V vertex : vertices){
+            if(!contains(vertex)){
+                fresh++;
+            }
+        }
+        ensureCapacity(vertexCount + fresh);
+        int[] map= new int[vertices.size()];
+        for(int i=0; i<map.length; i++){
+            addVertex(vertices.get(i));
+            map[i]= getVertexSpot(vertices.get(i));
+        }
 
-        for(int i=0; i<labels.length; i++){
-            V item =(V) labels[i];
-            if(item!=null){
-                if (item.equals(vertex)) {
-                    return true;
+        int added=0;
+        int i=0;
+        while(i<count){
+            int from= GraphBuilder.source(packed[i]);
+            int fromSpot= map[from];
+            long[] row= null;
+            for(; i<count && GraphBuilder.source(packed[i])==from; i++){
+                int to= GraphBuilder.target(packed[i]);
+                int toSpot= map[to];
+                if(!isSet(fromSpot, toSpot)){
+                    if(row==null){
+                        row= ownRow(fromSpot);
+                    }
+                    row[toSpot >>> 6]|= 1L << toSpot;
+                    ownColumn(toSpot)[fromSpot >>> 6]|= 1L << fromSpot;
+                    structureHash+= GraphStructure.edgeHash(vertices.get(from), vertices.get(to));
+                    added++;
                 }
             }
         }
+        if(added>0){
+            edgeCount+= added;
+            modCount++;
+        }
+    }
 
-            return false;
 
 
 
+
+    //BOOLEAN METHODS
+    //--------------------------------------------------------------------------------------------
+
+
+    /**
+     * @return whether there is any space in the labels
+     */
+    private boolean isAtMax(){
+        return labels.length == vertexCount;
+    }
+
+    /**
+     * Tells whether or not a vertex is in the graph.
+     *
+     * @param vertex a vertex
+     * @return true iff 'vertex' is a vertex in the graph.
+     */
+    public boolean contains(V vertex)
+    {
+        return vertex!=null && indices.containsKey(vertex);
     }
 
 
@@ -347,7 +787,7 @@ public class ArrayGraphLM<V> implements Graph<V> {
         if(contains(from) && contains(to)) {
             int fromIndex = getVertexSpot(from);
             int toIndex = getVertexSpot(to);
-            return edges[fromIndex][toIndex];
+            return isSet(fromIndex, toIndex);
         }
         return false;
 
@@ -392,29 +832,32 @@ public class ArrayGraphLM<V> implements Graph<V> {
      */
     public String toString()
     {
-
-        String answer="";
-        ArrayList<V> listOfVertices= (ArrayList<V>) getVertices();
-        int numV= numVertices();
-
-        for(int i=0; i<numV; i++){
-            V currentItem= listOfVertices.get(i);
-            ArrayList<V> listOfFriends= (ArrayList<V>) adjacentTo(currentItem);
-            int numFriends= listOfFriends.size();
-            answer= answer+ currentItem +":";
-
-            if(numFriends>0){
-                answer= answer+ edgeString(numFriends, listOfFriends);
-            }
-            else{
-                answer= answer+"\n";
-            }
+        return GraphText.render(this, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
 
 
+    /**
+     * Writes the same text as toString, one vertex at a time.
+     *
+     * @param out where to write the graph
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out);
+    }
 
-        }
 
-        return answer;
+    /**
+     * Writes the same text as toString, stopping after maxVertices
+     * vertices and maxEdges edges.  Anything left out is shown as "...".
+     *
+     * @param out where to write the graph
+     * @param maxVertices the most vertex lines to write
+     * @param maxEdges the most edges to write, over all lines
+     */
+    public void writeTo(Appendable out, int maxVertices, int maxEdges) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out, maxVertices, maxEdges);
     }
 
 
@@ -422,70 +865,82 @@ public class ArrayGraphLM<V> implements Graph<V> {
 
 
     /**
-     * This provides the list of edges from a certain vertex in a readable format
-     * @param numFriends degree from a specific vertex
-     * @param listOfFriends list of vertecies adjacent to the current vertex
-     * @return the list of edges from a given vertex in a string format
+     * This expands the graph when there is not enough space in the given graph
      */
-    private String edgeString(int numFriends, ArrayList<V> listOfFriends){
-        String answer="";
-        for(int j=0; j<numFriends; j++){
-            V currentFriend= listOfFriends.get(j);
-
-            if(j!= numFriends-1){
-                answer= answer+" "+currentFriend+",";
-            }
-            else{
-                answer= answer+" "+currentFriend+"\n";
-            }
-        }
-
-        return answer;
-
-
+    private void expandGraph(){
+        growTo(labels.length * 2 + 1);
     }
 
 
+    /**
+     * Makes room for at least a given number of vertices, so that adding
+     * that many vertices never has to grow the graph again.  Bulk loaders
+     * can call this once with the final size.
+     *
+     * @param capacity the number of vertices to make room for
+     */
+    public void ensureCapacity(int capacity){
+        checkWritable();
+        if(capacity>labels.length){
+            growTo(capacity);
+        }
+    }
 
 
-
+    /**
+     * Grows the labels and both matrices in place.  Existing rows are
+     * only copied if they need more words to hold the new size, and the
+     * vertex indices do not change.
+     * @param newSize the new number of vertex slots
+     */
+    private void growTo(int newSize){
+        unshareVertices();
+        labels= Arrays.copyOf(labels, newSize);
+        // the new arrays of rows are ours; a row still counts as shared until it is copied
+        edges= growMatrix(edges, newSize, rowEpochs, epoch);
+        reverseEdges= growMatrix(reverseEdges, newSize, columnEpochs, epoch);
+        sharedMatrix= false;
+        rowEpochs= growEpochs(rowEpochs, newSize, epoch);
+        columnEpochs= growEpochs(columnEpochs, newSize, epoch);
+    }
 
 
     /**
-     * This expands the graph when there is not enough space in the given graph
+     * @param epochs the epoch of each row
+     * @param newSize the new number of rows
+     * @param current the epoch of rows that belong to this graph alone
+     * @return the epochs, with the new rows marked as this graph's
      */
-    private void expandGraph(){
-        if(labels!=null) {
-            int currentSize = labels.length;
+    private static int[] growEpochs(int[] epochs, int newSize, int current){
+        int[] grown= Arrays.copyOf(epochs, newSize);
+        Arrays.fill(grown, epochs.length, newSize, current);
+        return grown;
+    }
 
-            ArrayGraphLM<V> newGraph = new ArrayGraphLM<V>(currentSize * 2 + 1);
 
-            //ADDING IN THE LABELS
-            for(int i=0; i<labels.length; i++){
-                if(labels[i] != null){
-                    newGraph.addVertex((V) labels[i]);
-                }
+    /**
+     * @param matrix a bit matrix
+     * @param newSize the new number of rows and columns
+     * @param epochs the epoch of each row, updated for rows that are copied
+     * @param current the epoch of rows that belong to this graph alone
+     * @return a matrix with the same bits set and room for newSize vertices
+     */
+    private static long[][] growMatrix(long[][] matrix, int newSize, int[] epochs, int current){
+        int words= rowWords(newSize);
+        long[][] grown= new long[newSize][];
+        for(int i=0; i<matrix.length; i++){
+            if(matrix[i].length==words){
+                grown[i]= matrix[i];
             }
-
-
-            //ADDING IN THE EDGES
-            for (int row = 0; row < labels.length; row++) {
-                for (int column = 0; column < labels.length; column++) {
-                    V rowVertex = (V) labels[row];
-                    V columnVertex = (V) labels[column];
-
-                    if (hasEdge(rowVertex, columnVertex)) {
-                        newGraph.addEdge(rowVertex, columnVertex);
-                    }
-                }
+            else{
+                grown[i]= Arrays.copyOf(matrix[i], words);
+                epochs[i]= current;
             }
-
-            this.labels = newGraph.labels;
-            this.edges = newGraph.edges;
         }
-
-
-
+        for(int i=matrix.length; i<newSize; i++){
+            grown[i]= new long[words];
+        }
+        return grown;
     }
 
 
@@ -495,75 +950,30 @@ public class ArrayGraphLM<V> implements Graph<V> {
 
     /**
      * Checks whether the graphs are equivalent taking into account:
-     * - emptiness
      * - the number of verticies and edges
      * - the list of verticies
      * - the list of edges
+     * The other graph can be any Graph implementation.  Its vertices are
+     * mapped to ours once and then the rows are compared directly.
      * @param other another object to compare to
      * @return whether the two objects are equivalent
      */
 
     @Override
     public boolean equals(Object other){
-
-        if(other instanceof ArrayGraphLM) {
-            ArrayGraphLM otherGraph = (ArrayGraphLM) other;
-            if (isEmpty() && otherGraph.isEmpty()) {
-                return true;
-            }
-            else {
-                int thisVertexCount = numVertices();
-                int otherVertexCount = otherGraph.numVertices();
-
-                int thisEdgeCount = numEdges();
-                int otherEdgeCount = otherGraph.numEdges();
-
-                //count check
-                if (thisEdgeCount == otherEdgeCount && thisVertexCount == otherVertexCount) {
-
-                    // checking if they have all the same verticies
-                    for(int i=0; i< numVertices(); i++){
-                        if (!otherGraph.contains(labels[i])){
-                            return false;
-                        }
-                    }
-
-                    // checking if their edges match up
-                    if(!edgeListFormation().equals(otherGraph.edgeListFormation())){
-                        return false;
-                    }
-
-                    return true;
-                }
-            }
-        }
-        return false;
-
+        return GraphStructure.equal(this, other);
     }
 
 
-
-
-
-
-
     /**
-     * This forms a list of edges that a graph contains
-     * @return a list of edges
+     * Gives a hash that depends only on the vertices and edges, so equal
+     * graphs of any representation hash alike.  It is kept up to date as
+     * the graph changes, so this is O(1).
+     * @return the structural hash of the graph
      */
-    private ArrayList<String> edgeListFormation(){
-        ArrayList<String> edgeList= new ArrayList<String>();
-        for (int row = 0; row < labels.length; row++) {
-            for (int column = 0; column < labels.length; column++) {
-                V rowVertex = (V) labels[row];
-                V columnVertex = (V) labels[column];
-
-                if (hasEdge(rowVertex, columnVertex)) {
-                    edgeList.add(rowVertex+" "+columnVertex);
-                }
-            }
-        }
-        return edgeList;
+    @Override
+    public int hashCode(){
+        return structureHash;
     }
 
 //-----------------------------------------------------------------------------------------------------
@@ -636,15 +1046,28 @@ public class ArrayGraphLM<V> implements Graph<V> {
      * @param toRemove the vertex to remove.
      */
     public void removeVertex(V toRemove){
+        checkWritable();
         if(contains(toRemove)){
+            unshareVertices();
             int removedSpot= getVertexSpot(toRemove);
             int replacementSpot= numVertices()-1;
             V replacementVertex= (V) labels[replacementSpot];
 
-            reassignEdges(toRemove, replacementVertex);
+            edgeCount-= incidentEdges(removedSpot);
+            structureHash-= GraphStructure.vertexHash(toRemove) + GraphStructure.incidentHash(this, removedSpot);
+            modCount++;
+            isolate(removedSpot);
+            if(removedSpot!=replacementSpot){
+                reassignEdges(removedSpot, replacementSpot);
+            }
 
             labels[removedSpot]= labels[replacementSpot];
             labels[replacementSpot]=null;
+            indices.remove(toRemove);
+            if(removedSpot!=replacementSpot){
+                indices.put(replacementVertex, removedSpot);
+            }
+            vertexCount--;
 
         }
 
@@ -652,30 +1075,111 @@ public class ArrayGraphLM<V> implements Graph<V> {
 
 
     /**
-     * This works to move the edges from the last vertex to the area where the removed vertex's edges were.
-     * @param toRemove: the vertex to remove
-     * @param replacementVertex: the vertex that is replacing
+     * Counts the edges going into or out of a vertex, counting a self loop once.
+     * @param spot: the index of the vertex
+     * @return the number of edges touching the vertex
      */
-    private void reassignEdges(V toRemove, V replacementVertex){
-        for(int i=0; i<numVertices(); i++){
-            V label= (V)labels[i];
-            if(!label.equals(toRemove)) {
+    private int incidentEdges(int spot){
+        long[] row= edges[spot];
+        long[] column= reverseEdges[spot];
+        int count=0;
+        for(int w=0; w<row.length; w++){
+            count+= Long.bitCount(row[w]) + Long.bitCount(column[w]);
+        }
+        if(isSet(spot, spot)){
+            count--;
+        }
+        return count;
+    }
 
-                if (hasEdge(replacementVertex, label)) {
-                    addEdge(toRemove, label);
-                } else {
-                    removeEdge(toRemove, label);
-                }
 
-                if (hasEdge(label, replacementVertex)) {
-                    addEdge(label, toRemove);
-                } else {
-                    removeEdge(label, toRemove);
-                }
+    /**
+     * Deletes every edge going into or out of a vertex.  Only the bits of
+     * the vertex's own row and column are visited, using the transposed
+     * matrix to find the column.
+     * @param spot: the index of the vertex
+     */
+    private void isolate(int spot){
+        long[] row= ownRow(spot);
+        long[] column= ownColumn(spot);
+        long keep= ~(1L << spot);
+        int word= spot >>> 6;
+        for(int w=0; w<row.length; w++){
+            long bits= row[w];
+            while(bits!=0){
+                int to= (w << 6) + Long.numberOfTrailingZeros(bits);
+                ownColumn(to)[word]&= keep;
+                bits&= bits - 1;
+            }
+            bits= column[w];
+            while(bits!=0){
+                int from= (w << 6) + Long.numberOfTrailingZeros(bits);
+                ownRow(from)[word]&= keep;
+                bits&= bits - 1;
             }
         }
+        Arrays.fill(row, 0);
+        Arrays.fill(column, 0);
+    }
 
 
+    /**
+     * This works to move the edges from the last vertex to the area where the removed vertex's edges were.
+     * The removed vertex must already be isolated.  Its empty rows are swapped with the last vertex's
+     * rows, so the last slot is left empty for a vertex added there later, and then only the bits that
+     * named the last vertex are renamed.  This costs O(V/64 + degree) instead of O(V) bit moves.
+     * @param removedSpot: the index of the vertex being removed
+     * @param replacementSpot: the index of the vertex that is replacing it
+     */
+    private void reassignEdges(int removedSpot, int replacementSpot){
+        unshareMatrix();
+        long[] row= edges[replacementSpot];
+        edges[replacementSpot]= edges[removedSpot];
+        edges[removedSpot]= row;
+        long[] column= reverseEdges[replacementSpot];
+        reverseEdges[replacementSpot]= reverseEdges[removedSpot];
+        reverseEdges[removedSpot]= column;
+        // each row keeps its epoch as it moves
+        int rowEpoch= rowEpochs[replacementSpot];
+        rowEpochs[replacementSpot]= rowEpochs[removedSpot];
+        rowEpochs[removedSpot]= rowEpoch;
+        int columnEpoch= columnEpochs[replacementSpot];
+        columnEpochs[replacementSpot]= columnEpochs[removedSpot];
+        columnEpochs[removedSpot]= columnEpoch;
+
+        // a self loop on the moved vertex is renamed on its own
+        boolean selfLoop= isSet(removedSpot, replacementSpot);
+        if(selfLoop){
+            ownRow(removedSpot)[replacementSpot >>> 6]&= ~(1L << replacementSpot);
+            ownColumn(removedSpot)[replacementSpot >>> 6]&= ~(1L << replacementSpot);
+            row= edges[removedSpot];
+            column= reverseEdges[removedSpot];
+        }
+
+        int oldWord= replacementSpot >>> 6;
+        long oldBit= 1L << replacementSpot;
+        int newWord= removedSpot >>> 6;
+        long newBit= 1L << removedSpot;
+        for(int w=0; w<row.length; w++){
+            long bits= row[w];
+            while(bits!=0){
+                long[] other= ownColumn((w << 6) + Long.numberOfTrailingZeros(bits));
+                other[oldWord]&= ~oldBit;
+                other[newWord]|= newBit;
+                bits&= bits - 1;
+            }
+            bits= column[w];
+            while(bits!=0){
+                long[] other= ownRow((w << 6) + Long.numberOfTrailingZeros(bits));
+                other[oldWord]&= ~oldBit;
+                other[newWord]|= newBit;
+                bits&= bits - 1;
+            }
+        }
+
+        if(selfLoop){
+            setBit(removedSpot, removedSpot, true);
+        }
     }
 
 
@@ -690,8 +1194,12 @@ public class ArrayGraphLM<V> implements Graph<V> {
      * to) was an edge in the graph, then numEdges = numEdges' - 1
      */
     public void removeEdge(V from, V to){
+        checkWritable();
         if(hasEdge(from, to)) {
             setEdges(from, to, false);
+            edgeCount--;
+            structureHash-= GraphStructure.edgeHash(from, to);
+            modCount++;
         }
 
     }
@@ -723,21 +1231,26 @@ public class ArrayGraphLM<V> implements Graph<V> {
      * the graph.  If there is no path, returns Integer.MAX_VALUE
      */
     public int pathLength(V from, V to){
-        if(contains(from) && contains(to)) {
-            if (from.equals(to)) {
-                return 0;
-            } else {
-                ArrayList<ArrayList<V>> map = getLayeredTraversal(from);
-                for (int i = 0; i < map.size(); i++) {
-                    int level = i + 1;
-                    ArrayList<V> currentLevel = map.get(i);
-                    if (currentLevel.contains(to)) {
-                        return level;
-                    }
-                }
-            }
+        if(paths!=null){
+            return paths.pathLength(from, to);
         }
-        return Integer.MAX_VALUE;
+        return GraphSearch.pathLength(this, from, to);
+    }
+
+
+    /**
+     * Gets the length of the shortest path from one vertex to each of
+     * several others, with one search for them all.
+     *
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * the length of the shortest path from 'from' to it, or
+     * Integer.MAX_VALUE if there is none
+     */
+    public int[] pathLengths(V from, Collection<V> targets)
+    {
+        return GraphSearch.pathLengths(this, from, targets);
     }
 
 
@@ -764,97 +1277,10 @@ public class ArrayGraphLM<V> implements Graph<V> {
      * source and destination vertices.
      */
     public Iterable<V> getPath(V from, V to){
-        ArrayList<V> answer= new ArrayList<V>();
-        if(contains(from) && contains(to)){
-            answer.add(0, from);
-            if(!from.equals(to)) {
-                if (hasPath(from, to)){
-                    ArrayList<ArrayList<V>> layeredMap = getLayeredTraversal(from);
-                    int numSteps = pathLength(from, to);
-
-                    V currentTarget = to;
-                    answer.add(1, currentTarget);
-                    for (int i = numSteps - 1; i > 0; i--) {
-                        ArrayList<V> prevLayer = layeredMap.get(i - 1);
-
-                        for (V prevItem : prevLayer) {
-                            if (hasEdge(prevItem, currentTarget)) {
-                                currentTarget = prevItem;
-                            }
-                        }
-                        answer.add(1, currentTarget);
-                    }
-
-
-                }
-
-                else{
-                    return null;
-                }
-
-            }
-            return answer;
-        }
-        throw new IllegalArgumentException("Vertex does not exist, cannot produce Path");
-
-    }
-
-
-    /**
-     * This returns an arraylist containing arraylist. Each sub arraylist is a different level of edges away from the
-     * start vertex. So:
-     * - a directly connected vertex is in the first array
-     * - a vertex that is 2 edges from the start is in the second array
-     * @param start: the starting verted
-     */
-    private ArrayList<ArrayList<V>> getLayeredTraversal(V start)
-    {
-        boolean marked[] = new boolean[numVertices()];
-        ArrayList<ArrayList<V>> layeredResults= new ArrayList<ArrayList<V>>();
-        LinkedList<V> queue = new LinkedList<V>();
-
-        int location= getVertexSpot(start);
-        marked[location]=true;
-        queue.add(start);
-
-        while (queue.size() != 0)
-        {
-            start = queue.poll();
-            ArrayList<V> neighborsList = (ArrayList<V>) adjacentTo(start);
-
-            if(neighborsList.size()>0) {
-                ArrayList<V> nextLevel= buildNextLevel(neighborsList, queue, marked);
-                layeredResults.add(nextLevel);
-            }
-
+        if(paths!=null){
+            return paths.getPath(from, to);
         }
-        return layeredResults;
-    }
-
-
-    /**
-     * This is used by getLayeredTraversal to build each layer
-     * @param neighborsList: list of connections to the current vertex
-     * @param queue: this is a list of upcoming vertices to evaluate
-     * @param marked: this is a list of the vertices that have been evaluated
-     * @return a list of vertices that are at that layer
-     */
-    private ArrayList<V> buildNextLevel(ArrayList<V> neighborsList, LinkedList<V> queue, boolean[] marked){
-        ArrayList<V> nextLevel= new ArrayList<V>();
-        for (int i = 0; i < neighborsList.size(); i++) {
-
-            V nextItem = neighborsList.get(i);
-            int nextSpot = getVertexSpot(nextItem);
-
-            if (!marked[nextSpot]) {
-                marked[nextSpot] = true;
-                queue.add(nextItem);
-                nextLevel.add(nextItem);
-            }
-        }
-        return nextLevel;
-
-
+        return GraphSearch.getPath(this, from, to);
     }
 
 
@@ -0,0 +1,643 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A level-synchronous, direction-optimizing breadth-first search that
+ * uses every core of a ForkJoinPool.
+ *
+ * Each level is expanded in parallel.  While the frontier is small the
+ * search runs top-down: every frontier vertex claims its unvisited
+ * neighbors.  Once the frontier gets large compared to the unvisited
+ * part of the graph it switches to bottom-up: every unvisited vertex
+ * checks whether any of its predecessors is in the frontier, which
+ * stops at the first hit and, on ArrayGraphLM, is a word-wide and of two
+ * bit rows.  It switches back to top-down when the frontier shrinks.
+ *
+ * Distances are returned in an int array indexed by the position of
+ * each vertex in graph.getVertices().  The graph must not be changed
+ * while a search is running.
+ *
+ * For distances from many sources at once, distanceMatrix and
+ * allDistances search from 64 sources together, one bit of a long per
+ * source, so that each edge is looked at once per level for all 64
+ * instead of once per source; the groups of 64 run in parallel.
+ */
+public final class BreadthFirstSearch {
+
+
+    /** the distance reported for a vertex that cannot be reached */
+    public static final int UNREACHED = Integer.MAX_VALUE;
+
+    // go bottom-up once the frontier holds more than 1/BOTTOM_UP_RATIO of the unvisited vertices
+    private static final int BOTTOM_UP_RATIO = 14;
+
+    // go back to top-down once the frontier holds less than 1/TOP_DOWN_RATIO of all vertices
+    private static final int TOP_DOWN_RATIO = 24;
+
+    // the least number of vertices worth handing to a separate task
+    private static final int GRAIN = 2048;
+
+
+    private BreadthFirstSearch(){
+    }
+
+
+
+
+    /**
+     * Finds the length of the shortest path from a source vertex to
+     * every vertex of the graph, using the common ForkJoinPool.
+     *
+     * @param graph the graph to search
+     * @param source the vertex to start from
+     * @return for each vertex, in the order of graph.getVertices(), the
+     * number of edges on a shortest path from 'source', or UNREACHED
+     * @throws IllegalArgumentException if source is not in the graph
+     */
+    public static <V> int[] distances(Graph<V> graph, V source)
+    {
+        return distances(graph, source, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Finds the length of the shortest path from a source vertex to
+     * every vertex of the graph.
+     *
+     * @param graph the graph to search
+     * @param source the vertex to start from
+     * @param pool the pool whose threads expand each level
+     * @return for each vertex, in the order of graph.getVertices(), the
+     * number of edges on a shortest path from 'source', or UNREACHED
+     * @throws IllegalArgumentException if source is not in the graph
+     */
+    public static <V> int[] distances(Graph<V> graph, V source, ForkJoinPool pool)
+    {
+        IndexedGraph<V> indexed= indexed(graph);
+        return distances(indexed, new int[] {indexOf(indexed, source)}, pool);
+    }
+
+
+    /**
+     * Finds the length of the shortest path from the nearest of several
+     * sources to every vertex of the graph, using the common
+     * ForkJoinPool.
+     *
+     * @param graph the graph to search
+     * @param sources the vertices to start from
+     * @return for each vertex, in the order of graph.getVertices(), the
+     * number of edges on a shortest path from any source, or UNREACHED
+     * @throws IllegalArgumentException if a source is not in the graph
+     */
+    public static <V> int[] distancesFrom(Graph<V> graph, Collection<V> sources)
+    {
+        return distancesFrom(graph, sources, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Finds the length of the shortest path from the nearest of several
+     * sources to every vertex of the graph.  This is one search that
+     * starts with every source in its first level, not one per source.
+     *
+     * @param graph the graph to search
+     * @param sources the vertices to start from
+     * @param pool the pool whose threads expand each level
+     * @return for each vertex, in the order of graph.getVertices(), the
+     * number of edges on a shortest path from any source, or UNREACHED
+     * @throws IllegalArgumentException if a source is not in the graph
+     */
+    public static <V> int[] distancesFrom(Graph<V> graph, Collection<V> sources, ForkJoinPool pool)
+    {
+        IndexedGraph<V> indexed= indexed(graph);
+        return distances(indexed, indicesOf(indexed, sources), pool);
+    }
+
+
+    /**
+     * Finds the length of the shortest path from each of several sources
+     * to every vertex of the graph, using the common ForkJoinPool.
+     *
+     * @param graph the graph to search
+     * @param sources the vertices to start from
+     * @return one row per source, in the order of the list; each row
+     * holds, in the order of graph.getVertices(), the number of edges on
+     * a shortest path from that source, or UNREACHED
+     * @throws IllegalArgumentException if a source is not in the graph
+     */
+    public static <V> int[][] distanceMatrix(Graph<V> graph, List<V> sources)
+    {
+        return distanceMatrix(graph, sources, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Finds the length of the shortest path from each of several sources
+     * to every vertex of the graph.  The answer takes sources.size() *
+     * numVertices ints.
+     *
+     * @param graph the graph to search
+     * @param sources the vertices to start from
+     * @param pool the pool that runs each group of 64 sources
+     * @return one row per source, in the order of the list; each row
+     * holds, in the order of graph.getVertices(), the number of edges on
+     * a shortest path from that source, or UNREACHED
+     * @throws IllegalArgumentException if a source is not in the graph
+     */
+    public static <V> int[][] distanceMatrix(Graph<V> graph, List<V> sources, ForkJoinPool pool)
+    {
+        IndexedGraph<V> indexed= indexed(graph);
+        return distanceMatrix(indexed, indicesOf(indexed, sources), pool);
+    }
+
+
+    /**
+     * Finds the length of the shortest path between every pair of
+     * vertices, using the common ForkJoinPool.
+     *
+     * @param graph the graph to search
+     * @return answer[i][j] is the number of edges on a shortest path from
+     * the i'th to the j'th vertex of graph.getVertices(), or UNREACHED
+     */
+    public static <V> int[][] allDistances(Graph<V> graph)
+    {
+        return allDistances(graph, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Finds the length of the shortest path between every pair of
+     * vertices.  The answer takes numVertices squared ints, so this is
+     * meant for graphs of up to some tens of thousands of vertices.
+     *
+     * @param graph the graph to search
+     * @param pool the pool that runs each group of 64 sources
+     * @return answer[i][j] is the number of edges on a shortest path from
+     * the i'th to the j'th vertex of graph.getVertices(), or UNREACHED
+     */
+    public static <V> int[][] allDistances(Graph<V> graph, ForkJoinPool pool)
+    {
+        IndexedGraph<V> indexed= indexed(graph);
+        int[] sources= new int[indexed.numVertices()];
+        for(int i=0; i<sources.length; i++){
+            sources[i]= i;
+        }
+        return distanceMatrix(indexed, sources, pool);
+    }
+
+
+    /**
+     * @param graph the graph
+     * @param vertex a vertex
+     * @return the index of the vertex
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     */
+    private static <V> int indexOf(IndexedGraph<V> graph, V vertex)
+    {
+        int index= graph.indexOf(vertex);
+        if(index==-1){
+            throw new IllegalArgumentException("Vertex does not exist");
+        }
+        return index;
+    }
+
+
+    /**
+     * @param graph the graph
+     * @param vertices some of its vertices
+     * @return their indices, in the order the collection gives them
+     * @throws IllegalArgumentException if a vertex is not in the graph
+     */
+    private static <V> int[] indicesOf(IndexedGraph<V> graph, Collection<V> vertices)
+    {
+        int[] answer= new int[vertices.size()];
+        int i=0;
+        for(V vertex : vertices){
+            answer[i++]= indexOf(graph, vertex);
+        }
+        return answer;
+    }
+
+
+    /**
+     * @param graph any graph
+     * @return the graph itself if it can be searched by index, a
+     * snapshot of it if other threads may change it meanwhile, otherwise
+     * a compressed copy whose indices follow graph.getVertices()
+     */
+    static <V> IndexedGraph<V> indexed(Graph<V> graph)
+    {
+        if(graph instanceof ConcurrentGraphLM){
+            // a search makes many index calls that must agree, and the snapshot is O(1)
+            return (IndexedGraph<V>) graph.snapshot();
+        }
+        if(graph instanceof IndexedGraph){
+            return (IndexedGraph<V>) graph;
+        }
+        return new CsrGraphLM<V>(graph);
+    }
+
+
+    /**
+     * @param graph the graph to search
+     * @param sources the indices of the vertices to start from
+     * @param pool the pool whose threads expand each level
+     * @return the distance from the nearest source to every index, or UNREACHED
+     */
+    static int[] distances(IndexedGraph<?> graph, int[] sources, ForkJoinPool pool)
+    {
+        int count= graph.numVertices();
+        AtomicIntegerArray distance= new AtomicIntegerArray(count);
+        for(int i=0; i<count; i++){
+            distance.set(i, UNREACHED);
+        }
+
+        // the first level holds each source once
+        int[] frontier= new int[sources.length];
+        int frontierSize= 0;
+        for(int i=0; i<sources.length; i++){
+            if(distance.get(sources[i])==UNREACHED){
+                distance.set(sources[i], 0);
+                frontier[frontierSize++]= sources[i];
+            }
+        }
+        if(frontierSize<frontier.length){
+            frontier= Arrays.copyOf(frontier, frontierSize);
+        }
+        long[] frontierBits= null;
+        int unvisited= count - frontierSize;
+        int level= 0;
+
+        while(frontierSize>0){
+            boolean bottomUp= frontierBits!=null
+                ? (long) frontierSize * TOP_DOWN_RATIO >= count
+                : (long) frontierSize * BOTTOM_UP_RATIO > unvisited;
+
+            if(bottomUp){
+                if(frontierBits==null){
+                    frontierBits= toBits(frontier, frontierSize, count);
+                }
+                long[] next= new long[frontierBits.length];
+                frontierSize= bottomUpStep(graph, distance, level, frontierBits, next, pool);
+                frontierBits= next;
+                frontier= null;
+            }
+            else{
+                if(frontier==null){
+                    frontier= toList(frontierBits, frontierSize);
+                }
+                frontier= topDownStep(graph, distance, level, frontier, frontierSize, pool);
+                frontierSize= frontier.length;
+                frontierBits= null;
+            }
+            unvisited-= frontierSize;
+            level++;
+        }
+
+        int[] answer= new int[count];
+        for(int i=0; i<count; i++){
+            answer[i]= distance.get(i);
+        }
+        return answer;
+    }
+
+
+
+
+    // MANY SOURCES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param graph the graph to search
+     * @param sources the indices of the vertices to start from
+     * @param pool the pool that runs each group of 64 sources
+     * @return the distance from each source to every index, or UNREACHED
+     */
+    static int[][] distanceMatrix(IndexedGraph<?> graph, int[] sources, ForkJoinPool pool)
+    {
+        int[][] answer= new int[sources.length][];
+        ArrayList<BatchTask> work= new ArrayList<BatchTask>((sources.length + 63) >>> 6);
+        for(int low=0; low<sources.length; low+= 64){
+            work.add(new BatchTask(graph, sources, low, Math.min(sources.length, low + 64), answer));
+        }
+        if(!work.isEmpty()){
+            runAll(pool, work);
+        }
+        return answer;
+    }
+
+
+    /**
+     * Searches from sources[low] to sources[high-1] together.  For each
+     * vertex, bit k of seen, frontier and next stands for the search from
+     * sources[low + k]: a level ors the frontier word of every vertex
+     * into the next word of each of its neighbors, and the bits that were
+     * not yet seen are the vertices that level reaches.  Each search
+     * writes only its own row of the answer.
+     */
+    private static final class BatchTask extends RecursiveAction implements IntConsumer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedGraph<?> graph;
+        private final int[] sources;
+        private final int low;
+        private final int high;
+        private final int[][] answer;
+        private long[] next;
+        private long bits;
+
+
+        BatchTask(IndexedGraph<?> graph, int[] sources, int low, int high, int[][] answer){
+            this.graph= graph;
+            this.sources= sources;
+            this.low= low;
+            this.high= high;
+            this.answer= answer;
+        }
+
+
+        protected void compute(){
+            int count= graph.numVertices();
+            long[] seen= new long[count];
+            long[] frontier= new long[count];
+            next= new long[count];
+            for(int k=low; k<high; k++){
+                int[] row= new int[count];
+                Arrays.fill(row, UNREACHED);
+                row[sources[k]]= 0;
+                answer[k]= row;
+                long bit= 1L << (k - low);
+                seen[sources[k]]|= bit;
+                frontier[sources[k]]|= bit;
+            }
+
+            boolean active= true;
+            for(int level=1; active; level++){
+                for(int v=0; v<count; v++){
+                    if(frontier[v]!=0){
+                        bits= frontier[v];
+                        graph.forEachNeighbor(v, this);
+                    }
+                }
+                active= false;
+                for(int v=0; v<count; v++){
+                    long fresh= next[v] & ~seen[v];
+                    next[v]= 0;
+                    frontier[v]= fresh;
+                    if(fresh!=0){
+                        active= true;
+                        seen[v]|= fresh;
+                        while(fresh!=0){
+                            answer[low + Long.numberOfTrailingZeros(fresh)][v]= level;
+                            fresh&= fresh - 1;
+                        }
+                    }
+                }
+            }
+        }
+
+
+        public void accept(int to){
+            next[to]|= bits;
+        }
+    }
+
+
+
+
+    // FRONTIER CONVERSIONS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param list the indices in the frontier
+     * @param size how many entries of list are used
+     * @param count the number of vertices in the graph
+     * @return the frontier as a bitset
+     */
+    private static long[] toBits(int[] list, int size, int count)
+    {
+        long[] bits= new long[(count + 63) >>> 6];
+        for(int i=0; i<size; i++){
+            bits[list[i] >>> 6]|= 1L << list[i];
+        }
+        return bits;
+    }
+
+
+    /**
+     * @param bits the frontier as a bitset
+     * @param size how many bits are set
+     * @return the indices in the frontier
+     */
+    private static int[] toList(long[] bits, int size)
+    {
+        int[] list= new int[size];
+        int next=0;
+        for(int w=0; w<bits.length; w++){
+            long word= bits[w];
+            while(word!=0){
+                list[next++]= (w << 6) + Long.numberOfTrailingZeros(word);
+                word&= word - 1;
+            }
+        }
+        return list;
+    }
+
+
+    /**
+     * @param pool the pool that will run the tasks
+     * @param work the amount of work to split
+     * @return how many tasks to split it into
+     */
+    private static int taskCount(ForkJoinPool pool, int work)
+    {
+        return Math.max(1, Math.min(pool.getParallelism() * 4, work / GRAIN));
+    }
+
+
+    /**
+     * Runs tasks, in the calling thread if there is only one.
+     *
+     * @param pool the pool to run them in
+     * @param tasks the tasks to run
+     */
+    private static void runAll(ForkJoinPool pool, final ArrayList<? extends ForkJoinTask<?>> tasks)
+    {
+        if(tasks.size()==1){
+            tasks.get(0).invoke();
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            protected void compute(){
+                invokeAll(tasks);
+            }
+        });
+    }
+
+
+
+
+    // TOP-DOWN
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Expands one level top-down: each frontier vertex claims its
+     * unvisited neighbors with a compare-and-set on their distance.
+     *
+     * @return the next frontier
+     */
+    private static int[] topDownStep(IndexedGraph<?> graph, AtomicIntegerArray distance, int level,
+                                     int[] frontier, int frontierSize, ForkJoinPool pool)
+    {
+        int tasks= taskCount(pool, frontierSize);
+        ArrayList<TopDownTask> work= new ArrayList<TopDownTask>(tasks);
+        for(int t=0; t<tasks; t++){
+            int low= (int) ((long) frontierSize * t / tasks);
+            int high= (int) ((long) frontierSize * (t + 1) / tasks);
+            work.add(new TopDownTask(graph, distance, level + 1, frontier, low, high));
+        }
+        runAll(pool, work);
+
+        int total=0;
+        for(TopDownTask task : work){
+            total+= task.size;
+        }
+        int[] next= new int[total];
+        int spot=0;
+        for(TopDownTask task : work){
+            System.arraycopy(task.found, 0, next, spot, task.size);
+            spot+= task.size;
+        }
+        return next;
+    }
+
+
+    /**
+     * Expands frontier[low] to frontier[high-1], collecting the
+     * vertices it claims in its own buffer.
+     */
+    private static final class TopDownTask extends RecursiveAction implements IntConsumer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedGraph<?> graph;
+        private final AtomicIntegerArray distance;
+        private final int nextLevel;
+        private final int[] frontier;
+        private final int low;
+        private final int high;
+        int[] found= new int[16];
+        int size;
+
+
+        TopDownTask(IndexedGraph<?> graph, AtomicIntegerArray distance, int nextLevel,
+                    int[] frontier, int low, int high){
+            this.graph= graph;
+            this.distance= distance;
+            this.nextLevel= nextLevel;
+            this.frontier= frontier;
+            this.low= low;
+            this.high= high;
+        }
+
+
+        protected void compute(){
+            for(int i=low; i<high; i++){
+                graph.forEachNeighbor(frontier[i], this);
+            }
+        }
+
+
+        public void accept(int next){
+            if(distance.get(next)==UNREACHED && distance.compareAndSet(next, UNREACHED, nextLevel)){
+                if(size==found.length){
+                    found= Arrays.copyOf(found, size * 2);
+                }
+                found[size++]= next;
+            }
+        }
+    }
+
+
+
+
+    // BOTTOM-UP
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Expands one level bottom-up: each unvisited vertex looks for a
+     * predecessor in the frontier.  Tasks own whole words of the next
+     * frontier, so no two tasks write the same word.
+     *
+     * @return the number of vertices in the next frontier
+     */
+    private static int bottomUpStep(IndexedGraph<?> graph, AtomicIntegerArray distance, int level,
+                                    long[] frontier, long[] next, ForkJoinPool pool)
+    {
+        int words= frontier.length;
+        int tasks= taskCount(pool, graph.numVertices());
+        ArrayList<BottomUpTask> work= new ArrayList<BottomUpTask>(tasks);
+        for(int t=0; t<tasks; t++){
+            int low= (int) ((long) words * t / tasks);
+            int high= (int) ((long) words * (t + 1) / tasks);
+            work.add(new BottomUpTask(graph, distance, level + 1, frontier, next, low, high));
+        }
+        runAll(pool, work);
+
+        int total=0;
+        for(BottomUpTask task : work){
+            total+= task.size;
+        }
+        return total;
+    }
+
+
+    /**
+     * Checks every unvisited vertex in words low to high-1 of the bitsets.
+     */
+    private static final class BottomUpTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedGraph<?> graph;
+        private final AtomicIntegerArray distance;
+        private final int nextLevel;
+        private final long[] frontier;
+        private final long[] next;
+        private final int low;
+        private final int high;
+        int size;
+
+
+        BottomUpTask(IndexedGraph<?> graph, AtomicIntegerArray distance, int nextLevel,
+                     long[] frontier, long[] next, int low, int high){
+            this.graph= graph;
+            this.distance= distance;
+            this.nextLevel= nextLevel;
+            this.frontier= frontier;
+            this.next= next;
+            this.low= low;
+            this.high= high;
+        }
+
+
+        protected void compute(){
+            int count= graph.numVertices();
+            int end= Math.min(count, high << 6);
+            for(int v=low << 6; v<end; v++){
+                if(distance.get(v)==UNREACHED && graph.hasPredecessorIn(v, frontier)){
+                    distance.set(v, nextLevel);
+                    next[v >>> 6]|= 1L << v;
+                    size++;
+                }
+            }
+        }
+    }
+
+
+}
@@ -0,0 +1,623 @@
+package edu.union.adt.graph;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * The read-only graph operations shared by the compressed sparse row
+ * graphs.  Vertex i's adjacent vertices are the indices target(offset(i))
+ * to target(offset(i+1)-1), kept in ascending order, and its
+ * predecessors are laid out the same way by reverseOffset and
+ * reverseTarget.  Subclasses only decide where those int sequences live:
+ * CsrGraphLM keeps them in heap arrays and MappedGraphLM reads them from
+ * a memory-mapped file.
+ *
+ * Every method that would change the graph throws an
+ * UnsupportedOperationException.
+ */
+abstract class CompressedGraph<V> implements IndexedGraph<V> {
+
+
+    protected final Object[] labels;
+    protected final HashMap<V, Integer> indices;
+    protected final int edgeCount;
+    private int structureHash;
+    private boolean hashIsZero;
+    // answers pathLength and getPath once cachePaths is called; null until then
+    private PathCache<V> paths;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param labels the vertices, in index order
+     * @param edgeCount the number of edges
+     */
+    CompressedGraph(Object[] labels, int edgeCount)
+    {
+        this.labels= labels;
+        this.edgeCount= edgeCount;
+        indices= new HashMap<V, Integer>(labels.length * 2);
+        for(int i=0; i<labels.length; i++){
+            indices.put((V) labels[i], i);
+        }
+    }
+
+
+
+
+    //STORAGE
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param index a vertex index between 0 and numVertices(), inclusive
+     * @return where the vertex's adjacent indices start; offset(index+1) is where they end
+     */
+    abstract int offset(int index);
+
+
+    /**
+     * @param position a position between 0 and numEdges()-1
+     * @return the adjacent index stored at that position
+     */
+    abstract int target(int position);
+
+
+    /**
+     * @param index a vertex index between 0 and numVertices(), inclusive
+     * @return where the vertex's predecessor indices start
+     */
+    abstract int reverseOffset(int index);
+
+
+    /**
+     * @param position a position between 0 and numEdges()-1
+     * @return the predecessor index stored at that position
+     */
+    abstract int reverseTarget(int position);
+
+
+
+
+    // GETTERS AND SETTERS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return the number of vertices in the graph.
+     */
+    public int numVertices()
+    {
+        return labels.length;
+    }
+
+
+    /**
+     * @return the number of edges in the graph.
+     */
+    public int numEdges()
+    {
+        return edgeCount;
+    }
+
+
+    /**
+     * @param vertex a vertex
+     * @return the index of the vertex, or -1 if it is not in the graph
+     */
+    public int indexOf(V vertex)
+    {
+        Integer index= vertex==null ? null : indices.get(vertex);
+        if(index==null){
+            return -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * @param index an index between 0 and numVertices()-1
+     * @return the vertex stored at that index
+     */
+    public V vertexAt(int index)
+    {
+        return (V) labels[index];
+    }
+
+
+    /**
+     * Gets the number of vertices connected by edges from a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose degree we want.
+     * @return the degree of vertex 'vertex'
+     */
+    public int degree(V vertex)
+    {
+        int spot= indexOf(vertex);
+        if(spot==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return offset(spot + 1) - offset(spot);
+    }
+
+
+    /**
+     * @return an iterable collection for the set of vertices of
+     * the graph.
+     */
+    public Iterable<V> getVertices()
+    {
+        ArrayList<V> verticies= new ArrayList<V>(labels.length);
+        for(int i=0; i<labels.length; i++){
+            verticies.add((V) labels[i]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Gets the vertices adjacent to a given vertex.  A vertex y is
+     * "adjacent to" vertex x if there is an edge (x, y) in the graph.
+     *
+     * @param from the source vertex
+     * @return an iterable collection for the set of vertices that are
+     * the destinations of edges for which 'from' is the source
+     * vertex.  If 'from' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> adjacentTo(V from)
+    {
+        ArrayList<V> verticies= new ArrayList<V>();
+        int spot= indexOf(from);
+        if(spot==-1){
+            return verticies;
+        }
+        int end= offset(spot + 1);
+        for(int i=offset(spot); i<end; i++){
+            verticies.add((V) labels[target(i)]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Gets the number of vertices that have an edge to a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose in-degree we want.
+     * @return the number of edges whose destination is 'vertex'
+     */
+    public int inDegree(V vertex)
+    {
+        int spot= indexOf(vertex);
+        if(spot==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return reverseOffset(spot + 1) - reverseOffset(spot);
+    }
+
+
+    /**
+     * Gets the vertices that have an edge to a given vertex.
+     *
+     * @param to the destination vertex
+     * @return an iterable collection for the set of vertices that are
+     * the sources of edges for which 'to' is the destination
+     * vertex.  If 'to' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> predecessorsOf(V to)
+    {
+        ArrayList<V> verticies= new ArrayList<V>();
+        int spot= indexOf(to);
+        if(spot==-1){
+            return verticies;
+        }
+        int end= reverseOffset(spot + 1);
+        for(int i=reverseOffset(spot); i<end; i++){
+            verticies.add((V) labels[reverseTarget(i)]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Passes every vertex adjacent to a given vertex to an action
+     * without building a collection.  If 'from' is not a vertex in the
+     * graph, does nothing.
+     *
+     * @param from the source vertex
+     * @param action what to do with each adjacent vertex
+     */
+    public void forEachNeighbor(V from, Consumer<V> action)
+    {
+        int spot= indexOf(from);
+        if(spot==-1){
+            return;
+        }
+        int end= offset(spot + 1);
+        for(int i=offset(spot); i<end; i++){
+            action.accept((V) labels[target(i)]);
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex adjacent to the vertex at the
+     * given index to the action.
+     *
+     * @param index the index of the source vertex
+     * @param action what to do with each adjacent index
+     */
+    public void forEachNeighbor(int index, IntConsumer action)
+    {
+        int end= offset(index + 1);
+        for(int i=offset(index); i<end; i++){
+            action.accept(target(i));
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex that has an edge to the vertex
+     * at the given index to the action.
+     *
+     * @param index the index of the destination vertex
+     * @param action what to do with each predecessor index
+     */
+    public void forEachPredecessor(int index, IntConsumer action)
+    {
+        int end= reverseOffset(index + 1);
+        for(int i=reverseOffset(index); i<end; i++){
+            action.accept(reverseTarget(i));
+        }
+    }
+
+
+    /**
+     * Tells whether any predecessor of a vertex is in a set of vertices.
+     *
+     * @param index the index of the destination vertex
+     * @param set a bitset of vertex indices
+     * @return true iff some vertex in the set has an edge to the vertex
+     */
+    public boolean hasPredecessorIn(int index, long[] set)
+    {
+        int end= reverseOffset(index + 1);
+        for(int i=reverseOffset(index); i<end; i++){
+            int from= reverseTarget(i);
+            if((set[from >>> 6] & (1L << from))!=0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return 0, since the graph never changes
+     */
+    public int modCount()
+    {
+        return 0;
+    }
+
+
+    /**
+     * Answers pathLength, hasPath and getPath from a PathCache held by
+     * this graph from now on, or stops doing so.
+     *
+     * @param capacity the most sources to keep searches for, or 0 for no cache
+     */
+    void cachePaths(int capacity)
+    {
+        paths= capacity==0 ? null : new PathCache<V>(this, capacity);
+    }
+
+
+
+
+    //ADDITIONS AND REMOVALS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void addEdge(V from, V to)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void addVertex(V vertex)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void addEdges(Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void addAll(Graph<V> other)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void addPacked(List<V> vertices, long[] packed, int count)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Does nothing: the snapshot already holds all of its vertices.
+     */
+    public void ensureCapacity(int capacity)
+    {
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void removeVertex(V toRemove)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+    /**
+     * Not supported: the snapshot cannot change.
+     */
+    public void removeEdge(V from, V to)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is immutable");
+    }
+
+
+
+
+    //BOOLEAN METHODS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether or not a vertex is in the graph.
+     *
+     * @param vertex a vertex
+     * @return true iff 'vertex' is a vertex in the graph.
+     */
+    public boolean contains(V vertex)
+    {
+        return indexOf(vertex)!=-1;
+    }
+
+
+    /**
+     * Tells whether an edge exists in the graph.  The adjacent indices
+     * of each vertex are sorted, so this is a binary search.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     *
+     * @return true iff there is an edge from the source vertex to the
+     * destination vertex in the graph.  If either of the given
+     * vertices are not vertices in the graph, then there is no edge
+     * between them.
+     */
+    public boolean hasEdge(V from, V to)
+    {
+        int fromIndex= indexOf(from);
+        int toIndex= indexOf(to);
+        if(fromIndex==-1 || toIndex==-1){
+            return false;
+        }
+        int low= offset(fromIndex);
+        int high= offset(fromIndex + 1) - 1;
+        while(low<=high){
+            int middle= (low + high) >>> 1;
+            int found= target(middle);
+            if(found<toIndex){
+                low= middle + 1;
+            }
+            else if(found>toIndex){
+                high= middle - 1;
+            }
+            else{
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Tells whether the graph is empty.
+     *
+     * @return true iff the graph is empty. A graph is empty if it has
+     * no vertices and no edges.
+     */
+    public boolean isEmpty()
+    {
+        return labels.length==0;
+    }
+
+
+
+
+    //PATHS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether there is a path connecting two given vertices.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is a path from 'from' to 'to' in the graph.
+     */
+    public boolean hasPath(V from, V to)
+    {
+        return pathLength(from, to)!= Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Gets the length of the shortest path connecting two given
+     * vertices.  The length of a path is the number of edges in the
+     * path.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the length of the shortest path from 'from' to 'to' in
+     * the graph.  If there is no path, returns Integer.MAX_VALUE
+     */
+    public int pathLength(V from, V to)
+    {
+        if(paths!=null){
+            return paths.pathLength(from, to);
+        }
+        return GraphSearch.pathLength(this, from, to);
+    }
+
+
+    /**
+     * Gets the length of the shortest path from one vertex to each of
+     * several others, with one search for them all.
+     *
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * the length of the shortest path from 'from' to it, or
+     * Integer.MAX_VALUE if there is none
+     */
+    public int[] pathLengths(V from, Collection<V> targets)
+    {
+        return GraphSearch.pathLengths(this, from, targets);
+    }
+
+
+    /**
+     * Returns the vertices along the shortest path connecting two
+     * given vertices, including the source and destination.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return an Iterable collection of vertices along the shortest
+     * path from 'from' to 'to', or null if there is no path
+     */
+    public Iterable<V> getPath(V from, V to)
+    {
+        if(paths!=null){
+            return paths.getPath(from, to);
+        }
+        return GraphSearch.getPath(this, from, to);
+    }
+
+
+
+
+    //PRINTING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gives a string representation of the graph: one line per vertex,
+     * the vertex followed by ":" and then its adjacent vertices, each
+     * preceded by a space and separated by ",".
+     *
+     * @return the string representation of the graph
+     */
+    public String toString()
+    {
+        return GraphText.render(this, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Writes the same text as toString, one vertex at a time.
+     *
+     * @param out where to write the graph
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out);
+    }
+
+
+    /**
+     * Writes the same text as toString, stopping after maxVertices
+     * vertices and maxEdges edges.  Anything left out is shown as "...".
+     *
+     * @param out where to write the graph
+     * @param maxVertices the most vertex lines to write
+     * @param maxEdges the most edges to write, over all lines
+     */
+    public void writeTo(Appendable out, int maxVertices, int maxEdges) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out, maxVertices, maxEdges);
+    }
+
+
+    /**
+     * @return this graph, which never changes
+     */
+    public Graph<V> snapshot()
+    {
+        return this;
+    }
+
+
+    /**
+     * Checks whether the graphs are equivalent: the same number of
+     * vertices and edges, the same vertices and the same edges.  The
+     * other graph can be any Graph implementation.
+     *
+     * @param other another object to compare to
+     * @return whether the two objects are equivalent
+     */
+    @Override
+    public boolean equals(Object other)
+    {
+        return GraphStructure.equal(this, other);
+    }
+
+
+    /**
+     * @return a hash of the vertices and edges, computed on first use
+     */
+    @Override
+    public int hashCode()
+    {
+        // as in String.hashCode: threads that race just compute the same value
+        int hash= structureHash;
+        if(hash==0 && !hashIsZero){
+            hash= GraphStructure.hash(this);
+            if(hash==0){
+                hashIsZero= true;
+            }
+            else{
+                structureHash= hash;
+            }
+        }
+        return hash;
+    }
+
+
+}
@@ -0,0 +1,1515 @@
+package edu.union.adt.graph;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A thread-safe graph that many threads can read and change at once.
+ *
+ * Edges are kept as in ArrayGraphLM, as a bit matrix and its transpose,
+ * but every row is an AtomicLongArray so a bit can be set with a
+ * compare-and-set while other threads read the same row.  Two kinds of
+ * lock guard the rest:
+ *
+ * <ul>
+ * <li>A StampedLock guards the vertices.  Adding or removing a vertex,
+ * which can move rows and change indices, takes its write lock.
+ * Adding or removing an edge takes its read lock, so edge changes run
+ * in parallel with each other and with queries.
+ * <li>Striped locks keep two threads from changing edges out of the
+ * same vertex at once, so the matrix, its transpose and the edge count
+ * always agree.
+ * </ul>
+ *
+ * The quick queries (contains, hasEdge, degree, adjacentTo and their
+ * kin) first read without locking under an optimistic stamp, and only
+ * take the read lock if a vertex was added or removed meanwhile.  Path
+ * searches hold the read lock, which blocks only vertex changes; they
+ * see edge changes made during the search as they happen.
+ *
+ * What runs while a lock is held:
+ * <ul>
+ * <li>Actions passed to forEachNeighbor(V, Consumer) run with no lock
+ * held, on a copy of the row, so they may change the graph.
+ * <li>toString and equals work on a snapshot(), so vertices' toString,
+ * the other graph's methods and anything they call run with no lock
+ * held.
+ * <li>Vertices' hashCode and equals run under the locks whenever a
+ * vertex is looked up, added or copied, and writeTo holds the read
+ * lock while it writes to its Appendable.  None of these may add or remove a
+ * vertex of this graph: the StampedLock is not reentrant, so that
+ * would deadlock.
+ * </ul>
+ * The index-based methods (indexOf, vertexAt, forEachNeighbor(int,
+ * IntConsumer) and those used by searches) read under an optimistic
+ * stamp and copy a row before passing it on, so each call is consistent
+ * on its own.  Indices still move when a vertex is removed, so code
+ * that needs many such calls to agree, like the searches in
+ * BreadthFirstSearch, StrongComponents and PathCache, works on a
+ * snapshot() instead.
+ *
+ * snapshot() is O(1), as in ArrayGraphLM: each row records the epoch
+ * it was made in, a snapshot starts a new epoch and shares every row,
+ * and a row from an older epoch is copied before it is first changed.
+ * Taking a snapshot waits only for edge changes already under way, by
+ * taking every stripe for a moment; it never waits for a search, and
+ * the snapshot itself is read with no locking at all.
+ */
+public class ConcurrentGraphLM<V> implements IndexedGraph<V> {
+
+
+    private static final int INITIAL =10;
+
+    // a power of two, so that a stripe is picked with a mask
+    private static final int STRIPES =64;
+
+    private final StampedLock structure= new StampedLock();
+    private final ReentrantLock[] stripes= new ReentrantLock[STRIPES];
+
+    // bit 'to' of rows[from] is set iff (from, to) is an edge
+    private volatile Row[] rows;
+    // bit 'from' of reverseRows[to] is set iff (from, to) is an edge
+    private volatile Row[] reverseRows;
+    private Object[] labels;
+    private volatile ConcurrentHashMap<V, Integer> indices;
+    private volatile int vertexCount;
+    private final AtomicInteger edgeCount= new AtomicInteger();
+    // the sum kept by GraphStructure: vertex hashes plus edge hashes
+    private final AtomicInteger structureHash= new AtomicInteger();
+    // bumped by every change to the vertices or edges, so PathCache can tell its results are stale
+    private final AtomicInteger modCount= new AtomicInteger();
+
+    // copy-on-write state for snapshot(): a row may be changed in place iff its epoch equals
+    // 'epoch'.  The epoch only moves while every stripe is held, so a thread holding a stripe
+    // sees it steady.  Rows are installed, and the arrays of rows unshared, under 'copying'.
+    private int epoch;
+    private final ReentrantLock copying= new ReentrantLock();
+    // whether a snapshot also holds the arrays of rows, or the labels and indices
+    private boolean sharedRows;
+    private boolean sharedVertices;
+    // true for a snapshot, which never changes
+    private final boolean readOnly;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Create an empty graph.
+     */
+    public ConcurrentGraphLM()
+    {
+        this(INITIAL);
+    }
+
+
+    /**
+     * Create an empty graph with room for a given number of vertices.
+     *
+     * @param capacity the number of vertices to make room for
+     */
+    public ConcurrentGraphLM(int capacity)
+    {
+        capacity= Math.max(capacity, 1);
+        for(int i=0; i<STRIPES; i++){
+            stripes[i]= new ReentrantLock();
+        }
+        labels= new Object[capacity];
+        indices= new ConcurrentHashMap<V, Integer>();
+        rows= newRows(capacity, 0, 0);
+        reverseRows= newRows(capacity, 0, 0);
+        readOnly= false;
+    }
+
+
+    /**
+     * Create a snapshot that shares every array with a graph.  The
+     * caller holds the read lock and every stripe of the source, so no
+     * change is half done.
+     *
+     * @param source the graph to take a snapshot of
+     */
+    private ConcurrentGraphLM(ConcurrentGraphLM<V> source)
+    {
+        for(int i=0; i<STRIPES; i++){
+            stripes[i]= new ReentrantLock();
+        }
+        labels= source.labels;
+        indices= source.indices;
+        rows= source.rows;
+        reverseRows= source.reverseRows;
+        vertexCount= source.vertexCount;
+        edgeCount.set(source.edgeCount.get());
+        structureHash.set(source.structureHash.get());
+        modCount.set(source.modCount.get());
+        readOnly= true;
+    }
+
+
+
+
+    // BITS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param capacity the number of vertices a row has to hold
+     * @return the number of longs needed for one bitset row
+     */
+    private static int rowWords(int capacity)
+    {
+        return (capacity + 63) >>> 6;
+    }
+
+
+    /**
+     * A bitset row that remembers the epoch it was made in.
+     */
+    private static final class Row extends AtomicLongArray {
+
+        private static final long serialVersionUID = 1L;
+
+        final int epoch;
+
+
+        Row(int words, int epoch){
+            super(words);
+            this.epoch= epoch;
+        }
+
+
+        Row(long[] bits, int epoch){
+            super(bits);
+            this.epoch= epoch;
+        }
+    }
+
+
+    /**
+     * @param capacity the number of rows and of bits in each row
+     * @param reused how many rows at the front the caller will fill in
+     * @param epoch the epoch of the new rows
+     * @return rows of the right width, the first 'reused' left null
+     */
+    private static Row[] newRows(int capacity, int reused, int epoch)
+    {
+        Row[] made= new Row[capacity];
+        for(int i=reused; i<capacity; i++){
+            made[i]= new Row(rowWords(capacity), epoch);
+        }
+        return made;
+    }
+
+
+    /**
+     * @param row a bitset row
+     * @param words how many longs the copy should have, at least row.length()
+     * @return the row's bits as they are now
+     */
+    private static long[] bitsOf(AtomicLongArray row, int words)
+    {
+        long[] bits= new long[words];
+        for(int w=0; w<row.length(); w++){
+            bits[w]= row.get(w);
+        }
+        return bits;
+    }
+
+
+    /**
+     * @return whether a bit is set; false if the row is too short to hold it
+     */
+    private static boolean testBit(AtomicLongArray row, int bit)
+    {
+        int word= bit >>> 6;
+        return word<row.length() && (row.get(word) & (1L << bit))!=0;
+    }
+
+
+    /**
+     * Sets a bit with a compare-and-set, so other bits of the word can
+     * change at the same time.
+     *
+     * @return true iff the bit was not already set
+     */
+    private static boolean setBit(AtomicLongArray row, int bit)
+    {
+        int word= bit >>> 6;
+        long mask= 1L << bit;
+        while(true){
+            long old= row.get(word);
+            if((old & mask)!=0){
+                return false;
+            }
+            if(row.compareAndSet(word, old, old | mask)){
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * Clears a bit with a compare-and-set.
+     *
+     * @return true iff the bit was set
+     */
+    private static boolean clearBit(AtomicLongArray row, int bit)
+    {
+        int word= bit >>> 6;
+        long mask= 1L << bit;
+        while(true){
+            long old= row.get(word);
+            if((old & mask)==0){
+                return false;
+            }
+            if(row.compareAndSet(word, old, old & ~mask)){
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of set bits in a row
+     */
+    private static int countBits(AtomicLongArray row)
+    {
+        int count=0;
+        for(int w=0; w<row.length(); w++){
+            count+= Long.bitCount(row.get(w));
+        }
+        return count;
+    }
+
+
+    /**
+     * @param row a bitset row
+     * @param action what to do with the index of each set bit
+     */
+    private static void forEachBit(AtomicLongArray row, IntConsumer action)
+    {
+        for(int w=0; w<row.length(); w++){
+            long bits= row.get(w);
+            while(bits!=0){
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits&= bits - 1;
+            }
+        }
+    }
+
+
+    /**
+     * @param spot a vertex index
+     * @return the lock for edges out of that vertex
+     */
+    private ReentrantLock stripe(int spot)
+    {
+        return stripes[spot & (STRIPES - 1)];
+    }
+
+
+
+
+    // COPY ON WRITE
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gets a row ready to be changed in place, copying it first if a
+     * snapshot may share it.  The caller holds the stripe that guards
+     * the change, or the write lock.  Two threads may want the same
+     * transposed row at once, so rows are copied and put in place under
+     * 'copying'; the quick check needs no lock, since a row of the
+     * current epoch is never replaced until the epoch moves.
+     *
+     * @param reverse whether the row is in the transpose
+     * @param spot the index of the row's vertex
+     * @return the row, which belongs to this graph alone
+     */
+    private Row own(boolean reverse, int spot)
+    {
+        Row row= (reverse ? reverseRows : rows)[spot];
+        if(row.epoch==epoch){
+            return row;
+        }
+        copying.lock();
+        try{
+            if(sharedRows){
+                rows= rows.clone();
+                reverseRows= reverseRows.clone();
+                sharedRows= false;
+            }
+            Row[] matrix= reverse ? reverseRows : rows;
+            row= matrix[spot];
+            if(row.epoch!=epoch){
+                row= new Row(bitsOf(row, row.length()), epoch);
+                matrix[spot]= row;
+            }
+            return row;
+        }
+        finally{
+            copying.unlock();
+        }
+    }
+
+
+    /**
+     * Copies the labels and indices if a snapshot holds them.  The
+     * write lock must be held.
+     */
+    private void unshareVertices()
+    {
+        if(sharedVertices){
+            labels= labels.clone();
+            indices= new ConcurrentHashMap<V, Integer>(indices);
+            sharedVertices= false;
+        }
+    }
+
+
+    /**
+     * Makes sure this graph can be changed.
+     */
+    private void checkWritable()
+    {
+        if(readOnly){
+            throw new UnsupportedOperationException("ConcurrentGraphLM snapshot is immutable");
+        }
+    }
+
+
+
+
+    // GETTERS AND SETTERS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return the number of vertices in the graph.
+     */
+    public int numVertices()
+    {
+        return vertexCount;
+    }
+
+
+    /**
+     * @return the number of edges in the graph.
+     */
+    public int numEdges()
+    {
+        return edgeCount.get();
+    }
+
+
+    /**
+     * @param vertex a vertex
+     * @return the index of the vertex, or -1 if it is not in the graph
+     */
+    public int indexOf(V vertex)
+    {
+        if(readOnly){
+            return spotOf(vertex);
+        }
+        long stamp= structure.tryOptimisticRead();
+        int spot= spotOf(vertex);
+        if(!structure.validate(stamp)){
+            stamp= structure.readLock();
+            try{
+                spot= spotOf(vertex);
+            }
+            finally{
+                structure.unlockRead(stamp);
+            }
+        }
+        return spot;
+    }
+
+
+    /**
+     * Looks a vertex up with no lock.  Callers that hold no lock must
+     * validate a stamp afterwards, since a vertex being removed can
+     * briefly share its index with the vertex moved into its spot.
+     *
+     * @return the index of the vertex, or -1 if it is not in the graph
+     */
+    private int spotOf(V vertex)
+    {
+        Integer spot= vertex==null ? null : indices.get(vertex);
+        return spot==null ? -1 : spot;
+    }
+
+
+    /**
+     * @param index an index between 0 and numVertices()-1
+     * @return the vertex stored at that index
+     */
+    public V vertexAt(int index)
+    {
+        if(readOnly){
+            return (V) labels[index];
+        }
+        long stamp= structure.tryOptimisticRead();
+        Object vertex= labels[index];
+        if(!structure.validate(stamp)){
+            stamp= structure.readLock();
+            try{
+                vertex= labels[index];
+            }
+            finally{
+                structure.unlockRead(stamp);
+            }
+        }
+        return (V) vertex;
+    }
+
+
+    /**
+     * Gets the number of vertices connected by edges from a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose degree we want.
+     * @return the degree of vertex 'vertex'
+     */
+    public int degree(V vertex)
+    {
+        long stamp= structure.tryOptimisticRead();
+        int count= countRow(rows, vertex);
+        if(!structure.validate(stamp)){
+            stamp= structure.readLock();
+            try{
+                count= countRow(rows, vertex);
+            }
+            finally{
+                structure.unlockRead(stamp);
+            }
+        }
+        if(count==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return count;
+    }
+
+
+    /**
+     * Gets the number of vertices that have an edge to a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose in-degree we want.
+     * @return the number of edges whose destination is 'vertex'
+     */
+    public int inDegree(V vertex)
+    {
+        long stamp= structure.tryOptimisticRead();
+        int count= countRow(reverseRows, vertex);
+        if(!structure.validate(stamp)){
+            stamp= structure.readLock();
+            try{
+                count= countRow(reverseRows, vertex);
+            }
+            finally{
+                structure.unlockRead(stamp);
+            }
+        }
+        if(count==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return count;
+    }
+
+
+    /**
+     * Counts the bits in a vertex's row.  Safe to call without a lock:
+     * a row that is out of range gives -1 rather than an exception.
+     *
+     * @param matrix rows or reverseRows, as read by the caller
+     * @return the number of set bits, or -1 if the vertex has no row
+     */
+    private int countRow(Row[] matrix, V vertex)
+    {
+        int spot= spotOf(vertex);
+        if(spot==-1 || spot>=matrix.length || matrix[spot]==null){
+            return -1;
+        }
+        return countBits(matrix[spot]);
+    }
+
+
+    /**
+     * @return an iterable collection for the set of vertices of
+     * the graph.
+     */
+    public Iterable<V> getVertices()
+    {
+        long stamp= structure.readLock();
+        try{
+            ArrayList<V> verticies= new ArrayList<V>(vertexCount);
+            for(int i=0; i<vertexCount; i++){
+                verticies.add((V) labels[i]);
+            }
+            return verticies;
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Gets the vertices adjacent to a given vertex.  A vertex y is
+     * "adjacent to" vertex x if there is an edge (x, y) in the graph.
+     *
+     * @param from the source vertex
+     * @return an iterable collection for the set of vertices that are
+     * the destinations of edges for which 'from' is the source
+     * vertex.  If 'from' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> adjacentTo(V from)
+    {
+        return readRow(false, from);
+    }
+
+
+    /**
+     * Gets the vertices that have an edge to a given vertex.
+     *
+     * @param to the destination vertex
+     * @return an iterable collection for the set of vertices that are
+     * the sources of edges for which 'to' is the destination
+     * vertex.  If 'to' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> predecessorsOf(V to)
+    {
+        return readRow(true, to);
+    }
+
+
+    /**
+     * Copies the vertices named by a row, trying an optimistic read
+     * first.
+     *
+     * @param reverse whether to read the transposed row
+     * @param vertex the vertex whose row to read
+     * @return the vertices, empty if the vertex is not in the graph
+     */
+    private ArrayList<V> readRow(boolean reverse, V vertex)
+    {
+        long stamp= structure.tryOptimisticRead();
+        if(stamp!=0){
+            ArrayList<V> verticies= copyRow(reverse ? reverseRows : rows, labels, vertex);
+            if(verticies!=null && structure.validate(stamp)){
+                return verticies;
+            }
+        }
+        stamp= structure.readLock();
+        try{
+            return copyRow(reverse ? reverseRows : rows, labels, vertex);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Copies the vertices named by a row.  Without a lock the arrays
+     * may be from different moments, so every index is checked and null
+     * is returned instead of an exception.
+     *
+     * @return the vertices, or null if the arrays did not agree
+     */
+    private ArrayList<V> copyRow(Row[] matrix, Object[] names, V vertex)
+    {
+        ArrayList<V> verticies= new ArrayList<V>();
+        int spot= spotOf(vertex);
+        if(spot==-1){
+            return verticies;
+        }
+        if(spot>=matrix.length || matrix[spot]==null){
+            return null;
+        }
+        AtomicLongArray row= matrix[spot];
+        for(int w=0; w<row.length(); w++){
+            long bits= row.get(w);
+            while(bits!=0){
+                int bit= (w << 6) + Long.numberOfTrailingZeros(bits);
+                if(bit>=names.length || names[bit]==null){
+                    return null;
+                }
+                verticies.add((V) names[bit]);
+                bits&= bits - 1;
+            }
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Passes every vertex adjacent to a given vertex to an action.  The
+     * row is copied first, so the action may change the graph.
+     *
+     * @param from the source vertex
+     * @param action what to do with each adjacent vertex
+     */
+    public void forEachNeighbor(V from, Consumer<V> action)
+    {
+        for(V vertex : readRow(false, from)){
+            action.accept(vertex);
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex adjacent to the vertex at the
+     * given index to the action.  A snapshot reads the row in place;
+     * otherwise the row's indices are copied under an optimistic stamp
+     * first, so the action runs with no lock held and sees the row as
+     * it was at one moment.
+     *
+     * @param index the index of the source vertex
+     * @param action what to do with each adjacent index
+     */
+    public void forEachNeighbor(int index, IntConsumer action)
+    {
+        if(readOnly){
+            forEachBit(rows[index], action);
+            return;
+        }
+        for(int bit : readIndices(false, index)){
+            action.accept(bit);
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex that has an edge to the vertex
+     * at the given index to the action, as forEachNeighbor does.
+     *
+     * @param index the index of the destination vertex
+     * @param action what to do with each predecessor index
+     */
+    public void forEachPredecessor(int index, IntConsumer action)
+    {
+        if(readOnly){
+            forEachBit(reverseRows[index], action);
+            return;
+        }
+        for(int bit : readIndices(true, index)){
+            action.accept(bit);
+        }
+    }
+
+
+    /**
+     * Copies the indices named by a row, trying an optimistic read
+     * first.
+     *
+     * @param reverse whether to read the transposed row
+     * @param index the index of the row's vertex
+     * @return the indices of the set bits, in increasing order
+     */
+    private int[] readIndices(boolean reverse, int index)
+    {
+        long stamp= structure.tryOptimisticRead();
+        if(stamp!=0){
+            int[] found= indicesIn((reverse ? reverseRows : rows)[index]);
+            if(structure.validate(stamp)){
+                return found;
+            }
+        }
+        stamp= structure.readLock();
+        try{
+            return indicesIn((reverse ? reverseRows : rows)[index]);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * @return the indices of the bits set in a row, in increasing order
+     */
+    private static int[] indicesIn(AtomicLongArray row)
+    {
+        int[] found= new int[16];
+        int size=0;
+        for(int w=0; w<row.length(); w++){
+            long bits= row.get(w);
+            while(bits!=0){
+                if(size==found.length){
+                    found= Arrays.copyOf(found, size * 2);
+                }
+                found[size++]= (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits&= bits - 1;
+            }
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+
+    /**
+     * Tells whether any predecessor of a vertex is in a set of vertices
+     * by and-ing the set with the transposed row, under an optimistic
+     * stamp unless this is a snapshot.
+     *
+     * @param index the index of the destination vertex
+     * @param set a bitset of vertex indices
+     * @return true iff some vertex in the set has an edge to the vertex
+     */
+    public boolean hasPredecessorIn(int index, long[] set)
+    {
+        if(readOnly){
+            return intersects(reverseRows[index], set);
+        }
+        long stamp= structure.tryOptimisticRead();
+        boolean found= intersects(reverseRows[index], set);
+        if(!structure.validate(stamp)){
+            stamp= structure.readLock();
+            try{
+                found= intersects(reverseRows[index], set);
+            }
+            finally{
+                structure.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+
+    /**
+     * @return whether a row and a bitset share a bit
+     */
+    private static boolean intersects(AtomicLongArray row, long[] set)
+    {
+        int words= Math.min(row.length(), set.length);
+        for(int w=0; w<words; w++){
+            if((row.get(w) & set[w])!=0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return a count of the changes made to the vertices and edges so far
+     */
+    public int modCount()
+    {
+        return modCount.get();
+    }
+
+
+
+
+    //ADDITIONS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds a directed edge between two vertices.  If there is already
+     * an edge between the given vertices, does nothing.  If either (or
+     * both) of the given vertices does not exist, it is added to the
+     * graph before the edge is created between them.
+     *
+     * When both vertices exist this takes only the read lock and the
+     * stripe of 'from', so edges out of different vertices are added in
+     * parallel.
+     *
+     * @param from the source vertex for the added edge
+     * @param to the destination vertex for the added edge
+     */
+    public void addEdge(V from, V to)
+    {
+        checkWritable();
+        if(from==null || to==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        long stamp= structure.readLock();
+        try{
+            int fromSpot= spotOf(from);
+            int toSpot= spotOf(to);
+            if(fromSpot==-1 || toSpot==-1){
+                long writeStamp= structure.tryConvertToWriteLock(stamp);
+                if(writeStamp==0){
+                    structure.unlockRead(stamp);
+                    writeStamp= structure.writeLock();
+                }
+                stamp= writeStamp;
+                insertVertex(from);
+                insertVertex(to);
+                fromSpot= spotOf(from);
+                toSpot= spotOf(to);
+            }
+            setEdge(fromSpot, toSpot, from, to, true);
+        }
+        finally{
+            structure.unlock(stamp);
+        }
+    }
+
+
+    /**
+     * Adds a vertex to the graph.  If the vertex already exists in
+     * the graph, does nothing.  If the vertex does not exist, it is
+     * added to the graph, with no edges connected to it.
+     *
+     * @param vertex the vertex to add
+     */
+    public void addVertex(V vertex)
+    {
+        checkWritable();
+        if(contains(vertex)){
+            return;
+        }
+        long stamp= structure.writeLock();
+        try{
+            insertVertex(vertex);
+        }
+        finally{
+            structure.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Adds a vertex if it is new.  The write lock must be held.
+     */
+    private void insertVertex(V vertex)
+    {
+        if(vertex==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        if(indices.containsKey(vertex)){
+            return;
+        }
+        unshareVertices();
+        if(vertexCount==labels.length){
+            growTo(labels.length * 2 + 1);
+        }
+        labels[vertexCount]= vertex;
+        indices.put(vertex, vertexCount);
+        structureHash.addAndGet(GraphStructure.vertexHash(vertex));
+        modCount.incrementAndGet();
+        vertexCount++;
+    }
+
+
+    /**
+     * Sets or clears the bits for an edge under the stripe of its source,
+     * so that the matrix, the transpose and the counts change together.
+     * The read or write lock must be held.
+     *
+     * @param setting true to add the edge, false to remove it
+     */
+    private void setEdge(int fromSpot, int toSpot, V from, V to, boolean setting)
+    {
+        ReentrantLock lock= stripe(fromSpot);
+        lock.lock();
+        try{
+            // only this stripe changes the row, so the test holds until the change is made
+            if(testBit(rows[fromSpot], toSpot)==setting){
+                return;
+            }
+            if(setting && setBit(own(false, fromSpot), toSpot)){
+                setBit(own(true, toSpot), fromSpot);
+                edgeCount.incrementAndGet();
+                structureHash.addAndGet(GraphStructure.edgeHash(from, to));
+                modCount.incrementAndGet();
+            }
+            else if(!setting && clearBit(own(false, fromSpot), toSpot)){
+                clearBit(own(true, toSpot), fromSpot);
+                edgeCount.decrementAndGet();
+                structureHash.addAndGet(-GraphStructure.edgeHash(from, to));
+                modCount.incrementAndGet();
+            }
+        }
+        finally{
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Adds many directed edges at once, as if by calling addEdge on
+     * each (from, to) pair, but gathering and sorting them first so
+     * that the room for new vertices is made once and the row of each
+     * source is written once.
+     *
+     * @param pairs the edges to add, each as a (from, to) pair
+     * @throws IllegalArgumentException if any pair has a null vertex, in
+     * which case the graph is left as it was
+     */
+    public void addEdges(Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        GraphBuilder.addEdges(this, pairs);
+    }
+
+
+    /**
+     * Adds every vertex and edge of another graph to this one.
+     *
+     * @param other the graph to copy from
+     */
+    public void addAll(Graph<V> other)
+    {
+        GraphBuilder.addAll(this, other);
+    }
+
+
+    /**
+     * Adds the vertices and edges gathered by GraphBuilder.addEdges
+     * under the write lock, so the whole batch lands at once: the lock
+     * is taken once rather than once per edge, and each source's row is
+     * owned once and has its new bits set in place.
+     *
+     * @param vertices the vertices the edges refer to, by position
+     * @param packed the sorted, distinct edges over those positions
+     * @param count how many edges to add
+     */
+    public void addPacked(List<V> vertices, long[] packed, int count)
+    {
+        checkWritable();
+        long stamp= structure.writeLock();
+        try{
+            int fresh=0;
+            for(V vertex : vertices){
+                if(!indices.containsKey(vertex)){
+                    fresh++;
+                }
+            }
+            if(vertexCount + fresh>labels.length){
+                growTo(vertexCount + fresh);
+            }
+            int[] map= new int[vertices.size()];
+            for(int i=0; i<map.length; i++){
+                insertVertex(vertices.get(i));
+                map[i]= spotOf(vertices.get(i));
+            }
+
+            int added=0;
+            int gainedHash=0;
+            int i=0;
+            while(i<count){
+                int from= GraphBuilder.source(packed[i]);
+                int fromSpot= map[from];
+                Row row= null;
+                for(; i<count && GraphBuilder.source(packed[i])==from; i++){
+                    int to= GraphBuilder.target(packed[i]);
+                    int toSpot= map[to];
+                    if(!testBit(rows[fromSpot], toSpot)){
+                        if(row==null){
+                            row= own(false, fromSpot);
+                        }
+                        setBit(row, toSpot);
+                        setBit(own(true, toSpot), fromSpot);
+                        gainedHash+= GraphStructure.edgeHash(vertices.get(from), vertices.get(to));
+                        added++;
+                    }
+                }
+            }
+            if(added>0){
+                edgeCount.addAndGet(added);
+                structureHash.addAndGet(gainedHash);
+                modCount.incrementAndGet();
+            }
+        }
+        finally{
+            structure.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Makes room for at least a given number of vertices, so that adding
+     * that many vertices never has to grow the graph again.
+     *
+     * @param capacity the number of vertices to make room for
+     */
+    public void ensureCapacity(int capacity)
+    {
+        checkWritable();
+        long stamp= structure.writeLock();
+        try{
+            if(capacity>labels.length){
+                growTo(capacity);
+            }
+        }
+        finally{
+            structure.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Grows the labels and both matrices.  A row is copied only if it
+     * needs more words; the others are kept, still marked with their
+     * epoch, so a snapshot holding them keeps them safe.  The write lock
+     * must be held.
+     *
+     * @param newSize the new number of vertex slots
+     */
+    private void growTo(int newSize)
+    {
+        labels= Arrays.copyOf(labels, newSize);
+        rows= growRows(rows, newSize, epoch);
+        reverseRows= growRows(reverseRows, newSize, epoch);
+        sharedRows= false;
+    }
+
+
+    /**
+     * @return the rows, widened if needed, followed by new empty rows
+     */
+    private static Row[] growRows(Row[] matrix, int newSize, int epoch)
+    {
+        Row[] grown= newRows(newSize, matrix.length, epoch);
+        int words= rowWords(newSize);
+        for(int i=0; i<matrix.length; i++){
+            Row row= matrix[i];
+            if(row.length()!=words){
+                row= new Row(bitsOf(row, words), epoch);
+            }
+            grown[i]= row;
+        }
+        return grown;
+    }
+
+
+
+
+    //BOOLEAN METHODS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether or not a vertex is in the graph.
+     *
+     * @param vertex a vertex
+     * @return true iff 'vertex' is a vertex in the graph.
+     */
+    public boolean contains(V vertex)
+    {
+        return vertex!=null && indices.containsKey(vertex);
+    }
+
+
+    /**
+     * Tells whether an edge exists in the graph, without locking unless
+     * a vertex was added or removed during the check.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is an edge from the source vertex to the
+     * destination vertex in the graph.  If either of the given
+     * vertices are not vertices in the graph, then there is no edge
+     * between them.
+     */
+    public boolean hasEdge(V from, V to)
+    {
+        long stamp= structure.tryOptimisticRead();
+        boolean found= testEdge(rows, from, to);
+        if(structure.validate(stamp)){
+            return found;
+        }
+        stamp= structure.readLock();
+        try{
+            return testEdge(rows, from, to);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * @return whether the edge's bit is set, checking every index so this is safe without a lock
+     */
+    private boolean testEdge(Row[] matrix, V from, V to)
+    {
+        int fromSpot= spotOf(from);
+        int toSpot= spotOf(to);
+        if(fromSpot==-1 || toSpot==-1 || fromSpot>=matrix.length || matrix[fromSpot]==null){
+            return false;
+        }
+        return testBit(matrix[fromSpot], toSpot);
+    }
+
+
+    /**
+     * Tells whether the graph is empty.
+     *
+     * @return true iff the graph is empty. A graph is empty if it has
+     * no vertices and no edges.
+     */
+    public boolean isEmpty()
+    {
+        return numVertices()==0 && numEdges()==0;
+    }
+
+
+    /**
+     * Tells whether there is a path connecting two given vertices.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is a path from 'from' to 'to' in the graph.
+     */
+    public boolean hasPath(V from, V to)
+    {
+        return pathLength(from, to)!=Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Gets the length of the shortest path connecting two given
+     * vertices, holding the read lock so that no vertex moves during
+     * the search.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the length of the shortest path from 'from' to 'to' in
+     * the graph.  If there is no path, returns Integer.MAX_VALUE
+     */
+    public int pathLength(V from, V to)
+    {
+        long stamp= structure.readLock();
+        try{
+            return GraphSearch.pathLength(this, from, to);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Gets the length of the shortest path from one vertex to each of
+     * several others, with one search for them all, holding the read
+     * lock during the search.
+     *
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * the length of the shortest path from 'from' to it, or
+     * Integer.MAX_VALUE if there is none
+     */
+    public int[] pathLengths(V from, Collection<V> targets)
+    {
+        long stamp= structure.readLock();
+        try{
+            return GraphSearch.pathLengths(this, from, targets);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Returns the vertices along the shortest path connecting two
+     * given vertices, holding the read lock during the search.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return an Iterable collection of vertices along the shortest
+     * path from 'from' to 'to'.  The Iterable should include the
+     * source and destination vertices.
+     */
+    public Iterable<V> getPath(V from, V to)
+    {
+        long stamp= structure.readLock();
+        try{
+            return GraphSearch.getPath(this, from, to);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+
+
+    // REMOVING METHODS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Removes a vertex from the graph, and every edge into or out of
+     * it, under the write lock.
+     *
+     * @param toRemove the vertex to remove.
+     */
+    public void removeVertex(V toRemove)
+    {
+        checkWritable();
+        if(!contains(toRemove)){
+            return;
+        }
+        long stamp= structure.writeLock();
+        try{
+            if(contains(toRemove)){
+                deleteVertex(toRemove);
+            }
+        }
+        finally{
+            structure.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Isolates a vertex and moves the last vertex into its spot, as in
+     * ArrayGraphLM.  The write lock must be held, so no edge is changing.
+     * Every row is owned before it is changed, and the removed vertex's
+     * own rows are dropped rather than cleared, since a snapshot may
+     * hold them.
+     */
+    private void deleteVertex(V toRemove)
+    {
+        unshareVertices();
+        final int spot= indices.get(toRemove);
+        final int last= vertexCount - 1;
+        Row row= rows[spot];
+        Row column= reverseRows[spot];
+
+        int removedEdges=0;
+        int lostHash= GraphStructure.vertexHash(toRemove);
+        for(int w=0; w<row.length(); w++){
+            long bits= row.get(w);
+            while(bits!=0){
+                int to= (w << 6) + Long.numberOfTrailingZeros(bits);
+                lostHash+= GraphStructure.edgeHash(toRemove, labels[to]);
+                removedEdges++;
+                if(to!=spot){
+                    clearBit(own(true, to), spot);
+                }
+                bits&= bits - 1;
+            }
+            bits= column.get(w);
+            while(bits!=0){
+                int from= (w << 6) + Long.numberOfTrailingZeros(bits);
+                if(from!=spot){
+                    lostHash+= GraphStructure.edgeHash(labels[from], toRemove);
+                    removedEdges++;
+                    clearBit(own(false, from), spot);
+                }
+                bits&= bits - 1;
+            }
+        }
+
+        if(spot!=last){
+            // the last vertex's rows come here, and the last slot gets empty rows below
+            final Row moved= own(false, last);
+            final Row movedColumn= own(true, last);
+            rows[spot]= moved;
+            reverseRows[spot]= movedColumn;
+
+            boolean selfLoop= clearBit(moved, last);
+            if(selfLoop){
+                clearBit(movedColumn, last);
+            }
+            forEachBit(moved, new IntConsumer() {
+                public void accept(int to){
+                    Row other= own(true, to);
+                    clearBit(other, last);
+                    setBit(other, spot);
+                }
+            });
+            forEachBit(movedColumn, new IntConsumer() {
+                public void accept(int from){
+                    Row other= own(false, from);
+                    clearBit(other, last);
+                    setBit(other, spot);
+                }
+            });
+            if(selfLoop){
+                setBit(moved, spot);
+                setBit(movedColumn, spot);
+            }
+
+            labels[spot]= labels[last];
+            indices.put((V) labels[spot], spot);
+        }
+        else{
+            // nothing else is owned here, so the arrays of rows may still be a snapshot's
+            own(false, last);
+        }
+        rows[last]= new Row(row.length(), epoch);
+        reverseRows[last]= new Row(column.length(), epoch);
+        labels[last]= null;
+        indices.remove(toRemove);
+        vertexCount--;
+        edgeCount.addAndGet(-removedEdges);
+        structureHash.addAndGet(-lostHash);
+        modCount.incrementAndGet();
+    }
+
+
+    /**
+     * Removes an edge from the graph, holding only the read lock and the
+     * stripe of 'from'.
+     *
+     * <p>Postcondition: If from and to were in the graph and (from,
+     * to) was an edge in the graph, then numEdges = numEdges' - 1
+     */
+    public void removeEdge(V from, V to)
+    {
+        checkWritable();
+        long stamp= structure.readLock();
+        try{
+            int fromSpot= spotOf(from);
+            int toSpot= spotOf(to);
+            if(fromSpot!=-1 && toSpot!=-1){
+                setEdge(fromSpot, toSpot, from, to, false);
+            }
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+
+
+    // SNAPSHOTS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gives an immutable view of the graph as it is now, in O(1).  The
+     * view shares every row with the graph; afterwards the graph copies
+     * each row the first time it changes it, so the view never sees a
+     * later change, even a half-done one.  This holds the read lock and
+     * every stripe only while the view is made, so it waits for edge
+     * changes already under way but never for a search.  The view is
+     * read with no locking at all and may be handed to any thread.
+     *
+     * @return an immutable graph with the current vertices and edges
+     */
+    public Graph<V> snapshot()
+    {
+        if(readOnly){
+            return this;
+        }
+        long stamp= structure.readLock();
+        try{
+            for(int i=0; i<STRIPES; i++){
+                stripes[i].lock();
+            }
+            try{
+                ConcurrentGraphLM<V> view= new ConcurrentGraphLM<V>(this);
+                copying.lock();
+                try{
+                    epoch++;
+                    sharedRows= true;
+                    sharedVertices= true;
+                }
+                finally{
+                    copying.unlock();
+                }
+                return view;
+            }
+            finally{
+                for(int i=STRIPES - 1; i>=0; i--){
+                    stripes[i].unlock();
+                }
+            }
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+
+
+    // PRINTING AND COMPARING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gives a string representation of the graph: one line per vertex,
+     * the vertex followed by ":" and then its adjacent vertices, each
+     * preceded by a space and separated by ",".  The text is made from
+     * a snapshot, so no lock is held while the vertices are turned into
+     * strings.
+     *
+     * @return the string representation of the graph
+     */
+    public String toString()
+    {
+        return GraphText.render(snapshot(), Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Writes the same text as toString, one vertex at a time, holding
+     * the read lock so that a large graph is streamed without being
+     * copied.  The Appendable must not add or remove vertices of this
+     * graph.
+     *
+     * @param out where to write the graph
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        writeTo(out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Writes the same text as toString, stopping after maxVertices
+     * vertices and maxEdges edges.  Anything left out is shown as "...".
+     * Holds the read lock while writing, as writeTo(Appendable) does.
+     *
+     * @param out where to write the graph
+     * @param maxVertices the most vertex lines to write
+     * @param maxEdges the most edges to write, over all lines
+     */
+    public void writeTo(Appendable out, int maxVertices, int maxEdges) throws IOException
+    {
+        long stamp= structure.readLock();
+        try{
+            GraphText.writeAdjacencyList(this, out, maxVertices, maxEdges);
+        }
+        finally{
+            structure.unlockRead(stamp);
+        }
+    }
+
+
+    /**
+     * Checks whether the graphs are equivalent: the same number of
+     * vertices and edges, the same vertices and the same edges.  The
+     * other graph can be any Graph implementation.  This graph is
+     * compared through a snapshot, so no lock is held while the other
+     * graph is read; two threads comparing two concurrent graphs in
+     * opposite directions cannot deadlock.
+     *
+     * @param other another object to compare to
+     * @return whether the two objects are equivalent
+     */
+    @Override
+    public boolean equals(Object other)
+    {
+        if(other==this){
+            return true;
+        }
+        if(!(other instanceof Graph)){
+            return false;
+        }
+        return GraphStructure.equal(snapshot(), other);
+    }
+
+
+    /**
+     * @return a hash of the vertices and edges, kept up to date as the graph changes
+     */
+    @Override
+    public int hashCode()
+    {
+        return structureHash.get();
+    }
+
+
+}
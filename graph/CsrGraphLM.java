@@ -0,0 +1,160 @@
+package edu.union.adt.graph;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable snapshot of a graph stored in compressed sparse row
+ * form.  Vertex i's adjacent vertices are the indices
+ * targets[offsets[i]] to targets[offsets[i+1]-1], kept in ascending
+ * order, so the whole adjacency structure lives in two int arrays with
+ * no per-edge objects.  The predecessors of each vertex are kept the
+ * same way in reverseOffsets and reverseTargets.  Memory is O(V + E) no
+ * matter how sparse the graph is.
+ *
+ * Use this for read-mostly workloads: build it once from any Graph with
+ * GraphFactory.freeze.  Every method that would change the graph throws
+ * an UnsupportedOperationException.
+ */
+public class CsrGraphLM<V> extends CompressedGraph<V> {
+
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Create a snapshot holding the same vertices and edges as another graph.
+     *
+     * @param source the graph to copy
+     */
+    public CsrGraphLM(Graph<V> source)
+    {
+        super(labelsOf(source), source.numEdges());
+        final int count= labels.length;
+        offsets= new int[count + 1];
+        targets= new int[edgeCount];
+
+        // the source's indices are positions in getVertices(), which are ours too
+        final int[] next= new int[1];
+        for(int i=0; i<count; i++){
+            offsets[i]= next[0];
+            source.forEachNeighbor(i, new IntConsumer() {
+                public void accept(int to){
+                    targets[next[0]++]= to;
+                }
+            });
+            Arrays.sort(targets, offsets[i], next[0]);
+        }
+        offsets[count]= next[0];
+
+        reverseTargets= new int[targets.length];
+        reverseOffsets= reverseRows(offsets, targets, reverseTargets);
+    }
+
+
+    /**
+     * Create a snapshot from a builder's vertices and its sorted,
+     * distinct packed edges.
+     *
+     * @param vertices the vertices, in index order
+     * @param packedEdges the edges, packed by GraphBuilder.pack
+     * @param count how many entries of packedEdges are used
+     */
+    CsrGraphLM(List<V> vertices, long[] packedEdges, int count)
+    {
+        super(vertices.toArray(), count);
+        int vertexCount= labels.length;
+        offsets= new int[vertexCount + 1];
+        targets= new int[count];
+        for(int i=0; i<count; i++){
+            offsets[GraphBuilder.source(packedEdges[i]) + 1]++;
+            targets[i]= GraphBuilder.target(packedEdges[i]);
+        }
+        for(int i=0; i<vertexCount; i++){
+            offsets[i + 1]+= offsets[i];
+        }
+
+        reverseTargets= new int[targets.length];
+        reverseOffsets= reverseRows(offsets, targets, reverseTargets);
+    }
+
+
+    /**
+     * @param source any graph
+     * @return its vertices, in the order of source.getVertices()
+     */
+    private static Object[] labelsOf(Graph<?> source)
+    {
+        Object[] labels= new Object[source.numVertices()];
+        int spot=0;
+        for(Object vertex : source.getVertices()){
+            labels[spot++]= vertex;
+        }
+        return labels;
+    }
+
+
+    /**
+     * Builds the predecessor rows: count each vertex's predecessors, then
+     * place them.  Walking the sources in order leaves every row sorted.
+     *
+     * @param offsets the start of each vertex's adjacency row
+     * @param targets the adjacency rows
+     * @param reverseTargets where to put the predecessor rows
+     * @return the start of each vertex's predecessor row
+     */
+    private static int[] reverseRows(int[] offsets, int[] targets, int[] reverseTargets)
+    {
+        int count= offsets.length - 1;
+        int[] reverseOffsets= new int[count + 1];
+        for(int i=0; i<targets.length; i++){
+            reverseOffsets[targets[i] + 1]++;
+        }
+        for(int i=0; i<count; i++){
+            reverseOffsets[i + 1]+= reverseOffsets[i];
+        }
+        int[] fill= Arrays.copyOf(reverseOffsets, count);
+        for(int i=0; i<count; i++){
+            for(int j=offsets[i]; j<offsets[i + 1]; j++){
+                reverseTargets[fill[targets[j]]++]= i;
+            }
+        }
+        return reverseOffsets;
+    }
+
+
+
+    //STORAGE
+    //--------------------------------------------------------------------------------------------
+    int offset(int index)
+    {
+        return offsets[index];
+    }
+
+
+    int target(int position)
+    {
+        return targets[position];
+    }
+
+
+    int reverseOffset(int index)
+    {
+        return reverseOffsets[index];
+    }
+
+
+    int reverseTarget(int position)
+    {
+        return reverseTargets[position];
+    }
+
+
+}
@@ -1,4 +1,18 @@
 package edu.union.adt.graph;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A directed graph over vertices of type V.
+ *
+ * Every vertex also has an int index between 0 and numVertices()-1,
+ * which is its position in getVertices().  Indices let callers walk the
+ * graph with primitive arrays and without allocating; they stay valid
+ * until the next call that adds or removes a vertex.
+ */
 public interface Graph<V> {
 
 
@@ -56,6 +70,76 @@ public interface Graph<V> {
 
 
 
+        /**
+         * Gets the number of vertices that have an edge to a given
+         * vertex.  If the given vertex is not in the graph, throws a
+         * RuntimeException.
+         *
+         * @param vertex the vertex whose in-degree we want.
+         * @return the number of edges whose destination is 'vertex'
+         */
+        int inDegree(V vertex);
+
+
+
+        /**
+         * Gets the vertices that have an edge to a given vertex: x is
+         * returned iff (x, to) is an edge in the graph.  This is the
+         * reverse of adjacentTo.
+         *
+         * @param to the destination vertex
+         * @return an iterable collection for the set of vertices that are
+         * the sources of edges for which 'to' is the destination
+         * vertex.  If 'to' is not a vertex in the graph, returns an
+         * empty iterator.
+         */
+        Iterable<V> predecessorsOf(V to);
+
+
+
+        /**
+         * Passes every vertex adjacent to a given vertex to an action,
+         * reading the graph's storage directly instead of building a
+         * collection the way adjacentTo does.  If 'from' is not a vertex
+         * in the graph, does nothing.  The graph must not be changed by
+         * the action.
+         *
+         * @param from the source vertex
+         * @param action what to do with each adjacent vertex
+         */
+        void forEachNeighbor(V from, Consumer<V> action);
+
+
+
+        /**
+         * Passes the index of every vertex adjacent to the vertex at a
+         * given index to an action, without allocating.  The graph must
+         * not be changed by the action.
+         *
+         * @param index the index of the source vertex, between 0 and
+         * numVertices()-1
+         * @param action what to do with each adjacent index
+         */
+        void forEachNeighbor(int index, IntConsumer action);
+
+
+
+        /**
+         * @param vertex a vertex
+         * @return the index of the vertex, or -1 if it is not in the graph
+         */
+        int indexOf(V vertex);
+
+
+
+        /**
+         * @param index an index between 0 and numVertices()-1
+         * @return the vertex stored at that index
+         */
+        V vertexAt(int index);
+
+
+
 
         //ADDITIONS
         //--------------------------------------------------------------------------------------------
@@ -87,6 +171,39 @@ public interface Graph<V> {
 
 
 
+        /**
+         * Adds many directed edges at once, as if by calling addEdge on
+         * each (from, to) pair, but making room for all of the new
+         * vertices before adding any of them.
+         *
+         * @param pairs the edges to add, each as a (from, to) pair
+         * @throws IllegalArgumentException if any pair has a null vertex,
+         * in which case the graph is left as it was
+         */
+        void addEdges(Iterable<? extends Map.Entry<V, V>> pairs);
+
+
+
+        /**
+         * Adds every vertex and edge of another graph to this one.
+         *
+         * @param other the graph to copy from
+         */
+        void addAll(Graph<V> other);
+
+
+
+        /**
+         * Makes room for at least a given number of vertices, so that a
+         * caller who knows the final size can avoid repeated growth.
+         * Does not change the vertices or edges of the graph.
+         *
+         * @param capacity the number of vertices to make room for
+         */
+        void ensureCapacity(int capacity);
+
+
+
 
 
 
@@ -158,12 +275,41 @@ public interface Graph<V> {
 
 
 
+        /**
+         * Writes the same text as toString to 'out' one vertex at a time,
+         * without building the whole string first.  Use this to dump
+         * large graphs to a file or stream.
+         *
+         * @param out where to write the graph
+         * @throws IOException if 'out' does
+         */
+        void writeTo(Appendable out) throws IOException;
+
+
+
+
+        /**
+         * Writes the text of toString, stopping after maxVertices vertices
+         * and maxEdges edges, so that even a huge graph can be logged
+         * safely.  Anything left out is shown as "...".
+         *
+         * @param out where to write the graph
+         * @param maxVertices the most vertex lines to write
+         * @param maxEdges the most edges to write, over all lines
+         * @throws IOException if 'out' does
+         */
+        void writeTo(Appendable out, int maxVertices, int maxEdges) throws IOException;
+
+
+
         /**
          * Checks whether the graphs are equivalent taking into account:
          * - emptiness
          * - the number of verticies and edges
          * - the list of verticies
          * - the list of edges
+         * Graphs of different implementations are equal when they hold
+         * the same vertices and edges.
          * @param other another object to compare to
          * @return whether the two objects are equivalent
          */
@@ -173,6 +319,32 @@ public interface Graph<V> {
 
 
 
+        /**
+         * Gives a hash of the vertices and edges: the sum of a hash of
+         * each vertex and a hash of each edge, the same for every
+         * representation, so that equal graphs have equal hashes.
+         *
+         * @return the structural hash of the graph
+         */
+        int hashCode();
+
+
+
+
+        /**
+         * Gives an immutable view of the graph as it is now.  Later
+         * changes to the graph are never seen by the view, so long
+         * searches can run on it without blocking writers.  Mutable
+         * graphs share their storage with the view and copy only what
+         * they change afterwards; immutable graphs return themselves.
+         *
+         * @return an immutable graph with the current vertices and edges
+         */
+        Graph<V> snapshot();
+
+
+
+
 
 
     /**
@@ -246,6 +418,18 @@ public interface Graph<V> {
      */
     public int pathLength(V from, V to);
 
+    /**
+     * Gets the length of the shortest path from one vertex to each of
+     * several others, with one breadth-first search that stops as soon
+     * as every target has been reached, instead of one search per pair.
+     *
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * what pathLength(from, target) would return
+     */
+    public int[] pathLengths(V from, Collection<V> targets);
+
     /**
      * Returns the vertices along the shortest path connecting two
      * given vertices.  The vertices should be given in the order x_1,
@@ -0,0 +1,278 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Collects vertices and edges and then writes a whole graph in one
+ * pass.  Loading through a builder skips the per-call lookups and
+ * growth of repeated addEdge calls: edges are gathered as packed longs,
+ * sorted and de-duplicated once, the storage is sized once from the
+ * final counts, and each adjacency row is written exactly once.
+ *
+ * <PRE>
+ * Graph&lt;String&gt; graph= new GraphBuilder&lt;String&gt;().addEdge("A", "B").addEdge("B", "C").build();
+ * </PRE>
+ */
+public class GraphBuilder<V> {
+
+
+    private static final int INITIAL =16;
+
+    private final HashMap<V, Integer> indices= new HashMap<V, Integer>();
+    private final ArrayList<V> vertices= new ArrayList<V>();
+    // each edge is packed as (from index << 32) | to index
+    private long[] edges= new long[INITIAL];
+    private int edgeCount;
+
+
+
+
+    // ADDITIONS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds a vertex.  Adding a vertex twice has no effect.
+     *
+     * @param vertex the vertex to add
+     * @return this builder
+     */
+    public GraphBuilder<V> addVertex(V vertex)
+    {
+        spotOf(vertex);
+        return this;
+    }
+
+
+    /**
+     * Adds a directed edge, and its vertices if they are new.  Adding an
+     * edge twice has no effect on the built graph.
+     *
+     * @param from the source vertex for the added edge
+     * @param to the destination vertex for the added edge
+     * @return this builder
+     */
+    public GraphBuilder<V> addEdge(V from, V to)
+    {
+        addEdge(spotOf(from), spotOf(to));
+        return this;
+    }
+
+
+    /**
+     * Adds every edge in a collection of (from, to) pairs.
+     *
+     * @param pairs the edges to add
+     * @return this builder
+     */
+    public GraphBuilder<V> addEdges(Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        for(Map.Entry<V, V> pair : pairs){
+            addEdge(pair.getKey(), pair.getValue());
+        }
+        return this;
+    }
+
+
+    /**
+     * Adds every vertex and edge of a graph.
+     *
+     * @param graph the graph to copy
+     * @return this builder
+     */
+    public GraphBuilder<V> addAll(final Graph<V> graph)
+    {
+        for(V vertex : graph.getVertices()){
+            spotOf(vertex);
+        }
+        int count= graph.numVertices();
+        for(int i=0; i<count; i++){
+            final int fromSpot= spotOf(graph.vertexAt(i));
+            graph.forEachNeighbor(i, new IntConsumer() {
+                public void accept(int to){
+                    addEdge(fromSpot, spotOf(graph.vertexAt(to)));
+                }
+            });
+        }
+        return this;
+    }
+
+
+    /**
+     * @param vertex a vertex
+     * @return the builder's index for the vertex, adding it if it is new
+     */
+    private int spotOf(V vertex)
+    {
+        if(vertex==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        Integer spot= indices.get(vertex);
+        if(spot==null){
+            spot= vertices.size();
+            indices.put(vertex, spot);
+            vertices.add(vertex);
+        }
+        return spot;
+    }
+
+
+    /**
+     * Adds an edge between two builder indices.
+     */
+    private void addEdge(int fromSpot, int toSpot)
+    {
+        if(edgeCount==edges.length){
+            edges= Arrays.copyOf(edges, edgeCount * 2);
+        }
+        edges[edgeCount++]= pack(fromSpot, toSpot);
+    }
+
+
+
+
+    // BUILDING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Builds a mutable graph.  The representation is picked the same
+     * way as GraphFactory.createGraph(GraphOptions), using the actual
+     * vertex count and density.  The builder can still be used
+     * afterwards.
+     *
+     * @return a graph holding every vertex and edge added so far
+     */
+    public Graph<V> build()
+    {
+        int count= sortEdges();
+        double density= vertices.isEmpty() ? 0 : (double) count / ((double) vertices.size() * vertices.size());
+        if(GraphFactory.prefersMatrix(vertices.size(), density)){
+            return new ArrayGraphLM<V>(vertices, edges, count);
+        }
+        return new ListGraphLM<V>(vertices, edges, count);
+    }
+
+
+    /**
+     * Builds an immutable graph in compressed sparse row form.  The
+     * builder can still be used afterwards.
+     *
+     * @return a graph holding every vertex and edge added so far
+     */
+    public Graph<V> buildFrozen()
+    {
+        int count= sortEdges();
+        return new CsrGraphLM<V>(vertices, edges, count);
+    }
+
+
+    /**
+     * Sorts the edges by source and then destination and drops duplicates.
+     *
+     * @return the number of distinct edges, which are now at the front of edges
+     */
+    private int sortEdges()
+    {
+        Arrays.sort(edges, 0, edgeCount);
+        int distinct=0;
+        for(int i=0; i<edgeCount; i++){
+            if(distinct==0 || edges[i]!=edges[distinct - 1]){
+                edges[distinct++]= edges[i];
+            }
+        }
+        edgeCount= distinct;
+        return distinct;
+    }
+
+
+
+
+    // PACKED EDGES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return an edge packed into a long so that sorting orders by source, then destination
+     */
+    static long pack(int fromSpot, int toSpot)
+    {
+        return ((long) fromSpot << 32) | toSpot;
+    }
+
+
+    /**
+     * @param edge a packed edge
+     * @return the index of its source vertex
+     */
+    static int source(long edge)
+    {
+        return (int) (edge >>> 32);
+    }
+
+
+    /**
+     * @param edge a packed edge
+     * @return the index of its destination vertex
+     */
+    static int target(long edge)
+    {
+        return (int) edge;
+    }
+
+
+
+
+    // BULK OPERATIONS ON EXISTING GRAPHS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds many edges to an existing graph the way build() writes a new
+     * one.  The pairs are read once into a scratch builder, which
+     * rejects a null vertex before the graph is touched; the packed
+     * edges are then sorted and de-duplicated, and the graph adds the new
+     * vertices and writes each source's row once.
+     *
+     * @param graph the graph to add to
+     * @param pairs the (from, to) edges to add
+     * @throws IllegalArgumentException if any pair has a null vertex, in
+     * which case the graph is left as it was
+     */
+    static <V> void addEdges(IndexedGraph<V> graph, Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        GraphBuilder<V> gathered= new GraphBuilder<V>().addEdges(pairs);
+        int count= gathered.sortEdges();
+        graph.addPacked(gathered.vertices, gathered.edges, count);
+    }
+
+
+    /**
+     * Adds every vertex and edge of one graph to another, making room
+     * for all of the new vertices first.
+     *
+     * @param graph the graph to add to
+     * @param source the graph to copy from
+     */
+    static <V> void addAll(final Graph<V> graph, Graph<V> source)
+    {
+        // a concurrent graph is read through a snapshot, so its indices hold still
+        final Graph<V> other= source instanceof ConcurrentGraphLM ? source.snapshot() : source;
+        int fresh=0;
+        for(V vertex : other.getVertices()){
+            if(!graph.contains(vertex)){
+                fresh++;
+            }
+        }
+        graph.ensureCapacity(graph.numVertices() + fresh);
+        for(V vertex : other.getVertices()){
+            graph.addVertex(vertex);
+        }
+        int count= other.numVertices();
+        for(int i=0; i<count; i++){
+            final V from= other.vertexAt(i);
+            other.forEachNeighbor(i, new IntConsumer() {
+                public void accept(int to){
+                    graph.addEdge(from, other.vertexAt(to));
+                }
+            });
+        }
+    }
+
+
+}
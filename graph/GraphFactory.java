@@ -1,7 +1,108 @@
 package edu.union.adt.graph;
 public class GraphFactory{
 
+     // a bit matrix costs V*V/8 bytes and an adjacency list about 4 bytes per edge,
+     // so the matrix is the smaller of the two once density passes 1/32
+     private static final double MATRIX_DENSITY = 1.0 / 32;
+
+     // below this many vertices the matrix is small enough to always use
+     private static final int SMALL_GRAPH = 1024;
+
      public static<V> Graph<V> createGraph(){  
          return new ArrayGraphLM<V>();
      }
+
+     /**
+      * Makes an empty graph whose representation fits the given hints:
+      * a bit matrix (ArrayGraphLM) for small or dense graphs, and
+      * adjacency lists (ListGraphLM) for large sparse ones.  The
+      * mutability hint only matters when copying a graph with
+      * createGraph(Graph, GraphOptions), since an empty graph has to be
+      * filled in first.  If the options ask for a path cache, the graph
+      * holds one and answers its path queries from it.
+      *
+      * @param options the expected size and density of the graph
+      * @return an empty graph
+      */
+     public static<V> Graph<V> createGraph(GraphOptions options){
+         int vertices= options.getExpectedVertices();
+         if(prefersMatrix(vertices, options.getExpectedDensity())){
+             ArrayGraphLM<V> graph= new ArrayGraphLM<V>(vertices);
+             graph.cachePaths(options.getPathCacheCapacity());
+             return graph;
+         }
+         ListGraphLM<V> graph= new ListGraphLM<V>(vertices);
+         graph.cachePaths(options.getPathCacheCapacity());
+         return graph;
+     }
+
+     /**
+      * @param vertices the number of vertices in the graph
+      * @param density the fraction of all possible edges in the graph
+      * @return whether the bit matrix is the better representation
+      */
+     static boolean prefersMatrix(int vertices, double density){
+         return vertices<=SMALL_GRAPH || density>=MATRIX_DENSITY;
+     }
+
+     /**
+      * Copies a graph into the representation that fits the given hints.
+      * If the copy will not be changed, it is stored in compressed sparse
+      * row form (CsrGraphLM); otherwise the representation is chosen as
+      * in createGraph(GraphOptions).  Either way the copy holds a path
+      * cache if the options ask for one.
+      *
+      * @param source the graph to copy
+      * @param options hints about how the copy will be used
+      * @return a graph with the same vertices and edges as source
+      */
+     public static<V> Graph<V> createGraph(Graph<V> source, GraphOptions options){
+         if(!options.isMutable()){
+             CsrGraphLM<V> frozen= new CsrGraphLM<V>(source);
+             frozen.cachePaths(options.getPathCacheCapacity());
+             return frozen;
+         }
+         Graph<V> copy= createGraph(options);
+         copy.ensureCapacity(source.numVertices());
+         for(V vertex : source.getVertices()){
+             copy.addVertex(vertex);
+         }
+         for(V vertex : source.getVertices()){
+             for(V adjacent : source.adjacentTo(vertex)){
+                 copy.addEdge(vertex, adjacent);
+             }
+         }
+         return copy;
+     }
+
+     /**
+      * Makes an immutable, compressed copy of a graph for read-mostly use.
+      * Later changes to the source graph are not reflected in the copy.
+      *
+      * @param source the graph to copy
+      * @return an immutable graph with the same vertices and edges
+      */
+     public static<V> Graph<V> freeze(Graph<V> source){
+         return new CsrGraphLM<V>(source);
+     }
+
+     /**
+      * Makes an empty graph that many threads can read and change at
+      * once.  See ConcurrentGraphLM for what is locked when.
+      *
+      * @return an empty thread-safe graph
+      */
+     public static<V> Graph<V> createConcurrentGraph(){
+         return new ConcurrentGraphLM<V>();
+     }
+
+     /**
+      * Makes an empty graph that keeps a weight for every edge and can
+      * find cheapest paths.
+      *
+      * @return an empty weighted graph
+      */
+     public static<V> WeightedGraph<V> createWeightedGraph(){
+         return new WeightedGraphLM<V>();
+     }
 }
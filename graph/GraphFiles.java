@@ -0,0 +1,202 @@
+package edu.union.adt.graph;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes graphs in a compact binary format that can be
+ * opened without loading the edges.
+ *
+ * A file holds, in order and big-endian:
+ * <PRE>
+ * header          magic, version, vertex count, edge count (ints),
+ *                 dictionary length in bytes (long), 8 unused bytes
+ * dictionary      for each vertex in index order, its length and its encoded bytes,
+ *                 then zero padding to a multiple of 4 bytes
+ * offsets         vertex count + 1 ints
+ * targets         edge count ints, each row sorted
+ * reverseOffsets  vertex count + 1 ints
+ * reverseTargets  edge count ints, each row sorted
+ * </PRE>
+ * The last four sections are exactly the arrays of a CsrGraphLM, so
+ * open maps them and uses them in place.
+ */
+public final class GraphFiles {
+
+
+    private static final int MAGIC = 0x47525048;
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int BUFFER = 1 << 16;
+
+
+    private GraphFiles(){
+    }
+
+
+
+
+    // WRITING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Writes a graph to a file, replacing anything already there.
+     *
+     * @param graph the graph to write
+     * @param file where to write it
+     * @param codec how to store each vertex
+     */
+    public static <V> void write(Graph<V> graph, Path file, VertexCodec<V> codec) throws IOException
+    {
+        CompressedGraph<V> compressed= graph instanceof CompressedGraph
+            ? (CompressedGraph<V>) graph : new CsrGraphLM<V>(graph);
+        int count= compressed.numVertices();
+        int edges= compressed.numEdges();
+
+        FileChannel channel= FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                              StandardOpenOption.TRUNCATE_EXISTING);
+        try{
+            ByteBuffer buffer= ByteBuffer.allocate(BUFFER);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(edges).putLong(0).putLong(0);
+
+            long dictionary=0;
+            for(int i=0; i<count; i++){
+                byte[] bytes= codec.encode(compressed.vertexAt(i));
+                room(channel, buffer, 4);
+                buffer.putInt(bytes.length);
+                int written=0;
+                while(written<bytes.length){
+                    room(channel, buffer, 1);
+                    int length= Math.min(buffer.remaining(), bytes.length - written);
+                    buffer.put(bytes, written, length);
+                    written+= length;
+                }
+                dictionary+= 4 + bytes.length;
+            }
+            room(channel, buffer, 4);
+            for(long pad=dictionary; pad % 4!=0; pad++){
+                buffer.put((byte) 0);
+            }
+
+            for(int i=0; i<=count; i++){
+                room(channel, buffer, 4);
+                buffer.putInt(compressed.offset(i));
+            }
+            for(int i=0; i<edges; i++){
+                room(channel, buffer, 4);
+                buffer.putInt(compressed.target(i));
+            }
+            for(int i=0; i<=count; i++){
+                room(channel, buffer, 4);
+                buffer.putInt(compressed.reverseOffset(i));
+            }
+            for(int i=0; i<edges; i++){
+                room(channel, buffer, 4);
+                buffer.putInt(compressed.reverseTarget(i));
+            }
+            flush(channel, buffer);
+
+            buffer.putLong(dictionary);
+            buffer.flip();
+            channel.write(buffer, 16);
+        }
+        finally{
+            channel.close();
+        }
+    }
+
+
+    /**
+     * Empties the buffer into the channel if it has less than 'bytes' left.
+     */
+    private static void room(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException
+    {
+        if(buffer.remaining()<bytes){
+            flush(channel, buffer);
+        }
+    }
+
+
+    /**
+     * Writes everything in the buffer to the channel and clears it.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+
+
+
+    // READING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Opens a graph written by write.  The vertices are decoded onto the
+     * heap; the edges are memory-mapped and read in place.  The file
+     * must not be changed while the graph is in use.
+     *
+     * @param file the file to open
+     * @param codec how each vertex was stored
+     * @return an immutable graph backed by the file
+     * @throws IOException if the file cannot be read or is not a graph file
+     */
+    public static <V> Graph<V> open(Path file, VertexCodec<V> codec) throws IOException
+    {
+        FileChannel channel= FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            ByteBuffer header= ByteBuffer.allocate(HEADER);
+            while(header.hasRemaining()){
+                if(channel.read(header)<0){
+                    throw new IOException("Not a graph file");
+                }
+            }
+            header.flip();
+            if(header.getInt()!=MAGIC){
+                throw new IOException("Not a graph file");
+            }
+            if(header.getInt()!=VERSION){
+                throw new IOException("Unsupported graph file version");
+            }
+            int count= header.getInt();
+            int edges= header.getInt();
+            long dictionary= header.getLong();
+
+            long offsets= HEADER + (dictionary + 3) / 4 * 4;
+            long targets= offsets + ((long) count + 1) * 4;
+            long reverseOffsets= targets + (long) edges * 4;
+            long reverseTargets= reverseOffsets + ((long) count + 1) * 4;
+            if(channel.size()<reverseTargets + (long) edges * 4){
+                throw new IOException("Graph file is truncated");
+            }
+
+            // not closed: closing the stream would close the channel before mapping
+            DataInputStream in= new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(HEADER)), BUFFER));
+            Object[] labels= new Object[count];
+            for(int i=0; i<count; i++){
+                byte[] bytes= new byte[in.readInt()];
+                in.readFully(bytes);
+                labels[i]= codec.decode(bytes);
+            }
+
+            return new MappedGraphLM<V>(labels, edges,
+                                        new MappedInts(channel, offsets, count + 1),
+                                        new MappedInts(channel, targets, edges),
+                                        new MappedInts(channel, reverseOffsets, count + 1),
+                                        new MappedInts(channel, reverseTargets, edges));
+        }
+        finally{
+            channel.close();
+        }
+    }
+
+
+}
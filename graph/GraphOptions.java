@@ -0,0 +1,124 @@
+package edu.union.adt.graph;
+
+/**
+ * Hints that GraphFactory uses to pick a graph representation.  All
+ * hints are optional; the setters return the options so they can be
+ * chained:
+ *
+ * <PRE>
+ * GraphOptions options= new GraphOptions().setExpectedVertices(100000).setExpectedDensity(0.0001);
+ * </PRE>
+ */
+public class GraphOptions {
+
+
+    private static final int DEFAULT_VERTICES =10;
+
+    private int expectedVertices= DEFAULT_VERTICES;
+    private double expectedDensity= 1.0;
+    private boolean mutable= true;
+    private int pathCacheCapacity;
+
+
+
+
+    // GETTERS AND SETTERS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return how many vertices the graph is expected to hold
+     */
+    public int getExpectedVertices()
+    {
+        return expectedVertices;
+    }
+
+
+    /**
+     * @param count how many vertices the graph is expected to hold
+     * @return these options
+     */
+    public GraphOptions setExpectedVertices(int count)
+    {
+        if(count<0){
+            throw new IllegalArgumentException("Expected vertex count cannot be negative");
+        }
+        expectedVertices= count;
+        return this;
+    }
+
+
+    /**
+     * @return the expected fraction of all possible edges (V * V) that
+     * will be in the graph
+     */
+    public double getExpectedDensity()
+    {
+        return expectedDensity;
+    }
+
+
+    /**
+     * @param density the expected fraction of all possible edges (V * V)
+     * that will be in the graph, between 0 and 1
+     * @return these options
+     */
+    public GraphOptions setExpectedDensity(double density)
+    {
+        if(density<0 || density>1){
+            throw new IllegalArgumentException("Expected density must be between 0 and 1");
+        }
+        expectedDensity= density;
+        return this;
+    }
+
+
+    /**
+     * @return whether the graph will be changed after it is built
+     */
+    public boolean isMutable()
+    {
+        return mutable;
+    }
+
+
+    /**
+     * @param mutable whether the graph will be changed after it is built
+     * @return these options
+     */
+    public GraphOptions setMutable(boolean mutable)
+    {
+        this.mutable= mutable;
+        return this;
+    }
+
+
+    /**
+     * @return how many sources the graph's PathCache keeps searches for,
+     * or 0 if the graph has no cache
+     */
+    public int getPathCacheCapacity()
+    {
+        return pathCacheCapacity;
+    }
+
+
+    /**
+     * Asks for a graph that answers pathLength, hasPath and getPath from a
+     * PathCache it holds, which pays off when many queries share a few
+     * sources.  PathCache.DEFAULT_CAPACITY suits most uses.
+     *
+     * @param capacity the most sources to keep searches for, or 0, the
+     * default, for no cache
+     * @return these options
+     */
+    public GraphOptions setPathCacheCapacity(int capacity)
+    {
+        if(capacity<0){
+            throw new IllegalArgumentException("Path cache capacity cannot be negative");
+        }
+        pathCacheCapacity= capacity;
+        return this;
+    }
+
+
+}
@@ -0,0 +1,364 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Breadth-first search over the int indices of an IndexedGraph.
+ * Point-to-point queries (pathLength, hasPath and getPath) use a
+ * bidirectional search that stops as soon as the two sides meet, so
+ * each costs one bounded traversal.
+ */
+final class GraphSearch {
+
+    /** marks a vertex that the traversal has not reached */
+    static final int UNVISITED = -1;
+
+
+    private GraphSearch(){
+    }
+
+
+
+    /**
+     * Finds a shortest path with a bidirectional breadth-first search:
+     * one search goes forward along edges from the source, the other
+     * goes backward along predecessors from the target, and each step
+     * expands a whole level of whichever frontier is smaller.  When a
+     * level expansion touches the other search, the shortest connection
+     * seen during that level is a shortest path.  On high-fanout graphs
+     * this visits far fewer vertices than a search from the source alone.
+     *
+     * @param graph the graph to search
+     * @param source the index of the starting vertex
+     * @param target the index of the destination vertex
+     * @return the indices along a shortest path, both ends included, or
+     * null if there is no path
+     */
+    static <V> int[] shortestPath(IndexedGraph<V> graph, int source, int target)
+    {
+        return shortestPath(graph, source, target, null);
+    }
+
+
+    /**
+     * Finds a shortest path as shortestPath(graph, source, target) does,
+     * also counting the vertices the two sides reached.
+     *
+     * @param visited if not null, its first entry is set to the number
+     * of vertices the forward and backward searches reached together
+     */
+    static <V> int[] shortestPath(IndexedGraph<V> graph, int source, int target, int[] visited)
+    {
+        if(source==target){
+            if(visited!=null){
+                visited[0]= 1;
+            }
+            return new int[] {source};
+        }
+        int count= graph.numVertices();
+        Frontier forward= new Frontier(count, source, true);
+        Frontier backward= new Frontier(count, target, false);
+        forward.other= backward;
+        backward.other= forward;
+
+        while(!forward.isEmpty() && !backward.isEmpty()){
+            Frontier side= forward.size()<=backward.size() ? forward : backward;
+            side.expandLevel(graph);
+            if(visited!=null){
+                visited[0]= forward.tail + backward.tail;
+            }
+            if(side.meetingLength!=Integer.MAX_VALUE){
+                int[] path= new int[side.meetingLength + 1];
+                int spot= side.meetingForward;
+                for(int i=forward.distance[spot]; i>=0; i--){
+                    path[i]= spot;
+                    spot= forward.parent[spot];
+                }
+                spot= side.meetingBackward;
+                for(int i=path.length - 1 - backward.distance[spot]; i<path.length; i++){
+                    path[i]= spot;
+                    spot= backward.parent[spot];
+                }
+                return path;
+            }
+        }
+        return null;
+    }
+
+
+
+    /**
+     * @param graph the graph to search
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the length of the shortest path from 'from' to 'to', or
+     * Integer.MAX_VALUE if either vertex is missing or there is no path
+     */
+    static <V> int pathLength(IndexedGraph<V> graph, V from, V to)
+    {
+        int source= graph.indexOf(from);
+        int target= graph.indexOf(to);
+        if(source==UNVISITED || target==UNVISITED){
+            return Integer.MAX_VALUE;
+        }
+        int[] path= shortestPath(graph, source, target);
+        if(path==null){
+            return Integer.MAX_VALUE;
+        }
+        return path.length - 1;
+    }
+
+
+
+    /**
+     * @param graph the graph to search
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the vertices along the shortest path from 'from' to 'to',
+     * including both ends, or null if there is no path
+     * @throws IllegalArgumentException if either vertex is missing
+     */
+    static <V> ArrayList<V> getPath(IndexedGraph<V> graph, V from, V to)
+    {
+        int source= graph.indexOf(from);
+        int target= graph.indexOf(to);
+        if(source==UNVISITED || target==UNVISITED){
+            throw new IllegalArgumentException("Vertex does not exist, cannot produce Path");
+        }
+        int[] path= shortestPath(graph, source, target);
+        if(path==null){
+            return null;
+        }
+        ArrayList<V> answer= new ArrayList<V>(path.length);
+        for(int i=0; i<path.length; i++){
+            answer.add(graph.vertexAt(path[i]));
+        }
+        return answer;
+    }
+
+
+
+    /**
+     * @param graph the graph to search
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * the length of the shortest path from 'from' to it, or
+     * Integer.MAX_VALUE if either vertex is missing or there is no path
+     */
+    static <V> int[] pathLengths(IndexedGraph<V> graph, V from, Collection<V> targets)
+    {
+        int[] answer= new int[targets.size()];
+        Arrays.fill(answer, Integer.MAX_VALUE);
+        int source= graph.indexOf(from);
+        if(source==UNVISITED || answer.length==0){
+            return answer;
+        }
+
+        int count= graph.numVertices();
+        int[] spots= new int[answer.length];
+        Tree tree= new Tree(new int[count], new int[count]);
+        tree.wanted= new boolean[count];
+        int i=0;
+        for(V target : targets){
+            spots[i]= graph.indexOf(target);
+            if(spots[i]!=UNVISITED && !tree.wanted[spots[i]]){
+                tree.wanted[spots[i]]= true;
+                tree.remaining++;
+            }
+            i++;
+        }
+        search(graph, source, tree);
+
+        for(i=0; i<answer.length; i++){
+            if(spots[i]!=UNVISITED && tree.distance[spots[i]]!=UNVISITED){
+                answer[i]= tree.distance[spots[i]];
+            }
+        }
+        return answer;
+    }
+
+
+
+    /**
+     * Runs a plain breadth-first search from one vertex to every vertex
+     * it can reach, for callers such as PathCache that keep the whole
+     * search tree and answer many queries from it.
+     *
+     * @param graph the graph to search
+     * @param source the index of the starting vertex
+     * @param distance filled with the number of edges on a shortest path
+     * from source to each index, or UNVISITED
+     * @param parent filled with the index before each reached index on
+     * such a path; the source is its own parent
+     */
+    static void searchFrom(IndexedGraph<?> graph, int source, int[] distance, int[] parent)
+    {
+        search(graph, source, new Tree(distance, parent));
+    }
+
+
+    /**
+     * Counts the vertices a search from the source alone reaches before
+     * it reaches the target, for setting against the bidirectional
+     * search in SearchVisitsBenchmark.
+     *
+     * @param graph the graph to search
+     * @param source the index of the starting vertex
+     * @param target the index of the destination vertex
+     * @return how many vertices the search reached, the source and
+     * target included
+     */
+    static int visitedOneWay(IndexedGraph<?> graph, int source, int target)
+    {
+        int count= graph.numVertices();
+        Tree tree= new Tree(new int[count], new int[count]);
+        tree.wanted= new boolean[count];
+        tree.wanted[target]= true;
+        tree.remaining= 1;
+        search(graph, source, tree);
+        return tree.tail;
+    }
+
+
+    /**
+     * Runs the search of a tree from a source, stopping early if the
+     * tree has wanted vertices and all of them have been reached.
+     */
+    private static void search(IndexedGraph<?> graph, int source, Tree tree)
+    {
+        Arrays.fill(tree.distance, UNVISITED);
+        tree.distance[source]= 0;
+        tree.parent[source]= source;
+        tree.queue[tree.tail++]= source;
+        if(tree.wanted!=null && tree.wanted[source]){
+            tree.remaining--;
+        }
+        while(tree.head<tree.tail && (tree.wanted==null || tree.remaining>0)){
+            tree.current= tree.queue[tree.head++];
+            graph.forEachNeighbor(tree.current, tree);
+        }
+    }
+
+
+    /**
+     * The queue of a plain search, recording a parent for each vertex it
+     * reaches and counting down the wanted vertices, if there are any.
+     */
+    private static final class Tree implements IntConsumer {
+
+        final int[] distance;
+        final int[] parent;
+        final int[] queue;
+        int head;
+        int tail;
+        int current;
+        boolean[] wanted;
+        int remaining;
+
+
+        Tree(int[] distance, int[] parent){
+            this.distance= distance;
+            this.parent= parent;
+            queue= new int[distance.length];
+        }
+
+
+        public void accept(int next){
+            if(distance[next]==UNVISITED){
+                distance[next]= distance[current] + 1;
+                parent[next]= current;
+                queue[tail++]= next;
+                if(wanted!=null && wanted[next]){
+                    remaining--;
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * One side of a bidirectional search.  The forward side follows
+     * edges and its parent array points back toward the source; the
+     * backward side follows predecessors and its parent array points on
+     * toward the target.
+     */
+    private static final class Frontier implements IntConsumer {
+
+        final boolean forward;
+        final int[] distance;
+        final int[] parent;
+        final int[] queue;
+        int head;
+        int tail;
+        Frontier other;
+
+        // the shortest connection to the other side found so far, as an edge meetingForward -> meetingBackward
+        int meetingLength= Integer.MAX_VALUE;
+        int meetingForward;
+        int meetingBackward;
+
+        private int current;
+
+
+        Frontier(int count, int start, boolean forward){
+            this.forward= forward;
+            distance= new int[count];
+            parent= new int[count];
+            queue= new int[count];
+            Arrays.fill(distance, UNVISITED);
+            distance[start]= 0;
+            parent[start]= start;
+            queue[tail++]= start;
+        }
+
+
+        boolean isEmpty(){
+            return head==tail;
+        }
+
+
+        int size(){
+            return tail - head;
+        }
+
+
+        /**
+         * Visits every vertex in the current level, queueing the next level.
+         */
+        void expandLevel(IndexedGraph<?> graph){
+            int end= tail;
+            while(head<end){
+                current= queue[head++];
+                if(forward){
+                    graph.forEachNeighbor(current, this);
+                }
+                else{
+                    graph.forEachPredecessor(current, this);
+                }
+            }
+        }
+
+
+        public void accept(int next){
+            if(distance[next]==UNVISITED){
+                distance[next]= distance[current] + 1;
+                parent[next]= current;
+                queue[tail++]= next;
+            }
+            if(other.distance[next]!=UNVISITED){
+                int length= distance[current] + 1 + other.distance[next];
+                if(length<meetingLength){
+                    meetingLength= length;
+                    meetingForward= forward ? current : next;
+                    meetingBackward= forward ? next : current;
+                }
+            }
+        }
+    }
+
+
+}
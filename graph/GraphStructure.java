@@ -0,0 +1,223 @@
+package edu.union.adt.graph;
+import java.util.function.IntConsumer;
+
+/**
+ * The structural equality and hash shared by every graph in this
+ * package, so that any two of them compare equal iff they have the same
+ * vertices and the same edges, whatever their representations.
+ *
+ * The hash of a graph is the sum of vertexHash over its vertices plus
+ * the sum of edgeHash over its edges.  A sum does not depend on order,
+ * so mutable graphs keep it up to date with one addition or subtraction
+ * per change instead of recomputing it.
+ */
+final class GraphStructure {
+
+
+    private GraphStructure(){
+    }
+
+
+
+
+    // HASHING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Spreads the bits of a hash code, so that sums of nearby codes do
+     * not collide.
+     */
+    private static int mix(int hash)
+    {
+        hash^= hash >>> 16;
+        hash*= 0x85ebca6b;
+        hash^= hash >>> 13;
+        hash*= 0xc2b2ae35;
+        hash^= hash >>> 16;
+        return hash;
+    }
+
+
+    /**
+     * @param vertex a vertex
+     * @return what the vertex adds to the hash of a graph
+     */
+    static int vertexHash(Object vertex)
+    {
+        return mix(vertex.hashCode());
+    }
+
+
+    /**
+     * @param from the source vertex of an edge
+     * @param to the destination vertex of an edge
+     * @return what the edge adds to the hash of a graph; (a, b) and (b, a) differ
+     */
+    static int edgeHash(Object from, Object to)
+    {
+        return mix(31 * mix(from.hashCode()) + to.hashCode());
+    }
+
+
+    /**
+     * Computes the hash of a graph from scratch, in O(V + E).
+     *
+     * @param graph any graph
+     * @return its structural hash
+     */
+    static int hash(final Graph<?> graph)
+    {
+        EdgeSum sum= new EdgeSum(graph);
+        int count= graph.numVertices();
+        for(int i=0; i<count; i++){
+            sum.total+= vertexHash(graph.vertexAt(i));
+            sum.from= graph.vertexAt(i);
+            graph.forEachNeighbor(i, sum);
+        }
+        return sum.total;
+    }
+
+
+    /**
+     * Sums the hashes of every edge into or out of a vertex, counting a
+     * self loop once.  A graph subtracts this, and the vertex's own hash,
+     * when the vertex is removed.
+     *
+     * @param graph the graph
+     * @param index the index of the vertex
+     * @return the total hash of the vertex's edges
+     */
+    static int incidentHash(IndexedGraph<?> graph, final int index)
+    {
+        final EdgeSum sum= new EdgeSum(graph);
+        sum.from= graph.vertexAt(index);
+        graph.forEachNeighbor(index, sum);
+        final Object to= sum.from;
+        graph.forEachPredecessor(index, new IntConsumer() {
+            public void accept(int from){
+                if(from!=index){
+                    sum.total+= edgeHash(sum.graph.vertexAt(from), to);
+                }
+            }
+        });
+        return sum.total;
+    }
+
+
+    /**
+     * Adds up edgeHash(from, to) for each index it is given.
+     */
+    private static final class EdgeSum implements IntConsumer {
+
+        final Graph<?> graph;
+        Object from;
+        int total;
+
+
+        EdgeSum(Graph<?> graph){
+            this.graph= graph;
+        }
+
+
+        public void accept(int to){
+            total+= edgeHash(from, graph.vertexAt(to));
+        }
+    }
+
+
+
+
+    // EQUALITY
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Checks whether a graph has the same vertices and edges as another
+     * object.  The vertices are mapped between the two graphs once, and
+     * then each pair of rows is compared by marking one row in an array
+     * and checking the other against it, for O(V + E) in all.
+     *
+     * @param graph a graph
+     * @param object the object to compare it to
+     * @return whether object is a graph with the same vertices and edges
+     */
+    static boolean equal(Graph<?> graph, Object object)
+    {
+        if(graph==object){
+            return true;
+        }
+        if(!(object instanceof Graph)){
+            return false;
+        }
+        Graph<Object> other= (Graph<Object>) object;
+        if(other instanceof ConcurrentGraphLM){
+            // its indices may move between the calls below
+            other= other.snapshot();
+        }
+        int count= graph.numVertices();
+        if(count!=other.numVertices() || graph.numEdges()!=other.numEdges()){
+            return false;
+        }
+        // only graphs from this package are known to use the structural hash
+        if(other instanceof IndexedGraph && graph.hashCode()!=other.hashCode()){
+            return false;
+        }
+
+        int[] map= new int[count];
+        for(int i=0; i<count; i++){
+            map[i]= other.indexOf(graph.vertexAt(i));
+            if(map[i]==-1){
+                return false;
+            }
+        }
+
+        RowMatch match= new RowMatch(map, count);
+        for(int i=0; i<count; i++){
+            match.round= i + 1;
+            match.marking= true;
+            match.size= 0;
+            other.forEachNeighbor(map[i], match);
+            int otherSize= match.size;
+
+            match.marking= false;
+            match.size= 0;
+            graph.forEachNeighbor(i, match);
+            if(match.missing || match.size!=otherSize){
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Marks the row of one graph, then checks the matching row of the
+     * other graph against the marks.  Marks are round numbers, so the
+     * array never has to be cleared.
+     */
+    private static final class RowMatch implements IntConsumer {
+
+        private final int[] map;
+        private final int[] marks;
+        int round;
+        boolean marking;
+        boolean missing;
+        int size;
+
+
+        RowMatch(int[] map, int count){
+            this.map= map;
+            marks= new int[count];
+        }
+
+
+        public void accept(int index){
+            if(marking){
+                marks[index]= round;
+            }
+            else if(marks[map[index]]!=round){
+                missing= true;
+            }
+            size++;
+        }
+    }
+
+
+}
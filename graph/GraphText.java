@@ -0,0 +1,534 @@
+package edu.union.adt.graph;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads and writes graphs as UTF-8 text, streaming in both directions.
+ *
+ * Two formats are supported:
+ * <PRE>
+ * edge list         one edge per line, "from to" or "from&lt;TAB&gt;to";
+ *                   a line with a single vertex adds just that vertex
+ * adjacency list    the format of Graph.toString, "A: B, C"
+ * </PRE>
+ * In an edge list, a line that has a tab is split on tabs only, so
+ * vertices may contain spaces; otherwise it is split on runs of spaces.
+ * Columns after the second are ignored.  Blank lines and lines starting
+ * with '#' are skipped in both formats.
+ *
+ * Readers decode a channel through one reusable char buffer and look up
+ * each vertex by its characters, so a String is only made the first time
+ * a vertex is seen.  Everything read goes into a GraphBuilder, which
+ * writes the graph in one pass at the end.
+ */
+public final class GraphText {
+
+
+    private static final int BUFFER = 1 << 16;
+
+
+    private GraphText(){
+    }
+
+
+
+
+    // READING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Reads an edge list file into a new graph.
+     *
+     * @param file the file to read
+     * @param parser turns the text of a vertex into a vertex
+     * @return the graph described by the file
+     */
+    public static <V> Graph<V> readEdgeList(Path file, Function<String, V> parser) throws IOException
+    {
+        GraphBuilder<V> builder= new GraphBuilder<V>();
+        FileChannel channel= FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            readEdgeList(channel, parser, builder);
+        }
+        finally{
+            channel.close();
+        }
+        return builder.build();
+    }
+
+
+    /**
+     * Reads an edge list into a builder.  The channel is not closed.
+     *
+     * @param in the text to read
+     * @param parser turns the text of a vertex into a vertex
+     * @param builder where to put the vertices and edges
+     */
+    public static <V> void readEdgeList(ReadableByteChannel in, Function<String, V> parser,
+                                        GraphBuilder<V> builder) throws IOException
+    {
+        Lines lines= new Lines(in);
+        Vertices<V> vertices= new Vertices<V>(parser);
+        while(lines.next()){
+            char[] chars= lines.chars;
+            int end= lines.end;
+            int start= skip(chars, lines.start, end, ' ');
+            if(start==end || chars[start]=='#'){
+                continue;
+            }
+            char separator= ' ';
+            for(int i=start; i<end; i++){
+                if(chars[i]=='\t'){
+                    separator= '\t';
+                    break;
+                }
+            }
+
+            int fromEnd= find(chars, start, end, separator);
+            V from= vertices.get(chars, start, fromEnd);
+            int toStart= separator==' ' ? skip(chars, fromEnd, end, ' ') : Math.min(fromEnd + 1, end);
+            if(toStart==end){
+                builder.addVertex(from);
+                continue;
+            }
+            int toEnd= find(chars, toStart, end, separator);
+            builder.addEdge(from, vertices.get(chars, toStart, toEnd));
+        }
+    }
+
+
+    /**
+     * Reads an adjacency list file into a new graph.
+     *
+     * @param file the file to read
+     * @param parser turns the text of a vertex into a vertex
+     * @return the graph described by the file
+     */
+    public static <V> Graph<V> readAdjacencyList(Path file, Function<String, V> parser) throws IOException
+    {
+        GraphBuilder<V> builder= new GraphBuilder<V>();
+        FileChannel channel= FileChannel.open(file, StandardOpenOption.READ);
+        try{
+            readAdjacencyList(channel, parser, builder);
+        }
+        finally{
+            channel.close();
+        }
+        return builder.build();
+    }
+
+
+    /**
+     * Reads an adjacency list, in the format of Graph.toString, into a
+     * builder.  A vertex ends at the first ':' on its line and each
+     * adjacent vertex at the next ','.  The channel is not closed.
+     *
+     * @param in the text to read
+     * @param parser turns the text of a vertex into a vertex
+     * @param builder where to put the vertices and edges
+     * @throws IOException if a line has no ':'
+     */
+    public static <V> void readAdjacencyList(ReadableByteChannel in, Function<String, V> parser,
+                                             GraphBuilder<V> builder) throws IOException
+    {
+        Lines lines= new Lines(in);
+        Vertices<V> vertices= new Vertices<V>(parser);
+        while(lines.next()){
+            char[] chars= lines.chars;
+            int end= lines.end;
+            int start= skip(chars, lines.start, end, ' ');
+            if(start==end || chars[start]=='#'){
+                continue;
+            }
+            int colon= find(chars, start, end, ':');
+            if(colon==end){
+                throw new IOException("Adjacency list line has no ':'");
+            }
+            V from= vertices.get(chars, start, colon);
+            builder.addVertex(from);
+
+            int next= colon + 1;
+            while(next<end){
+                int toStart= skip(chars, next, end, ' ');
+                int toEnd= find(chars, toStart, end, ',');
+                next= toEnd + 1;
+                while(toEnd>toStart && chars[toEnd - 1]==' '){
+                    toEnd--;
+                }
+                if(toEnd>toStart){
+                    builder.addEdge(from, vertices.get(chars, toStart, toEnd));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return the first position from 'from' that does not hold c, or end
+     */
+    private static int skip(char[] chars, int from, int end, char c)
+    {
+        while(from<end && chars[from]==c){
+            from++;
+        }
+        return from;
+    }
+
+
+    /**
+     * @return the first position from 'from' that holds c, or end
+     */
+    private static int find(char[] chars, int from, int end, char c)
+    {
+        while(from<end && chars[from]!=c){
+            from++;
+        }
+        return from;
+    }
+
+
+    /**
+     * Splits a channel into lines, decoding it into a char buffer that
+     * is reused for every line and only grows for a line longer than it.
+     * After next() returns true, the line is chars[start] to chars[end-1],
+     * without its line ending.
+     */
+    private static final class Lines {
+
+        private final ReadableByteChannel in;
+        private final CharsetDecoder decoder= StandardCharsets.UTF_8.newDecoder();
+        private final ByteBuffer bytes= ByteBuffer.allocate(BUFFER);
+        char[] chars= new char[BUFFER];
+        int start;
+        int end;
+        private int position;
+        private int limit;
+        private boolean ended;
+        private boolean done;
+
+
+        Lines(ReadableByteChannel in){
+            this.in= in;
+        }
+
+
+        boolean next() throws IOException{
+            while(true){
+                int newline= find(chars, position, limit, '\n');
+                if(newline<limit || (done && position<limit)){
+                    start= position;
+                    end= newline;
+                    position= Math.min(newline + 1, limit);
+                    if(end>start && chars[end - 1]=='\r'){
+                        end--;
+                    }
+                    return true;
+                }
+                if(done){
+                    return false;
+                }
+                fill();
+            }
+        }
+
+
+        private void fill() throws IOException{
+            if(position>0){
+                System.arraycopy(chars, position, chars, 0, limit - position);
+                limit-= position;
+                position= 0;
+            }
+            if(limit==chars.length){
+                chars= Arrays.copyOf(chars, chars.length * 2);
+            }
+            if(!ended && in.read(bytes)<0){
+                ended= true;
+            }
+            bytes.flip();
+            CharBuffer out= CharBuffer.wrap(chars, limit, chars.length - limit);
+            CoderResult result= decoder.decode(bytes, out, ended);
+            if(result.isError()){
+                result.throwException();
+            }
+            if(ended && result.isUnderflow()){
+                decoder.flush(out);
+                done= true;
+            }
+            bytes.compact();
+            limit= out.position();
+        }
+    }
+
+
+    /**
+     * Maps the text of a vertex to the vertex, hashing the characters
+     * in place so that text seen before needs no new String.  Open
+     * addressing over parallel arrays.
+     */
+    private static final class Vertices<V> {
+
+        private final Function<String, V> parser;
+        private String[] keys= new String[64];
+        private Object[] values= new Object[64];
+        private int size;
+
+
+        Vertices(Function<String, V> parser){
+            this.parser= parser;
+        }
+
+
+        V get(char[] chars, int from, int to){
+            int hash=0;
+            for(int i=from; i<to; i++){
+                hash= 31 * hash + chars[i];
+            }
+            int mask= keys.length - 1;
+            int spot= (hash ^ (hash >>> 16)) & mask;
+            while(keys[spot]!=null){
+                if(matches(keys[spot], chars, from, to)){
+                    return (V) values[spot];
+                }
+                spot= (spot + 1) & mask;
+            }
+
+            String key= new String(chars, from, to - from);
+            V vertex= parser.apply(key);
+            keys[spot]= key;
+            values[spot]= vertex;
+            if(++size * 2>keys.length){
+                rehash();
+            }
+            return vertex;
+        }
+
+
+        private static boolean matches(String key, char[] chars, int from, int to){
+            if(key.length()!=to - from){
+                return false;
+            }
+            for(int i=from; i<to; i++){
+                if(key.charAt(i - from)!=chars[i]){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+
+        private void rehash(){
+            String[] oldKeys= keys;
+            Object[] oldValues= values;
+            keys= new String[oldKeys.length * 2];
+            values= new Object[oldKeys.length * 2];
+            int mask= keys.length - 1;
+            for(int i=0; i<oldKeys.length; i++){
+                if(oldKeys[i]!=null){
+                    int hash= oldKeys[i].hashCode();
+                    int spot= (hash ^ (hash >>> 16)) & mask;
+                    while(keys[spot]!=null){
+                        spot= (spot + 1) & mask;
+                    }
+                    keys[spot]= oldKeys[i];
+                    values[spot]= oldValues[i];
+                }
+            }
+        }
+    }
+
+
+
+
+    // WRITING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Writes a graph to a file as an edge list, replacing anything
+     * already there.
+     *
+     * @param graph the graph to write
+     * @param file where to write it
+     */
+    public static <V> void writeEdgeList(Graph<V> graph, Path file) throws IOException
+    {
+        Writer out= open(file);
+        try{
+            writeEdgeList(graph, out);
+        }
+        finally{
+            out.close();
+        }
+    }
+
+
+    /**
+     * Writes a graph as a tab-separated edge list: one line per edge,
+     * and a line holding just the vertex and a tab for each vertex with
+     * no adjacent vertices, so that it is not lost.
+     *
+     * @param graph the graph to write
+     * @param out where to write it
+     */
+    public static <V> void writeEdgeList(Graph<V> graph, Appendable out) throws IOException
+    {
+        Row row= new Row();
+        int count= graph.numVertices();
+        for(int i=0; i<count; i++){
+            String from= String.valueOf(graph.vertexAt(i));
+            row.fill(graph, i);
+            if(row.size==0){
+                // the tab keeps a vertex with spaces in it from being split
+                out.append(from).append('\t').append('\n');
+            }
+            for(int j=0; j<row.size; j++){
+                out.append(from).append('\t').append(String.valueOf(graph.vertexAt(row.items[j]))).append('\n');
+            }
+        }
+    }
+
+
+    /**
+     * Writes a graph to a file as an adjacency list, replacing anything
+     * already there.
+     *
+     * @param graph the graph to write
+     * @param file where to write it
+     */
+    public static <V> void writeAdjacencyList(Graph<V> graph, Path file) throws IOException
+    {
+        Writer out= open(file);
+        try{
+            writeAdjacencyList(graph, out);
+        }
+        finally{
+            out.close();
+        }
+    }
+
+
+    /**
+     * Writes a graph in the format of Graph.toString, one vertex at a
+     * time, so the whole text is never held in memory.
+     *
+     * @param graph the graph to write
+     * @param out where to write it
+     */
+    public static <V> void writeAdjacencyList(Graph<V> graph, Appendable out) throws IOException
+    {
+        writeAdjacencyList(graph, out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Writes at most the first maxVertices lines of a graph in the format
+     * of Graph.toString, and at most maxEdges edges over all of them.  A
+     * line whose edges are cut short ends in " ..." and, if vertices are
+     * left out, a last line holds "...".  Each line is written in one
+     * pass over the vertex's row.
+     *
+     * @param graph the graph to write
+     * @param out where to write it
+     * @param maxVertices the most vertex lines to write
+     * @param maxEdges the most edges to write
+     */
+    public static <V> void writeAdjacencyList(Graph<V> graph, Appendable out, int maxVertices, int maxEdges)
+        throws IOException
+    {
+        Row row= new Row();
+        int count= graph.numVertices();
+        int edgesLeft= maxEdges;
+        for(int i=0; i<count; i++){
+            if(i==maxVertices){
+                out.append("...\n");
+                return;
+            }
+            out.append(String.valueOf(graph.vertexAt(i))).append(':');
+            row.fill(graph, i);
+            int shown= Math.min(row.size, edgesLeft);
+            for(int j=0; j<shown; j++){
+                out.append(' ').append(String.valueOf(graph.vertexAt(row.items[j])));
+                if(j!=shown - 1){
+                    out.append(',');
+                }
+            }
+            if(shown<row.size){
+                out.append(" ...");
+            }
+            edgesLeft-= shown;
+            out.append('\n');
+        }
+    }
+
+
+    /**
+     * Renders a graph as writeAdjacencyList would, for toString and for
+     * logging a bounded piece of a large graph.
+     *
+     * @param graph the graph to render
+     * @param maxVertices the most vertex lines to render
+     * @param maxEdges the most edges to render
+     * @return the text
+     */
+    public static String render(Graph<?> graph, int maxVertices, int maxEdges)
+    {
+        StringBuilder answer= new StringBuilder();
+        try{
+            writeAdjacencyList(graph, answer, maxVertices, maxEdges);
+        }
+        catch(IOException e){
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return answer.toString();
+    }
+
+
+    /**
+     * @return a buffered UTF-8 writer over a new or emptied file
+     */
+    private static Writer open(Path file) throws IOException
+    {
+        FileChannel channel= FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                              StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER), BUFFER);
+    }
+
+
+    /**
+     * Holds the adjacent indices of one vertex, since forEachNeighbor's
+     * action cannot throw the IOException an Appendable can.
+     */
+    private static final class Row implements IntConsumer {
+
+        int[] items= new int[16];
+        int size;
+
+
+        void fill(Graph<?> graph, int index){
+            size= 0;
+            graph.forEachNeighbor(index, this);
+        }
+
+
+        public void accept(int index){
+            if(size==items.length){
+                items= Arrays.copyOf(items, size * 2);
+            }
+            items[size++]= index;
+        }
+    }
+
+
+}
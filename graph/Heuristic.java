@@ -0,0 +1,25 @@
+package edu.union.adt.graph;
+
+/**
+ * A guess at the cheapest path weight between two vertices, used by
+ * WeightedGraph.getWeightedPath to search toward the destination first
+ * (the A* search).
+ *
+ * The path found is a cheapest one as long as the estimate never
+ * exceeds the real cost, for example the straight-line distance when
+ * the weights are road lengths.  An estimate that always returns 0
+ * makes the search the same as Dijkstra's.
+ */
+public interface Heuristic<V> {
+
+
+        /**
+         * @param from a vertex
+         * @param to the destination of the search
+         * @return a lower bound on the weight of any path from 'from' to
+         * 'to'; never negative
+         */
+        double estimate(V from, V to);
+
+
+}
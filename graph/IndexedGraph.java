@@ -0,0 +1,65 @@
+package edu.union.adt.graph;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A graph that also keeps a reverse index of its edges, so that the
+ * search code in GraphSearch and BreadthFirstSearch can walk edges
+ * backward by int index.
+ */
+interface IndexedGraph<V> extends Graph<V> {
+
+
+        /**
+         * Passes the index of every vertex that has an edge to the vertex
+         * at the given index to the action.  Implementations keep a
+         * reverse index so this costs O(in-degree), not a scan of every
+         * vertex.
+         *
+         * @param index the index of the destination vertex
+         * @param action what to do with each predecessor index
+         */
+        void forEachPredecessor(int index, IntConsumer action);
+
+
+
+        /**
+         * Tells whether any predecessor of a vertex is in a set of
+         * vertices, stopping at the first one found.  This is the inner
+         * loop of a bottom-up breadth-first search.
+         *
+         * @param index the index of the destination vertex
+         * @param set a bitset of vertex indices
+         * @return true iff some vertex in the set has an edge to the vertex
+         */
+        boolean hasPredecessorIn(int index, long[] set);
+
+
+
+        /**
+         * Adds the vertices and edges gathered by a GraphBuilder, as if
+         * by addVertex on each vertex in order and then addEdge on each
+         * edge, but looking each vertex up once and writing the row of
+         * each source once.  This is the bulk path behind addEdges.
+         *
+         * @param vertices the vertices the edges refer to, by position
+         * @param edges the edges packed as by GraphBuilder.pack over
+         * positions in 'vertices', sorted, with no duplicates
+         * @param count how many edges to read from the front of 'edges'
+         */
+        void addPacked(List<V> vertices, long[] edges, int count);
+
+
+
+        /**
+         * Counts changes to the graph: the count goes up whenever a
+         * vertex or edge is added or removed, and stays the same
+         * otherwise, so PathCache can tell when what it has stored no
+         * longer matches the graph.
+         *
+         * @return a count of the changes made to the vertices and edges so far
+         */
+        int modCount();
+
+
+}
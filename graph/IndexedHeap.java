@@ -0,0 +1,157 @@
+package edu.union.adt.graph;
+import java.util.Arrays;
+
+/**
+ * A min-heap of vertex indices keyed by doubles, for Dijkstra's
+ * algorithm and A*.  Each index is in the heap at most once, and its
+ * position is tracked so that lowering its key is O(log n) instead of
+ * adding a second copy.
+ *
+ * The heap is 4-ary: each node has four children, laid out next to
+ * each other in the array.  That halves the depth of a binary heap, so
+ * the many key decreases of a search move items fewer levels, and a
+ * sift down compares four neighboring keys that sit in one cache line.
+ */
+final class IndexedHeap {
+
+
+    private static final int ARITY = 4;
+
+    // heap[0] to heap[size-1] hold the indices in heap order
+    private final int[] heap;
+    // position[i] is where index i is in heap, or -1
+    private final int[] position;
+    // key[i] is the key of index i while it is in the heap
+    private final double[] key;
+    private int size;
+
+
+    /**
+     * @param capacity one more than the largest index that will be added
+     */
+    IndexedHeap(int capacity)
+    {
+        heap= new int[capacity];
+        position= new int[capacity];
+        key= new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+
+
+
+    // QUERIES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return whether the heap is empty
+     */
+    boolean isEmpty()
+    {
+        return size==0;
+    }
+
+
+
+
+    // CHANGES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds an index with a key, or changes its key if it is already in
+     * the heap.
+     *
+     * @param index a vertex index
+     * @param newKey its key
+     */
+    void update(int index, double newKey)
+    {
+        int spot= position[index];
+        if(spot==-1){
+            spot= size++;
+            heap[spot]= index;
+            position[index]= spot;
+            key[index]= newKey;
+            siftUp(spot);
+        }
+        else if(newKey<key[index]){
+            key[index]= newKey;
+            siftUp(spot);
+        }
+        else{
+            key[index]= newKey;
+            siftDown(spot);
+        }
+    }
+
+
+    /**
+     * Removes the index with the smallest key.  The heap must not be empty.
+     *
+     * @return the index that was removed
+     */
+    int poll()
+    {
+        int smallest= heap[0];
+        position[smallest]= -1;
+        size--;
+        if(size>0){
+            heap[0]= heap[size];
+            position[heap[0]]= 0;
+            siftDown(0);
+        }
+        return smallest;
+    }
+
+
+    /**
+     * Moves the item at a spot up until its parent's key is no larger.
+     */
+    private void siftUp(int spot)
+    {
+        int item= heap[spot];
+        double itemKey= key[item];
+        while(spot>0){
+            int parent= (spot - 1) / ARITY;
+            if(key[heap[parent]]<=itemKey){
+                break;
+            }
+            heap[spot]= heap[parent];
+            position[heap[spot]]= spot;
+            spot= parent;
+        }
+        heap[spot]= item;
+        position[item]= spot;
+    }
+
+
+    /**
+     * Moves the item at a spot down until no child has a smaller key.
+     */
+    private void siftDown(int spot)
+    {
+        int item= heap[spot];
+        double itemKey= key[item];
+        while(true){
+            int first= spot * ARITY + 1;
+            if(first>=size){
+                break;
+            }
+            int end= Math.min(first + ARITY, size);
+            int smallest= first;
+            for(int child=first + 1; child<end; child++){
+                if(key[heap[child]]<key[heap[smallest]]){
+                    smallest= child;
+                }
+            }
+            if(key[heap[smallest]]>=itemKey){
+                break;
+            }
+            heap[spot]= heap[smallest];
+            position[heap[spot]]= spot;
+            spot= smallest;
+        }
+        heap[spot]= item;
+        position[item]= spot;
+    }
+
+
+}
@@ -0,0 +1,1251 @@
+package edu.union.adt.graph;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * A graph stored as adjacency lists.  Each vertex has a growable int
+ * array holding the indices of its adjacent vertices, so memory is
+ * O(V + E) and no Integer objects are created per edge.  This suits
+ * sparse graphs that keep growing, where the O(V^2) matrix in
+ * ArrayGraphLM would be mostly empty.
+ *
+ * The edges are directed.  Vertices are kept at dense indices 0 to
+ * numVertices()-1; removing a vertex moves the last vertex into its
+ * spot.
+ */
+public class ListGraphLM<V> implements IndexedGraph<V> {
+
+
+    private static final int INITIAL =10;
+
+    private Object[] labels;
+    private HashMap<V, Integer> indices;
+    // adjacency[i][0] to adjacency[i][degrees[i]-1] are the indices adjacent to vertex i
+    private int[][] adjacency;
+    private int[] degrees;
+    // the same edges seen from the other end: predecessors[i] holds the indices with an edge to vertex i
+    private int[][] predecessors;
+    private int[] inDegrees;
+    private int vertexCount;
+    private int edgeCount;
+    // the sum kept by GraphStructure: vertex hashes plus edge hashes
+    private int structureHash;
+    // bumped by every change to the vertices or edges, so PathCache can tell its results are stale
+    private int modCount;
+    // answers pathLength and getPath once cachePaths is called; null until then
+    private PathCache<V> paths;
+
+    // copy-on-write state for snapshot(): a row belongs to this graph alone iff its epoch
+    // equals 'epoch'; any other row may also be seen by a snapshot and is copied before a write
+    private int epoch;
+    private int[] adjacencyEpochs;
+    private int[] predecessorEpochs;
+    // whether a snapshot also holds the arrays of rows and counts, or the labels and indices
+    private boolean sharedRows;
+    private boolean sharedVertices;
+    // true for a snapshot, which never changes
+    private boolean readOnly;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Create an empty graph.
+     */
+    public ListGraphLM()
+    {
+        this(INITIAL);
+    }
+
+
+    /**
+     * Create an empty graph with room for a given number of vertices.
+     *
+     * @param newCount the number of vertices to make room for
+     */
+    public ListGraphLM(int newCount)
+    {
+        labels= new Object[newCount];
+        indices= new HashMap<V, Integer>();
+        adjacency= new int[newCount][];
+        degrees= new int[newCount];
+        predecessors= new int[newCount][];
+        inDegrees= new int[newCount];
+        adjacencyEpochs= new int[newCount];
+        predecessorEpochs= new int[newCount];
+    }
+
+
+    /**
+     * Create a graph from a builder's vertices and its sorted, distinct
+     * packed edges.  Every row is allocated at its final length and
+     * written in one pass.
+     *
+     * @param vertices the vertices, in index order
+     * @param packedEdges the edges, packed by GraphBuilder.pack
+     * @param count how many entries of packedEdges are used
+     */
+    ListGraphLM(List<V> vertices, long[] packedEdges, int count)
+    {
+        this(Math.max(vertices.size(), 1));
+        for(V vertex : vertices){
+            labels[vertexCount]= vertex;
+            indices.put(vertex, vertexCount);
+            vertexCount++;
+        }
+        for(int i=0; i<count; i++){
+            degrees[GraphBuilder.source(packedEdges[i])]++;
+            inDegrees[GraphBuilder.target(packedEdges[i])]++;
+        }
+        for(int i=0; i<vertexCount; i++){
+            adjacency[i]= new int[degrees[i]];
+            predecessors[i]= new int[inDegrees[i]];
+        }
+        int[] filled= new int[vertexCount];
+        int[] inFilled= new int[vertexCount];
+        for(int i=0; i<count; i++){
+            int from= GraphBuilder.source(packedEdges[i]);
+            int to= GraphBuilder.target(packedEdges[i]);
+            adjacency[from][filled[from]++]= to;
+            predecessors[to][inFilled[to]++]= from;
+        }
+        edgeCount= count;
+        structureHash= GraphStructure.hash(this);
+    }
+
+
+    /**
+     * Create a snapshot that shares every array with a graph.  The
+     * graph copies what it changes afterwards, so the snapshot keeps
+     * seeing the graph as it was.
+     *
+     * @param source the graph to take a snapshot of
+     */
+    ListGraphLM(ListGraphLM<V> source)
+    {
+        labels= source.labels;
+        indices= source.indices;
+        adjacency= source.adjacency;
+        degrees= source.degrees;
+        predecessors= source.predecessors;
+        inDegrees= source.inDegrees;
+        vertexCount= source.vertexCount;
+        edgeCount= source.edgeCount;
+        structureHash= source.structureHash;
+        readOnly= true;
+    }
+
+
+
+
+    // GETTERS AND SETTERS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return the number of vertices in the graph.
+     */
+    public int numVertices()
+    {
+        return vertexCount;
+    }
+
+
+    /**
+     * @return the number of edges in the graph.
+     */
+    public int numEdges()
+    {
+        return edgeCount;
+    }
+
+
+    /**
+     * @param vertex a vertex
+     * @return the index of the vertex, or -1 if it is not in the graph
+     */
+    public int indexOf(V vertex)
+    {
+        Integer index= vertex==null ? null : indices.get(vertex);
+        if(index==null){
+            return -1;
+        }
+        return index;
+    }
+
+
+    /**
+     * @param index an index between 0 and numVertices()-1
+     * @return the vertex stored at that index
+     */
+    public V vertexAt(int index)
+    {
+        return (V) labels[index];
+    }
+
+
+    /**
+     * Gets the number of vertices connected by edges from a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose degree we want.
+     * @return the degree of vertex 'vertex'
+     */
+    public int degree(V vertex)
+    {
+        int spot= indexOf(vertex);
+        if(spot==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return degrees[spot];
+    }
+
+
+    /**
+     * @return an iterable collection for the set of vertices of
+     * the graph.
+     */
+    public Iterable<V> getVertices()
+    {
+        ArrayList<V> verticies= new ArrayList<V>(vertexCount);
+        for(int i=0; i<vertexCount; i++){
+            verticies.add((V) labels[i]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Gets the vertices adjacent to a given vertex.  A vertex y is
+     * "adjacent to" vertex x if there is an edge (x, y) in the graph.
+     *
+     * @param from the source vertex
+     * @return an iterable collection for the set of vertices that are
+     * the destinations of edges for which 'from' is the source
+     * vertex.  If 'from' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> adjacentTo(V from)
+    {
+        ArrayList<V> verticies= new ArrayList<V>();
+        int spot= indexOf(from);
+        if(spot==-1){
+            return verticies;
+        }
+        int[] row= adjacency[spot];
+        for(int i=0; i<degrees[spot]; i++){
+            verticies.add((V) labels[row[i]]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Gets the number of vertices that have an edge to a given
+     * vertex.  If the given vertex is not in the graph, throws a
+     * RuntimeException.
+     *
+     * @param vertex the vertex whose in-degree we want.
+     * @return the number of edges whose destination is 'vertex'
+     */
+    public int inDegree(V vertex)
+    {
+        int spot= indexOf(vertex);
+        if(spot==-1){
+            throw new RuntimeException("Vertex does not exist");
+        }
+        return inDegrees[spot];
+    }
+
+
+    /**
+     * Gets the vertices that have an edge to a given vertex.
+     *
+     * @param to the destination vertex
+     * @return an iterable collection for the set of vertices that are
+     * the sources of edges for which 'to' is the destination
+     * vertex.  If 'to' is not a vertex in the graph, returns an
+     * empty iterator.
+     */
+    public Iterable<V> predecessorsOf(V to)
+    {
+        ArrayList<V> verticies= new ArrayList<V>();
+        int spot= indexOf(to);
+        if(spot==-1){
+            return verticies;
+        }
+        int[] row= predecessors[spot];
+        for(int i=0; i<inDegrees[spot]; i++){
+            verticies.add((V) labels[row[i]]);
+        }
+        return verticies;
+    }
+
+
+    /**
+     * Passes every vertex adjacent to a given vertex to an action
+     * without building a collection.  If 'from' is not a vertex in the
+     * graph, does nothing.
+     *
+     * @param from the source vertex
+     * @param action what to do with each adjacent vertex
+     */
+    public void forEachNeighbor(V from, Consumer<V> action)
+    {
+        int spot= indexOf(from);
+        if(spot==-1){
+            return;
+        }
+        int[] row= adjacency[spot];
+        for(int i=0; i<degrees[spot]; i++){
+            action.accept((V) labels[row[i]]);
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex adjacent to the vertex at the
+     * given index to the action.
+     *
+     * @param index the index of the source vertex
+     * @param action what to do with each adjacent index
+     */
+    public void forEachNeighbor(int index, IntConsumer action)
+    {
+        int[] row= adjacency[index];
+        int count= degrees[index];
+        for(int i=0; i<count; i++){
+            action.accept(row[i]);
+        }
+    }
+
+
+    /**
+     * Passes the index of every vertex that has an edge to the vertex
+     * at the given index to the action.
+     *
+     * @param index the index of the destination vertex
+     * @param action what to do with each predecessor index
+     */
+    public void forEachPredecessor(int index, IntConsumer action)
+    {
+        int[] row= predecessors[index];
+        int count= inDegrees[index];
+        for(int i=0; i<count; i++){
+            action.accept(row[i]);
+        }
+    }
+
+
+    /**
+     * Tells whether any predecessor of a vertex is in a set of vertices.
+     *
+     * @param index the index of the destination vertex
+     * @param set a bitset of vertex indices
+     * @return true iff some vertex in the set has an edge to the vertex
+     */
+    public boolean hasPredecessorIn(int index, long[] set)
+    {
+        int[] row= predecessors[index];
+        int count= inDegrees[index];
+        for(int i=0; i<count; i++){
+            if((set[row[i] >>> 6] & (1L << row[i]))!=0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return a count of the changes made to the vertices and edges so far
+     */
+    public int modCount()
+    {
+        return modCount;
+    }
+
+
+    /**
+     * Answers pathLength, hasPath and getPath from a PathCache held by
+     * this graph from now on, or stops doing so.
+     *
+     * @param capacity the most sources to keep searches for, or 0 for no cache
+     */
+    void cachePaths(int capacity)
+    {
+        paths= capacity==0 ? null : new PathCache<V>(this, capacity);
+    }
+
+
+    /**
+     * @param row the adjacency row to search
+     * @param count the number of used entries in the row
+     * @param target the index to look for
+     * @return the position of target in the row, or -1
+     */
+    private static int find(int[] row, int count, int target)
+    {
+        for(int i=0; i<count; i++){
+            if(row[i]==target){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Adds an index to the end of a row, growing the row if it is full.
+     *
+     * @param rows the rows (adjacency or predecessors)
+     * @param counts the number of used entries in each row
+     * @param spot which row to add to
+     * @param value the index to add
+     */
+    private static void append(int[][] rows, int[] counts, int spot, int value)
+    {
+        int[] row= rows[spot];
+        int count= counts[spot];
+        if(row==null){
+            row= new int[4];
+            rows[spot]= row;
+        }
+        else if(count==row.length){
+            row= Arrays.copyOf(row, Math.max(4, count * 2));
+            rows[spot]= row;
+        }
+        row[count]= value;
+        counts[spot]= count + 1;
+    }
+
+
+    /**
+     * Removes an index from a row by moving the row's last entry into its place.
+     *
+     * @param rows the rows (adjacency or predecessors)
+     * @param counts the number of used entries in each row
+     * @param spot which row to remove from
+     * @param value the index to remove
+     * @return where the index was in the row, or -1 if it was not there
+     */
+    private static int delete(int[][] rows, int[] counts, int spot, int value)
+    {
+        int[] row= rows[spot];
+        int count= counts[spot];
+        int position= find(row, count, value);
+        if(position==-1){
+            return -1;
+        }
+        row[position]= row[count - 1];
+        counts[spot]= count - 1;
+        return position;
+    }
+
+
+    /**
+     * Removes an index from an adjacency row, telling subclasses which
+     * entry moved into its place.
+     *
+     * @param spot which row to remove from
+     * @param value the index to remove
+     * @return whether the index was in the row
+     */
+    private boolean deleteAdjacent(int spot, int value)
+    {
+        int position= delete(adjacency, degrees, spot, value);
+        if(position!=-1){
+            adjacentEntryMoved(spot, degrees[spot], position);
+        }
+        return position!=-1;
+    }
+
+
+    /**
+     * Changes one index in a row into another.
+     *
+     * @param rows the rows (adjacency or predecessors)
+     * @param counts the number of used entries in each row
+     * @param spot which row to change
+     * @param oldValue the index to replace
+     * @param newValue the index to put in its place
+     */
+    private static void rename(int[][] rows, int[] counts, int spot, int oldValue, int newValue)
+    {
+        int position= find(rows[spot], counts[spot], oldValue);
+        if(position!=-1){
+            rows[spot][position]= newValue;
+        }
+    }
+
+
+
+
+    //ROW HOOKS
+    //--------------------------------------------------------------------------------------------
+    // A subclass that keeps something for every edge, as WeightedGraphLM keeps a weight, holds it in
+    // rows parallel to the adjacency rows.  These are called as the adjacency rows change, so it can
+    // make the same change to its own rows.  They do nothing here.
+
+    /**
+     * Called when the arrays of rows are copied to a new length.
+     *
+     * @param newSize the new number of vertex slots
+     */
+    protected void adjacentRowsResized(int newSize)
+    {
+    }
+
+
+    /**
+     * Called when the arrays of rows are copied, because a snapshot
+     * holds them, before any row changes.
+     */
+    protected void adjacentRowsUnshared()
+    {
+    }
+
+
+    /**
+     * Called when an adjacency row is copied, because a snapshot may
+     * share it, before the row changes.
+     *
+     * @param spot which row is about to change
+     */
+    protected void adjacentRowCopied(int spot)
+    {
+    }
+
+
+    /**
+     * Called after an edge is added to the end of an adjacency row.
+     *
+     * @param spot which row
+     * @param position the position of the new edge in the row
+     * @param length the length the row has grown to
+     */
+    protected void adjacentEntryAdded(int spot, int position, int length)
+    {
+    }
+
+
+    /**
+     * Called after an edge is removed from an adjacency row, when the
+     * row's last entry has moved into its place.
+     *
+     * @param spot which row
+     * @param from the old position of the moved entry
+     * @param to the position of the removed edge
+     */
+    protected void adjacentEntryMoved(int spot, int from, int to)
+    {
+    }
+
+
+    /**
+     * Called when removing a vertex moves the last vertex's adjacency
+     * row into the removed vertex's spot.
+     *
+     * @param from the spot of the last vertex, which is left empty
+     * @param to the spot of the removed vertex
+     */
+    protected void adjacentRowMoved(int from, int to)
+    {
+    }
+
+
+    /**
+     * @param index the index of a vertex
+     * @return the vertex's adjacency row itself, not a copy; only the
+     * first adjacentCount(index) entries are used
+     */
+    protected final int[] adjacentRow(int index)
+    {
+        return adjacency[index];
+    }
+
+
+    /**
+     * @param index the index of a vertex
+     * @return the number of edges out of the vertex
+     */
+    protected final int adjacentCount(int index)
+    {
+        return degrees[index];
+    }
+
+
+    /**
+     * @param fromSpot the index of the source vertex
+     * @param toSpot the index of the destination vertex
+     * @return the position of the edge in the source's adjacency row,
+     * or -1 if there is no such edge
+     */
+    protected final int positionOf(int fromSpot, int toSpot)
+    {
+        return find(adjacency[fromSpot], degrees[fromSpot], toSpot);
+    }
+
+
+    /**
+     * Gets an adjacency row ready for a change that adds or removes no
+     * edge, such as a new weight: copies whatever a snapshot may share
+     * and counts the change.
+     *
+     * @param spot which row is about to change
+     */
+    protected final void changingAdjacentRow(int spot)
+    {
+        checkWritable();
+        unshareRows();
+        ownAdjacency(spot);
+        modCount++;
+    }
+
+
+
+
+    //SNAPSHOTS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gives an immutable view of the graph as it is now, in O(1).  The
+     * view shares all storage with the graph; afterwards the graph
+     * copies each row the first time it changes it, so the view never
+     * sees a later change, even a half-done one.  The view can be read
+     * from other threads while this graph is changed, as long as the
+     * snapshot is handed to them safely.
+     *
+     * @return an immutable graph with the current vertices and edges
+     */
+    public Graph<V> snapshot()
+    {
+        if(readOnly){
+            return this;
+        }
+        ListGraphLM<V> view= view();
+        epoch++;
+        sharedRows= true;
+        sharedVertices= true;
+        return view;
+    }
+
+
+    /**
+     * @return a read-only graph that shares every array with this one
+     */
+    ListGraphLM<V> view()
+    {
+        return new ListGraphLM<V>(this);
+    }
+
+
+    /**
+     * Copies a row before it is changed if a snapshot may share it.
+     *
+     * @param rows adjacency or predecessors
+     * @param epochs the epochs of those rows
+     * @param spot which row is about to change
+     */
+    private void own(int[][] rows, int[] epochs, int spot)
+    {
+        if(epochs[spot]!=epoch){
+            if(rows[spot]!=null){
+                rows[spot]= rows[spot].clone();
+            }
+            epochs[spot]= epoch;
+        }
+    }
+
+
+    /**
+     * Copies an adjacency row before it is changed if a snapshot may
+     * share it, and tells subclasses so they can copy their own row.
+     *
+     * @param spot which row is about to change
+     */
+    private void ownAdjacency(int spot)
+    {
+        if(adjacencyEpochs[spot]!=epoch){
+            adjacentRowCopied(spot);
+        }
+        own(adjacency, adjacencyEpochs, spot);
+    }
+
+
+    /**
+     * Copies the arrays of rows and counts, but not the rows, if a
+     * snapshot holds them.
+     */
+    private void unshareRows()
+    {
+        if(sharedRows){
+            adjacentRowsUnshared();
+            adjacency= adjacency.clone();
+            degrees= degrees.clone();
+            predecessors= predecessors.clone();
+            inDegrees= inDegrees.clone();
+            sharedRows= false;
+        }
+    }
+
+
+    /**
+     * Copies the labels and indices if a snapshot holds them.
+     */
+    private void unshareVertices()
+    {
+        if(sharedVertices){
+            labels= labels.clone();
+            indices= new HashMap<V, Integer>(indices);
+            sharedVertices= false;
+        }
+    }
+
+
+    /**
+     * Makes sure this graph can be changed.
+     */
+    private void checkWritable()
+    {
+        if(readOnly){
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " snapshot is immutable");
+        }
+    }
+
+
+
+
+    //ADDITIONS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds a directed edge between two vertices.
+     * If there is already an edge
+     * between the given vertices, does nothing.
+     *
+     * If either (or both)
+     * of the given vertices does not exist, it is added to the
+     * graph before the edge is created between them.
+     *
+     * @param from the source vertex for the added edge
+     * @param to the destination vertex for the added edge
+     */
+    public void addEdge(V from, V to)
+    {
+        checkWritable();
+        if(from==null || to==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        addVertex(from);
+        addVertex(to);
+
+        int fromSpot= indexOf(from);
+        int toSpot= indexOf(to);
+        if(find(adjacency[fromSpot], degrees[fromSpot], toSpot)!=-1){
+            return;
+        }
+
+        unshareRows();
+        ownAdjacency(fromSpot);
+        own(predecessors, predecessorEpochs, toSpot);
+        append(adjacency, degrees, fromSpot, toSpot);
+        append(predecessors, inDegrees, toSpot, fromSpot);
+        adjacentEntryAdded(fromSpot, degrees[fromSpot] - 1, adjacency[fromSpot].length);
+        edgeCount++;
+        structureHash+= GraphStructure.edgeHash(from, to);
+        modCount++;
+    }
+
+
+    /**
+     * Adds a vertex to the graph.  If the vertex already exists in
+     * the graph, does nothing.  If the vertex does not exist, it is
+     * added to the graph, with no edges connected to it.
+     *
+     * @param vertex the vertex to add
+     * @throws IllegalArgumentException if the vertex is null
+     */
+    public void addVertex(V vertex)
+    {
+        checkWritable();
+        if(vertex==null){
+            throw new IllegalArgumentException("Vertices cannot be null");
+        }
+        if(contains(vertex)){
+            return;
+        }
+        if(vertexCount==labels.length){
+            expandGraph();
+        }
+        unshareVertices();
+        labels[vertexCount]= vertex;
+        indices.put(vertex, vertexCount);
+        vertexCount++;
+        structureHash+= GraphStructure.vertexHash(vertex);
+        modCount++;
+    }
+
+
+    /**
+     * Doubles the room for vertices.
+     */
+    private void expandGraph()
+    {
+        growTo(labels.length * 2 + 1);
+    }
+
+
+    /**
+     * Makes room for at least a given number of vertices, so that adding
+     * that many vertices never has to grow the graph again.
+     *
+     * @param capacity the number of vertices to make room for
+     */
+    public void ensureCapacity(int capacity)
+    {
+        checkWritable();
+        if(capacity>labels.length){
+            growTo(capacity);
+        }
+    }
+
+
+    /**
+     * Grows the room for vertices.  The adjacency rows themselves are
+     * kept, only the arrays pointing at them are copied.
+     *
+     * @param newSize the new number of vertex slots
+     */
+    private void growTo(int newSize)
+    {
+        unshareVertices();
+        labels= Arrays.copyOf(labels, newSize);
+        // the new arrays are ours; a row still counts as shared until it is copied
+        adjacency= Arrays.copyOf(adjacency, newSize);
+        adjacentRowsResized(newSize);
+        degrees= Arrays.copyOf(degrees, newSize);
+        predecessors= Arrays.copyOf(predecessors, newSize);
+        inDegrees= Arrays.copyOf(inDegrees, newSize);
+        sharedRows= false;
+        adjacencyEpochs= Arrays.copyOf(adjacencyEpochs, newSize);
+        predecessorEpochs= Arrays.copyOf(predecessorEpochs, newSize);
+    }
+
+
+
+
+    /**
+     * Adds many directed edges at once, as if by calling addEdge on
+     * each (from, to) pair, but gathering and sorting them first so
+     * that the room for new vertices is made once and the row of each
+     * source is written once.
+     *
+     * @param pairs the edges to add, each as a (from, to) pair
+     * @throws IllegalArgumentException if any pair has a null vertex, in
+     * which case the graph is left as it was
+     */
+    public void addEdges(Iterable<? extends Map.Entry<V, V>> pairs)
+    {
+        GraphBuilder.addEdges(this, pairs);
+    }
+
+
+    /**
+     * Adds every vertex and edge of another graph to this one.
+     *
+     * @param other the graph to copy from
+     */
+    public void addAll(Graph<V> other)
+    {
+        GraphBuilder.addAll(this, other);
+    }
+
+
+    /**
+     * Adds the vertices and edges gathered by GraphBuilder.addEdges.
+     * Each source's row is checked against a scratch bitset of the
+     * targets it already has, instead of a scan per edge, and then grown
+     * once to its new length.
+     *
+     * @param vertices the vertices the edges refer to, by position
+     * @param packed the sorted, distinct edges over those positions
+     * @param count how many edges to add
+     */
+    public void addPacked(List<V> vertices, long[] packed, int count)
+    {
+        checkWritable();
+        int fresh=0;
+        for(V vertex : vertices){
+            if(!contains(vertex)){
+                fresh++;
+            }
+        }
+        ensureCapacity(vertexCount + fresh);
+        int[] map= new int[vertices.size()];
+        for(int i=0; i<map.length; i++){
+            addVertex(vertices.get(i));
+            map[i]= indexOf(vertices.get(i));
+        }
+
+        long[] present= new long[(vertexCount + 63) >>> 6];
+        int added=0;
+        int start=0;
+        while(start<count){
+            int from= GraphBuilder.source(packed[start]);
+            int fromSpot= map[from];
+            int end= start;
+            while(end<count && GraphBuilder.source(packed[end])==from){
+                end++;
+            }
+            int degree= degrees[fromSpot];
+            int[] row= adjacency[fromSpot];
+            for(int k=0; k<degree; k++){
+                present[row[k] >>> 6]|= 1L << row[k];
+            }
+            int missing=0;
+            for(int i=start; i<end; i++){
+                int toSpot= map[GraphBuilder.target(packed[i])];
+                if((present[toSpot >>> 6] & (1L << toSpot))==0){
+                    missing++;
+                }
+            }
+
+            if(missing>0){
+                unshareRows();
+                ownAdjacency(fromSpot);
+                row= adjacency[fromSpot];
+                if(row==null || row.length<degree + missing){
+                    row= row==null ? new int[degree + missing] : Arrays.copyOf(row, degree + missing);
+                    adjacency[fromSpot]= row;
+                }
+                for(int i=start; i<end; i++){
+                    int to= GraphBuilder.target(packed[i]);
+                    int toSpot= map[to];
+                    if((present[toSpot >>> 6] & (1L << toSpot))==0){
+                        int position= degrees[fromSpot]++;
+                        row[position]= toSpot;
+                        own(predecessors, predecessorEpochs, toSpot);
+                        append(predecessors, inDegrees, toSpot, fromSpot);
+                        adjacentEntryAdded(fromSpot, position, row.length);
+                        structureHash+= GraphStructure.edgeHash(vertices.get(from), vertices.get(to));
+                    }
+                }
+                added+= missing;
+            }
+            // the row is now its old entries and the new ones; clear them all for the next source
+            for(int k=0; k<degrees[fromSpot]; k++){
+                present[row[k] >>> 6]&= ~(1L << row[k]);
+            }
+            start= end;
+        }
+        if(added>0){
+            edgeCount+= added;
+            modCount++;
+        }
+    }
+
+
+
+
+    //REMOVALS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Removes and vertex from the graph.  Also removes any edges
+     * connecting from the edge or to the edge.  The last vertex is
+     * moved into the removed vertex's spot.
+     *
+     * @param toRemove the vertex to remove.
+     */
+    public void removeVertex(V toRemove)
+    {
+        checkWritable();
+        int removedSpot= indexOf(toRemove);
+        if(removedSpot==-1){
+            return;
+        }
+        unshareVertices();
+        unshareRows();
+        int lastSpot= vertexCount - 1;
+        structureHash-= GraphStructure.vertexHash(toRemove) + GraphStructure.incidentHash(this, removedSpot);
+        modCount++;
+
+        // drop the removed vertex's edges from the other end's rows
+        int[] row= adjacency[removedSpot];
+        for(int i=0; i<degrees[removedSpot]; i++){
+            if(row[i]!=removedSpot){
+                own(predecessors, predecessorEpochs, row[i]);
+                delete(predecessors, inDegrees, row[i], removedSpot);
+            }
+        }
+        edgeCount-= degrees[removedSpot];
+        row= predecessors[removedSpot];
+        for(int i=0; i<inDegrees[removedSpot]; i++){
+            if(row[i]!=removedSpot){
+                ownAdjacency(row[i]);
+                deleteAdjacent(row[i], removedSpot);
+                edgeCount--;
+            }
+        }
+
+        // rename the last vertex in the rows of its neighbors
+        if(removedSpot!=lastSpot){
+            row= adjacency[lastSpot];
+            for(int i=0; i<degrees[lastSpot]; i++){
+                own(predecessors, predecessorEpochs, row[i]);
+                rename(predecessors, inDegrees, row[i], lastSpot, removedSpot);
+            }
+            row= predecessors[lastSpot];
+            for(int i=0; i<inDegrees[lastSpot]; i++){
+                if(row[i]!=lastSpot){
+                    ownAdjacency(row[i]);
+                    rename(adjacency, degrees, row[i], lastSpot, removedSpot);
+                }
+            }
+            ownAdjacency(lastSpot);
+            rename(adjacency, degrees, lastSpot, lastSpot, removedSpot);
+        }
+
+        // the last vertex moves into the removed spot
+        adjacency[removedSpot]= adjacency[lastSpot];
+        adjacentRowMoved(lastSpot, removedSpot);
+        degrees[removedSpot]= degrees[lastSpot];
+        predecessors[removedSpot]= predecessors[lastSpot];
+        inDegrees[removedSpot]= inDegrees[lastSpot];
+        labels[removedSpot]= labels[lastSpot];
+        adjacencyEpochs[removedSpot]= adjacencyEpochs[lastSpot];
+        predecessorEpochs[removedSpot]= predecessorEpochs[lastSpot];
+
+        adjacency[lastSpot]= null;
+        degrees[lastSpot]= 0;
+        predecessors[lastSpot]= null;
+        inDegrees[lastSpot]= 0;
+        labels[lastSpot]= null;
+        indices.remove(toRemove);
+        if(removedSpot!=lastSpot){
+            indices.put((V) labels[removedSpot], removedSpot);
+        }
+        vertexCount--;
+    }
+
+
+    /**
+     * Removes an edge from the graph.
+     *
+     * <p>Postcondition: If from and to were in the graph and (from,
+     * to) was an edge in the graph, then numEdges = numEdges' - 1
+     */
+    public void removeEdge(V from, V to)
+    {
+        checkWritable();
+        int fromSpot= indexOf(from);
+        int toSpot= indexOf(to);
+        if(fromSpot==-1 || toSpot==-1 || find(adjacency[fromSpot], degrees[fromSpot], toSpot)==-1){
+            return;
+        }
+        unshareRows();
+        ownAdjacency(fromSpot);
+        own(predecessors, predecessorEpochs, toSpot);
+        if(deleteAdjacent(fromSpot, toSpot)){
+            delete(predecessors, inDegrees, toSpot, fromSpot);
+            edgeCount--;
+            structureHash-= GraphStructure.edgeHash(from, to);
+            modCount++;
+        }
+    }
+
+
+
+
+    //BOOLEAN METHODS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether or not a vertex is in the graph.
+     *
+     * @param vertex a vertex
+     * @return true iff 'vertex' is a vertex in the graph.
+     */
+    public boolean contains(V vertex)
+    {
+        return indexOf(vertex)!=-1;
+    }
+
+
+    /**
+     * Tells whether an edge exists in the graph.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     *
+     * @return true iff there is an edge from the source vertex to the
+     * destination vertex in the graph.  If either of the given
+     * vertices are not vertices in the graph, then there is no edge
+     * between them.
+     */
+    public boolean hasEdge(V from, V to)
+    {
+        int fromSpot= indexOf(from);
+        int toSpot= indexOf(to);
+        if(fromSpot==-1 || toSpot==-1){
+            return false;
+        }
+        return find(adjacency[fromSpot], degrees[fromSpot], toSpot)!=-1;
+    }
+
+
+    /**
+     * Tells whether the graph is empty.
+     *
+     * @return true iff the graph is empty. A graph is empty if it has
+     * no vertices and no edges.
+     */
+    public boolean isEmpty()
+    {
+        return vertexCount==0;
+    }
+
+
+
+
+    //PATHS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether there is a path connecting two given vertices.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is a path from 'from' to 'to' in the graph.
+     */
+    public boolean hasPath(V from, V to)
+    {
+        return pathLength(from, to)!= Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Gets the length of the shortest path connecting two given
+     * vertices.  The length of a path is the number of edges in the
+     * path.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the length of the shortest path from 'from' to 'to' in
+     * the graph.  If there is no path, returns Integer.MAX_VALUE
+     */
+    public int pathLength(V from, V to)
+    {
+        if(paths!=null){
+            return paths.pathLength(from, to);
+        }
+        return GraphSearch.pathLength(this, from, to);
+    }
+
+
+    /**
+     * Gets the length of the shortest path from one vertex to each of
+     * several others, with one search for them all.
+     *
+     * @param from the source vertex
+     * @param targets the destination vertices
+     * @return for each target, in the order the collection gives them,
+     * the length of the shortest path from 'from' to it, or
+     * Integer.MAX_VALUE if there is none
+     */
+    public int[] pathLengths(V from, Collection<V> targets)
+    {
+        return GraphSearch.pathLengths(this, from, targets);
+    }
+
+
+    /**
+     * Returns the vertices along the shortest path connecting two
+     * given vertices, including the source and destination.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return an Iterable collection of vertices along the shortest
+     * path from 'from' to 'to', or null if there is no path
+     */
+    public Iterable<V> getPath(V from, V to)
+    {
+        if(paths!=null){
+            return paths.getPath(from, to);
+        }
+        return GraphSearch.getPath(this, from, to);
+    }
+
+
+
+
+    //PRINTING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Gives a string representation of the graph: one line per vertex,
+     * the vertex followed by ":" and then its adjacent vertices, each
+     * preceded by a space and separated by ",".
+     *
+     * @return the string representation of the graph
+     */
+    public String toString()
+    {
+        return GraphText.render(this, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Writes the same text as toString, one vertex at a time.
+     *
+     * @param out where to write the graph
+     */
+    public void writeTo(Appendable out) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out);
+    }
+
+
+    /**
+     * Writes the same text as toString, stopping after maxVertices
+     * vertices and maxEdges edges.  Anything left out is shown as "...".
+     *
+     * @param out where to write the graph
+     * @param maxVertices the most vertex lines to write
+     * @param maxEdges the most edges to write, over all lines
+     */
+    public void writeTo(Appendable out, int maxVertices, int maxEdges) throws IOException
+    {
+        GraphText.writeAdjacencyList(this, out, maxVertices, maxEdges);
+    }
+
+
+    /**
+     * Checks whether the graphs are equivalent: the same number of
+     * vertices and edges, the same vertices and the same edges.  The
+     * other graph can be any Graph implementation.
+     *
+     * @param other another object to compare to
+     * @return whether the two objects are equivalent
+     */
+    @Override
+    public boolean equals(Object other)
+    {
+        return GraphStructure.equal(this, other);
+    }
+
+
+    /**
+     * @return a hash of the vertices and edges, kept up to date as the graph changes
+     */
+    @Override
+    public int hashCode()
+    {
+        return structureHash;
+    }
+
+
+}
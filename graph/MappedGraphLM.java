@@ -0,0 +1,73 @@
+package edu.union.adt.graph;
+
+/**
+ * An immutable graph whose edges stay in a memory-mapped file written
+ * by GraphFiles.write.  Only the vertex dictionary is read onto the
+ * heap; the compressed sparse row arrays are read straight from the
+ * mapping, so opening a graph costs O(V) no matter how many edges it
+ * has, and the operating system pages edges in as they are used.
+ *
+ * Open one with GraphFiles.open.  Every method that would change the
+ * graph throws an UnsupportedOperationException.
+ */
+public class MappedGraphLM<V> extends CompressedGraph<V> {
+
+
+    private final MappedInts offsets;
+    private final MappedInts targets;
+    private final MappedInts reverseOffsets;
+    private final MappedInts reverseTargets;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param labels the vertices, in index order
+     * @param edgeCount the number of edges
+     * @param offsets the start of each vertex's adjacency row
+     * @param targets the adjacency rows
+     * @param reverseOffsets the start of each vertex's predecessor row
+     * @param reverseTargets the predecessor rows
+     */
+    MappedGraphLM(Object[] labels, int edgeCount, MappedInts offsets, MappedInts targets,
+                  MappedInts reverseOffsets, MappedInts reverseTargets)
+    {
+        super(labels, edgeCount);
+        this.offsets= offsets;
+        this.targets= targets;
+        this.reverseOffsets= reverseOffsets;
+        this.reverseTargets= reverseTargets;
+    }
+
+
+
+
+    //STORAGE
+    //--------------------------------------------------------------------------------------------
+    int offset(int index)
+    {
+        return offsets.get(index);
+    }
+
+
+    int target(int position)
+    {
+        return targets.get(position);
+    }
+
+
+    int reverseOffset(int index)
+    {
+        return reverseOffsets.get(index);
+    }
+
+
+    int reverseTarget(int position)
+    {
+        return reverseTargets.get(position);
+    }
+
+
+}
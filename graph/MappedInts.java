@@ -0,0 +1,56 @@
+package edu.union.adt.graph;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only run of ints in a memory-mapped file.  A single mapping
+ * cannot be larger than 2GB, so the run is mapped in chunks of CHUNK
+ * ints and an index is split into a chunk and a position within it.
+ * Reads use absolute gets, so any number of threads can share one.
+ */
+final class MappedInts {
+
+
+    // 2^28 ints is 1GB per mapping
+    private static final int SHIFT = 28;
+    private static final int CHUNK = 1 << SHIFT;
+    private static final int MASK = CHUNK - 1;
+
+    private final IntBuffer[] chunks;
+
+
+
+
+    /**
+     * Maps a run of ints.  The mapping stays valid after the channel is
+     * closed.
+     *
+     * @param channel the file to map
+     * @param position the byte offset of the first int
+     * @param count how many ints to map
+     */
+    MappedInts(FileChannel channel, long position, int count) throws IOException
+    {
+        chunks= new IntBuffer[Math.max(1, (int) (((long) count + CHUNK - 1) >>> SHIFT))];
+        for(int c=0; c<chunks.length; c++){
+            long first= (long) c << SHIFT;
+            long size= Math.min(CHUNK, count - first);
+            chunks[c]= channel.map(FileChannel.MapMode.READ_ONLY, position + first * 4, size * 4)
+                .order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        }
+    }
+
+
+    /**
+     * @param index a position in the run
+     * @return the int stored there
+     */
+    int get(int index)
+    {
+        return chunks[index >>> SHIFT].get(index & MASK);
+    }
+
+
+}
@@ -0,0 +1,313 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Answers shortest-path queries on a graph from a bounded cache of
+ * whole breadth-first searches.
+ *
+ * The first query from a vertex searches the whole graph from it once
+ * and keeps the distance and parent of every vertex, in two int arrays
+ * indexed like graph.getVertices().  Every later query from the same
+ * vertex, to any destination, is then a lookup: O(1) for pathLength and
+ * hasPath, O(path length) for getPath.  At most 'capacity' sources are
+ * kept; past that the least recently used one is dropped, so the cache
+ * holds at most 2 * capacity * numVertices ints.
+ *
+ * Each graph in this package counts its changes (see
+ * IndexedGraph.modCount), and the cache compares that count before every
+ * query: after any addEdge, removeEdge, addVertex or removeVertex, all
+ * stored searches are dropped and recomputed on demand.  The graph must
+ * not be changed while a query is running, unless it is a
+ * ConcurrentGraphLM: the searches then run on a snapshot taken when the
+ * count last changed, and answer for the graph as it was at that
+ * moment.
+ *
+ * A cache can also be held by the graph itself: a graph made by
+ * GraphFactory with GraphOptions.setPathCacheCapacity answers its own
+ * pathLength, hasPath and getPath through one, so callers get the
+ * speedup without holding a PathCache.  Make one directly, as here, to
+ * read its counts or to keep several caches of different sizes.
+ *
+ * The counts reported by getHits, getMisses, getEvictions and
+ * getInvalidations cover the life of the cache, and are meant for
+ * choosing a capacity.  All methods are synchronized.
+ */
+public final class PathCache<V> {
+
+
+    /** the number of sources kept by PathCache(graph) */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final IndexedGraph<V> graph;
+    // what the searches in 'trees' ran on: the graph itself, or a snapshot of a ConcurrentGraphLM
+    private IndexedGraph<V> view;
+    private final int capacity;
+    // the searches kept, by source index, least recently used first
+    private final LinkedHashMap<Integer, Tree> trees;
+    // graph.modCount() when the searches in 'trees' were made
+    private int modCount;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Creates a cache that keeps up to DEFAULT_CAPACITY sources.
+     *
+     * @param graph the graph to answer queries on
+     * @throws IllegalArgumentException if the graph does not come from
+     * this package, since its changes could not be seen
+     */
+    public PathCache(Graph<V> graph)
+    {
+        this(graph, DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Creates a cache that keeps up to 'capacity' sources.
+     *
+     * @param graph the graph to answer queries on
+     * @param capacity the most sources to keep searches for
+     * @throws IllegalArgumentException if capacity is not positive, or
+     * if the graph does not come from this package, since its changes
+     * could not be seen
+     */
+    public PathCache(Graph<V> graph, int capacity)
+    {
+        if(!(graph instanceof IndexedGraph)){
+            throw new IllegalArgumentException("PathCache needs a graph from edu.union.adt.graph");
+        }
+        if(capacity<1){
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.graph= (IndexedGraph<V>) graph;
+        this.capacity= capacity;
+        trees= new LinkedHashMap<Integer, Tree>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Tree> eldest){
+                if(size()>PathCache.this.capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        view= BreadthFirstSearch.indexed(graph);
+        modCount= view.modCount();
+    }
+
+
+
+
+    //QUERIES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether there is a path between two vertices; see Graph.hasPath.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is a path from 'from' to 'to' in the graph
+     */
+    public synchronized boolean hasPath(V from, V to)
+    {
+        return pathLength(from, to)!=Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Finds the length of a shortest path; see Graph.pathLength.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the length of the shortest path from 'from' to 'to', or
+     * Integer.MAX_VALUE if either vertex is missing or there is no path
+     */
+    public synchronized int pathLength(V from, V to)
+    {
+        refresh();
+        int source= view.indexOf(from);
+        int target= view.indexOf(to);
+        if(source==GraphSearch.UNVISITED || target==GraphSearch.UNVISITED){
+            return Integer.MAX_VALUE;
+        }
+        int distance= treeFrom(source).distance[target];
+        return distance==GraphSearch.UNVISITED ? Integer.MAX_VALUE : distance;
+    }
+
+
+    /**
+     * Finds a shortest path; see Graph.getPath.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the vertices along the shortest path from 'from' to 'to',
+     * including both ends, or null if there is no path
+     * @throws IllegalArgumentException if either vertex is missing
+     */
+    public synchronized Iterable<V> getPath(V from, V to)
+    {
+        refresh();
+        int source= view.indexOf(from);
+        int target= view.indexOf(to);
+        if(source==GraphSearch.UNVISITED || target==GraphSearch.UNVISITED){
+            throw new IllegalArgumentException("Vertex does not exist, cannot produce Path");
+        }
+        Tree tree= treeFrom(source);
+        int length= tree.distance[target];
+        if(length==GraphSearch.UNVISITED){
+            return null;
+        }
+
+        // walk the parents back from the target, then turn the path around
+        ArrayList<V> answer= new ArrayList<V>(length + 1);
+        int spot= target;
+        for(int i=length; i>=0; i--){
+            answer.add(view.vertexAt(spot));
+            spot= tree.parent[spot];
+        }
+        Collections.reverse(answer);
+        return answer;
+    }
+
+
+    /**
+     * Drops every kept search if the graph has changed since they were
+     * made, and takes a new view of it.
+     */
+    private void refresh()
+    {
+        if(graph.modCount()!=modCount){
+            if(!trees.isEmpty()){
+                invalidations++;
+                trees.clear();
+            }
+            view= BreadthFirstSearch.indexed(graph);
+            modCount= view.modCount();
+        }
+    }
+
+
+    /**
+     * @param source the index of a vertex in the view
+     * @return the search from that vertex, made now if it is not kept
+     */
+    private Tree treeFrom(int source)
+    {
+        Tree tree= trees.get(source);
+        if(tree!=null){
+            hits++;
+            return tree;
+        }
+        misses++;
+        int count= view.numVertices();
+        tree= new Tree(new int[count], new int[count]);
+        GraphSearch.searchFrom(view, source, tree.distance, tree.parent);
+        trees.put(source, tree);
+        return tree;
+    }
+
+
+    /**
+     * The result of one search: the distance and parent of every index.
+     */
+    private static final class Tree {
+
+        final int[] distance;
+        final int[] parent;
+
+
+        Tree(int[] distance, int[] parent){
+            this.distance= distance;
+            this.parent= parent;
+        }
+    }
+
+
+
+
+    //METRICS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return the most sources this cache keeps searches for
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+
+    /**
+     * @return the number of sources whose searches are kept right now
+     */
+    public synchronized int size()
+    {
+        return trees.size();
+    }
+
+
+    /**
+     * @return the number of queries answered from a kept search
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+
+    /**
+     * @return the number of queries that had to search the graph
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+
+    /**
+     * @return hits / (hits + misses), or 0 before the first query
+     */
+    public synchronized double getHitRate()
+    {
+        long queries= hits + misses;
+        return queries==0 ? 0 : (double) hits / queries;
+    }
+
+
+    /**
+     * @return the number of searches dropped to make room for newer ones
+     */
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+
+
+    /**
+     * @return the number of times every kept search was dropped because
+     * the graph changed
+     */
+    public synchronized long getInvalidations()
+    {
+        return invalidations;
+    }
+
+
+    /**
+     * Drops every kept search.  The counts are not reset.
+     */
+    public synchronized void clear()
+    {
+        trees.clear();
+    }
+
+
+}
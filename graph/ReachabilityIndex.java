@@ -0,0 +1,693 @@
+package edu.union.adt.graph;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Answers hasPath on a graph from an index instead of a search, for
+ * workloads where reachability queries far outnumber changes.
+ *
+ * The index works on the strongly connected components of the graph:
+ * two vertices in one component reach each other, and the components
+ * form a DAG (the condensation).  How the DAG is kept depends on its
+ * size:
+ * <ul>
+ * <li>Up to 'closureLimit' components, the full transitive closure is
+ * kept as a bitset per component, and hasPath is one bit test.  This
+ * takes closureLimit squared bits at most, 8 MB with the default limit.
+ * <li>Past that, the DAG is kept as adjacency lists with a topological
+ * position for each component and an interval label from a spanning
+ * forest.  A query is false at once if the target comes before the
+ * source in topological order and true at once if the target is in the
+ * source's subtree; otherwise a search of the DAG decides it, skipping
+ * every component that comes after the target.
+ * </ul>
+ *
+ * Edges added through addEdge update the index in place: the closure
+ * rows that reach the new edge's source take in the target's row, or
+ * the DAG gets the edge and the topological positions between its ends
+ * are reordered (Pearce and Kelly's algorithm).  An edge that closes a
+ * cycle merges components, and removals can split them, so those, and
+ * any change made to the graph directly instead of through the index,
+ * are noticed through IndexedGraph.modCount and make the next query
+ * rebuild the index in O(V + E) plus the closure.
+ *
+ * The graph must not be changed while a query is running, unless it is
+ * a ConcurrentGraphLM: the index is then built from a snapshot and
+ * answers for the graph as it was at that moment, and every change is
+ * left to a rebuild, since the snapshot cannot take it in.  All methods
+ * are synchronized.
+ */
+public final class ReachabilityIndex<V> {
+
+
+    /** the most components for which the whole transitive closure is kept */
+    public static final int DEFAULT_CLOSURE_LIMIT = 8192;
+
+    private final IndexedGraph<V> graph;
+    // what the index was built from: the graph itself, or a snapshot of a ConcurrentGraphLM
+    private IndexedGraph<V> view;
+    private final int closureLimit;
+    // whether the index matches the graph as of graph.modCount()==modCount
+    private boolean current;
+    private int modCount;
+
+    // component[i] is the strongly connected component of vertex index i
+    private int[] component= new int[0];
+    private int vertexCount;
+    private int componentCount;
+
+    // bit d of reach[c] is set iff component c reaches component d; null past closureLimit
+    private long[][] reach;
+
+    // the condensation, past closureLimit: the components each component has edges to and from
+    private int[][] successors;
+    private int[] successorCounts;
+    private int[][] predecessors;
+    private int[] predecessorCounts;
+    // position[c] < position[d] whenever c has an edge to d; unique but not dense
+    private int[] position;
+    private int nextPosition;
+    // the post-order numbers of the subtree of c in a spanning forest are low[c] to post[c]; -1 if c has no label
+    private int[] post;
+    private int[] low;
+    // round stamps marking what the current search has seen, so they never need clearing
+    private int[] marks;
+    private int round;
+
+    private int rebuilds;
+    private long updates;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Creates an index that keeps the full closure for up to
+     * DEFAULT_CLOSURE_LIMIT components.  Nothing is computed until the
+     * first query.
+     *
+     * @param graph the graph to answer queries on
+     * @throws IllegalArgumentException if the graph does not come from
+     * this package, since its changes could not be seen
+     */
+    public ReachabilityIndex(Graph<V> graph)
+    {
+        this(graph, DEFAULT_CLOSURE_LIMIT);
+    }
+
+
+    /**
+     * Creates an index that keeps the full closure for up to
+     * 'closureLimit' components.  Nothing is computed until the first
+     * query.
+     *
+     * @param graph the graph to answer queries on
+     * @param closureLimit the most components to keep the full closure
+     * for; 0 always uses the condensation
+     * @throws IllegalArgumentException if closureLimit is negative, or
+     * if the graph does not come from this package, since its changes
+     * could not be seen
+     */
+    public ReachabilityIndex(Graph<V> graph, int closureLimit)
+    {
+        if(!(graph instanceof IndexedGraph)){
+            throw new IllegalArgumentException("ReachabilityIndex needs a graph from edu.union.adt.graph");
+        }
+        if(closureLimit<0){
+            throw new IllegalArgumentException("Closure limit cannot be negative");
+        }
+        this.graph= (IndexedGraph<V>) graph;
+        view= this.graph;
+        this.closureLimit= closureLimit;
+    }
+
+
+
+
+    //QUERIES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Tells whether there is a path between two vertices; see Graph.hasPath.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return true iff there is a path from 'from' to 'to' in the graph
+     */
+    public synchronized boolean hasPath(V from, V to)
+    {
+        if(!current || graph.modCount()!=modCount){
+            rebuild();
+        }
+        int source= view.indexOf(from);
+        int target= view.indexOf(to);
+        if(source==-1 || target==-1){
+            return false;
+        }
+        return reaches(component[source], component[target]);
+    }
+
+
+    /**
+     * @param from a component
+     * @param to a component
+     * @return whether 'from' reaches 'to'
+     */
+    private boolean reaches(int from, int to)
+    {
+        if(reach!=null){
+            return hasBit(reach[from], to);
+        }
+        if(from==to){
+            return true;
+        }
+        if(position[from]>position[to]){
+            return false;
+        }
+        if(inSubtree(from, to)){
+            return true;
+        }
+
+        // search the DAG, skipping what comes after 'to' since it cannot lead back to it
+        round++;
+        int[] stack= new int[16];
+        int size=0;
+        stack[size++]= from;
+        marks[from]= round;
+        while(size>0){
+            int c= stack[--size];
+            int[] row= successors[c];
+            for(int i=0; i<successorCounts[c]; i++){
+                int d= row[i];
+                if(d==to || inSubtree(d, to)){
+                    return true;
+                }
+                if(marks[d]!=round && position[d]<position[to]){
+                    marks[d]= round;
+                    if(size==stack.length){
+                        stack= Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++]= d;
+                }
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return whether 'to' is in the spanning-forest subtree of 'from'
+     */
+    private boolean inSubtree(int from, int to)
+    {
+        return post[from]!=-1 && post[to]!=-1 && low[from]<=post[to] && post[to]<=post[from];
+    }
+
+
+
+
+    //CHANGES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds a directed edge to the graph, as Graph.addEdge does, and
+     * updates the index to match without rebuilding it, unless the edge
+     * joins two components into one.
+     *
+     * @param from the source vertex for the added edge
+     * @param to the destination vertex for the added edge
+     */
+    public synchronized void addEdge(V from, V to)
+    {
+        boolean wasCurrent= current && view==graph && graph.modCount()==modCount;
+        graph.addEdge(from, to);
+        if(!wasCurrent){
+            current= false;
+            return;
+        }
+        modCount= graph.modCount();
+        addComponents();
+        if(current){
+            link(component[graph.indexOf(from)], component[graph.indexOf(to)]);
+        }
+        if(current){
+            updates++;
+        }
+    }
+
+
+    /**
+     * Adds a vertex to the graph, as Graph.addVertex does, and gives it
+     * a component of its own in the index.
+     *
+     * @param vertex the vertex to add
+     */
+    public synchronized void addVertex(V vertex)
+    {
+        boolean wasCurrent= current && view==graph && graph.modCount()==modCount;
+        graph.addVertex(vertex);
+        if(!wasCurrent){
+            current= false;
+            return;
+        }
+        modCount= graph.modCount();
+        addComponents();
+    }
+
+
+    /**
+     * Removes an edge from the graph, as Graph.removeEdge does.  The
+     * index is rebuilt at the next query.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     */
+    public synchronized void removeEdge(V from, V to)
+    {
+        graph.removeEdge(from, to);
+    }
+
+
+    /**
+     * Removes a vertex from the graph, as Graph.removeVertex does.  The
+     * index is rebuilt at the next query.
+     *
+     * @param vertex the vertex to remove
+     */
+    public synchronized void removeVertex(V vertex)
+    {
+        graph.removeVertex(vertex);
+    }
+
+
+    /**
+     * Gives each vertex added to the graph since the index was built a
+     * component of its own.  Clears 'current' if the closure is full.
+     */
+    private void addComponents()
+    {
+        int count= graph.numVertices();
+        if(count>component.length){
+            component= Arrays.copyOf(component, Math.max(count, component.length * 2));
+        }
+        while(vertexCount<count && current){
+            int c= componentCount;
+            if(reach!=null){
+                if(c==reach.length){
+                    current= false;
+                    return;
+                }
+                reach[c]= new long[(reach.length + 63) >>> 6];
+                setBit(reach[c], c);
+            }
+            else{
+                if(c==position.length){
+                    growCondensation(c * 2 + 16);
+                }
+                position[c]= nextPosition++;
+                post[c]= -1;
+                low[c]= -1;
+            }
+            component[vertexCount++]= c;
+            componentCount++;
+        }
+    }
+
+
+    /**
+     * Records a new edge between two components.  Clears 'current' if
+     * the edge closes a cycle, which merges components.
+     *
+     * @param from the source component
+     * @param to the destination component
+     */
+    private void link(int from, int to)
+    {
+        if(from==to){
+            return;
+        }
+        if(reach!=null){
+            if(hasBit(reach[from], to)){
+                return;
+            }
+            if(hasBit(reach[to], from)){
+                current= false;
+                return;
+            }
+            // everything that reaches 'from' now reaches everything 'to' reaches
+            long[] added= reach[to];
+            for(int c=0; c<componentCount; c++){
+                long[] row= reach[c];
+                if(hasBit(row, from)){
+                    for(int w=0; w<row.length; w++){
+                        row[w]|= added[w];
+                    }
+                }
+            }
+            return;
+        }
+
+        successors[from]= append(successors[from], successorCounts[from]++, to);
+        predecessors[to]= append(predecessors[to], predecessorCounts[to]++, from);
+        if(position[from]<position[to]){
+            return;
+        }
+
+        // Pearce-Kelly: what 'to' reaches before 'from' must move after what reaches 'from'
+        int[] forward= gather(to, true, position[from], from);
+        if(forward==null){
+            current= false;
+            return;
+        }
+        int[] backward= gather(from, false, position[to], -1);
+        sortByPosition(forward);
+        sortByPosition(backward);
+        int[] slots= new int[forward.length + backward.length];
+        for(int i=0; i<backward.length; i++){
+            slots[i]= position[backward[i]];
+        }
+        for(int i=0; i<forward.length; i++){
+            slots[backward.length + i]= position[forward[i]];
+        }
+        Arrays.sort(slots);
+        for(int i=0; i<backward.length; i++){
+            position[backward[i]]= slots[i];
+        }
+        for(int i=0; i<forward.length; i++){
+            position[forward[i]]= slots[backward.length + i];
+        }
+    }
+
+
+    /**
+     * Finds the components reachable from a start, forward along
+     * successors or backward along predecessors, that lie strictly
+     * between the start and a bound in topological order.
+     *
+     * @param start where to start; included in the answer
+     * @param forward true to follow successors, false for predecessors
+     * @param bound the position not to pass
+     * @param cycle a component whose discovery means a cycle, or -1
+     * @return the components found, or null if 'cycle' was found
+     */
+    private int[] gather(int start, boolean forward, int bound, int cycle)
+    {
+        round++;
+        int[] found= new int[16];
+        int size=0;
+        found[size++]= start;
+        marks[start]= round;
+        for(int next=0; next<size; next++){
+            int c= found[next];
+            int[] row= forward ? successors[c] : predecessors[c];
+            int rowCount= forward ? successorCounts[c] : predecessorCounts[c];
+            for(int i=0; i<rowCount; i++){
+                int d= row[i];
+                if(d==cycle){
+                    return null;
+                }
+                boolean between= forward ? position[d]<bound : position[d]>bound;
+                if(marks[d]!=round && between){
+                    marks[d]= round;
+                    if(size==found.length){
+                        found= Arrays.copyOf(found, size * 2);
+                    }
+                    found[size++]= d;
+                }
+            }
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+
+    /**
+     * Sorts components by their topological position.
+     */
+    private void sortByPosition(int[] components)
+    {
+        long[] keys= new long[components.length];
+        for(int i=0; i<components.length; i++){
+            keys[i]= (long) position[components[i]] << 32 | components[i];
+        }
+        Arrays.sort(keys);
+        for(int i=0; i<components.length; i++){
+            components[i]= (int) keys[i];
+        }
+    }
+
+
+
+
+    //BUILDING
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Computes the index from scratch.
+     */
+    private void rebuild()
+    {
+        rebuilds++;
+        view= BreadthFirstSearch.indexed(graph);
+        vertexCount= view.numVertices();
+        component= new int[vertexCount];
+        componentCount= StrongComponents.tarjan(view, component);
+
+        // the vertices of component c are members[memberOffsets[c]] to members[memberOffsets[c+1]-1]
+        int[] memberOffsets= new int[componentCount + 1];
+        for(int i=0; i<vertexCount; i++){
+            memberOffsets[component[i] + 1]++;
+        }
+        for(int c=0; c<componentCount; c++){
+            memberOffsets[c + 1]+= memberOffsets[c];
+        }
+        int[] members= new int[vertexCount];
+        int[] filled= Arrays.copyOf(memberOffsets, componentCount);
+        for(int i=0; i<vertexCount; i++){
+            members[filled[component[i]]++]= i;
+        }
+
+        if(componentCount<=closureLimit){
+            buildClosure(members, memberOffsets);
+        }
+        else{
+            buildCondensation(members, memberOffsets);
+        }
+        modCount= view.modCount();
+        current= true;
+    }
+
+
+    /**
+     * Fills in the closure one component at a time.  Tarjan's numbering
+     * puts every component a component has edges to before it, so each
+     * row is the or of rows already finished.
+     */
+    private void buildClosure(int[] members, int[] memberOffsets)
+    {
+        successors= null;
+        predecessors= null;
+        position= null;
+        post= null;
+        low= null;
+        marks= null;
+
+        int capacity= Math.min(closureLimit, Math.max(64, componentCount * 2));
+        int words= (capacity + 63) >>> 6;
+        reach= new long[capacity][];
+        Merge merge= new Merge();
+        for(int c=0; c<componentCount; c++){
+            merge.row= new long[words];
+            setBit(merge.row, c);
+            reach[c]= merge.row;
+            for(int m=memberOffsets[c]; m<memberOffsets[c + 1]; m++){
+                view.forEachNeighbor(members[m], merge);
+            }
+        }
+    }
+
+
+    /**
+     * Ors the closure row of each neighbor's component into a row.
+     */
+    private final class Merge implements IntConsumer {
+
+        long[] row;
+
+
+        public void accept(int to){
+            int d= component[to];
+            if(!hasBit(row, d)){
+                long[] other= reach[d];
+                for(int w=0; w<row.length; w++){
+                    row[w]|= other[w];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Builds the condensation, its topological positions and its
+     * interval labels.
+     */
+    private void buildCondensation(int[] members, int[] memberOffsets)
+    {
+        reach= null;
+        int capacity= componentCount * 2 + 16;
+        successors= new int[capacity][];
+        successorCounts= new int[capacity];
+        predecessors= new int[capacity][];
+        predecessorCounts= new int[capacity];
+        position= new int[capacity];
+        post= new int[capacity];
+        low= new int[capacity];
+        marks= new int[capacity];
+        round= 0;
+
+        Collect collect= new Collect();
+        for(int c=0; c<componentCount; c++){
+            collect.from= c;
+            round++;
+            marks[c]= round;
+            for(int m=memberOffsets[c]; m<memberOffsets[c + 1]; m++){
+                view.forEachNeighbor(members[m], collect);
+            }
+            // Tarjan's numbering is reverse topological
+            position[c]= componentCount - 1 - c;
+        }
+        nextPosition= componentCount;
+        label();
+    }
+
+
+    /**
+     * Adds an edge of the condensation for each neighbor in another
+     * component that this component has no edge to yet.
+     */
+    private final class Collect implements IntConsumer {
+
+        int from;
+
+
+        public void accept(int to){
+            int d= component[to];
+            if(marks[d]!=round){
+                marks[d]= round;
+                successors[from]= append(successors[from], successorCounts[from]++, d);
+                predecessors[d]= append(predecessors[d], predecessorCounts[d]++, from);
+            }
+        }
+    }
+
+
+    /**
+     * Numbers the components in post-order along a depth-first spanning
+     * forest of the condensation, so that the subtree of c is exactly
+     * the components numbered low[c] to post[c].  Every component of a
+     * DAG is below some component with no predecessors, so every one
+     * gets a label.
+     */
+    private void label()
+    {
+        Arrays.fill(post, -1);
+        int[] stack= new int[componentCount];
+        int[] next= new int[componentCount];
+        int counter=0;
+        for(int root=0; root<componentCount; root++){
+            if(predecessorCounts[root]!=0){
+                continue;
+            }
+            int depth=0;
+            stack[depth++]= root;
+            low[root]= counter;
+            post[root]= -2;
+            while(depth>0){
+                int c= stack[depth - 1];
+                if(next[c]<successorCounts[c]){
+                    int d= successors[c][next[c]++];
+                    if(post[d]==-1){
+                        low[d]= counter;
+                        post[d]= -2;
+                        stack[depth++]= d;
+                    }
+                    continue;
+                }
+                depth--;
+                post[c]= counter++;
+            }
+        }
+    }
+
+
+    /**
+     * Grows the arrays of the condensation to hold 'capacity' components.
+     */
+    private void growCondensation(int capacity)
+    {
+        successors= Arrays.copyOf(successors, capacity);
+        successorCounts= Arrays.copyOf(successorCounts, capacity);
+        predecessors= Arrays.copyOf(predecessors, capacity);
+        predecessorCounts= Arrays.copyOf(predecessorCounts, capacity);
+        position= Arrays.copyOf(position, capacity);
+        post= Arrays.copyOf(post, capacity);
+        low= Arrays.copyOf(low, capacity);
+        marks= Arrays.copyOf(marks, capacity);
+    }
+
+
+
+
+    //HELPERS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @param row a row of the condensation, or null
+     * @param count the number of used entries in the row
+     * @param value the component to add at the end
+     * @return the row, grown if it was full
+     */
+    private static int[] append(int[] row, int count, int value)
+    {
+        if(row==null){
+            row= new int[4];
+        }
+        else if(count==row.length){
+            row= Arrays.copyOf(row, count * 2);
+        }
+        row[count]= value;
+        return row;
+    }
+
+
+    private static boolean hasBit(long[] row, int bit)
+    {
+        return (row[bit >>> 6] & (1L << bit))!=0;
+    }
+
+
+    private static void setBit(long[] row, int bit)
+    {
+        row[bit >>> 6]|= 1L << bit;
+    }
+
+
+
+
+    //METRICS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * @return the number of times the index was computed from scratch
+     */
+    public synchronized int getRebuilds()
+    {
+        return rebuilds;
+    }
+
+
+    /**
+     * @return the number of edges added without a rebuild
+     */
+    public synchronized long getUpdates()
+    {
+        return updates;
+    }
+
+
+}
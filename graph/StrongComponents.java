@@ -0,0 +1,544 @@
+package edu.union.adt.graph;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Strongly connected components over the int indices of a graph.
+ *
+ * Each method returns an int array holding, for each vertex in the
+ * order of graph.getVertices(), the number of its component; the
+ * components are numbered 0 to count(component)-1.  The searches keep
+ * their own stacks in int arrays instead of recursing, so a chain of a
+ * million vertices needs a few arrays of a million ints, not a million
+ * stack frames.
+ * <ul>
+ * <li>tarjan: one depth-first search.  The components come out in
+ * reverse topological order: every edge between two components goes
+ * from the higher number to the lower.
+ * <li>kosaraju: a search forward, then one backward in the reverse of
+ * the order the first one finished.  The components come out in
+ * topological order: every edge between two components goes from the
+ * lower number to the higher.
+ * <li>forwardBackward: for very large graphs.  Vertices with no edges
+ * in or no edges out are trimmed off as components of their own first;
+ * then the rest is split around a random pivot into what it reaches,
+ * what reaches it, and everything else, and the three parts are solved
+ * in parallel.  The numbering follows no order.
+ * </ul>
+ * The graph must not be changed while a search is running.
+ */
+public final class StrongComponents {
+
+
+    // parts smaller than this, or split this many times, are finished with Tarjan's algorithm in one thread
+    private static final int GRAIN = 4096;
+    private static final int MAX_SPLITS = 64;
+
+
+    private StrongComponents(){
+    }
+
+
+
+
+    // SEQUENTIAL
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm.
+     *
+     * @param graph the graph to search
+     * @return the component of each vertex, numbered in reverse
+     * topological order
+     */
+    public static int[] tarjan(Graph<?> graph)
+    {
+        IndexedGraph<?> indexed= BreadthFirstSearch.indexed(graph);
+        int[] component= new int[indexed.numVertices()];
+        tarjan(indexed, component);
+        return component;
+    }
+
+
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm.
+     *
+     * @param graph the graph to search
+     * @param component filled with the component number of each index,
+     * in reverse topological order; must have room for
+     * graph.numVertices() entries
+     * @return the number of components
+     */
+    static int tarjan(IndexedGraph<?> graph, int[] component)
+    {
+        Rows rows= new Rows(graph, true);
+        int count= rows.count;
+        int[] all= new int[count];
+        for(int i=0; i<count; i++){
+            all[i]= i;
+        }
+        int[] order= new int[count];
+        Arrays.fill(order, -1);
+        Arrays.fill(component, 0, count, -1);
+        AtomicInteger components= new AtomicInteger();
+        tarjan(rows, all, null, 0, order, new int[count], new int[count], component, components);
+        return components.get();
+    }
+
+
+    /**
+     * Runs Tarjan's algorithm from each of a set of roots, following
+     * only edges to vertices of a given color if there are colors.
+     *
+     * @param rows the edges
+     * @param roots the vertices to search, all of them of 'ownColor'
+     * @param color the color of each vertex, or null to follow every edge
+     * @param ownColor the color to stay within
+     * @param order when each vertex was first reached, or -1; shared by
+     * searches of disjoint sets of vertices
+     * @param low the earliest order each vertex reaches within its
+     * unfinished component; shared in the same way
+     * @param next the position in rows.targets of the next edge of each
+     * vertex to follow; shared in the same way
+     * @param component -1 for each vertex not yet in a component; set
+     * for each vertex found
+     * @param components hands out component numbers
+     */
+    private static void tarjan(Rows rows, int[] roots, int[] color, int ownColor, int[] order,
+                               int[] low, int[] next, int[] component, AtomicInteger components)
+    {
+        int[] offsets= rows.offsets;
+        int[] targets= rows.targets;
+        int[] calls= new int[roots.length];
+        int[] open= new int[roots.length];
+        int reached=0;
+        for(int root : roots){
+            if(order[root]!=-1){
+                continue;
+            }
+            int depth=0;
+            int openSize=0;
+            order[root]= low[root]= reached++;
+            next[root]= offsets[root];
+            calls[depth++]= root;
+            open[openSize++]= root;
+
+            while(depth>0){
+                int v= calls[depth - 1];
+                if(next[v]<offsets[v + 1]){
+                    int w= targets[next[v]++];
+                    if(color!=null && color[w]!=ownColor){
+                        continue;
+                    }
+                    if(order[w]==-1){
+                        order[w]= low[w]= reached++;
+                        next[w]= offsets[w];
+                        calls[depth++]= w;
+                        open[openSize++]= w;
+                    }
+                    else if(component[w]==-1 && order[w]<low[v]){
+                        low[v]= order[w];
+                    }
+                    continue;
+                }
+
+                // every edge of v is done: v either roots a component or hands its low up
+                depth--;
+                if(low[v]==order[v]){
+                    int number= components.getAndIncrement();
+                    int w;
+                    do{
+                        w= open[--openSize];
+                        component[w]= number;
+                    }while(w!=v);
+                }
+                if(depth>0 && low[v]<low[calls[depth - 1]]){
+                    low[calls[depth - 1]]= low[v];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Finds the strongly connected components with Kosaraju's algorithm.
+     *
+     * @param graph the graph to search
+     * @return the component of each vertex, numbered in topological order
+     */
+    public static int[] kosaraju(Graph<?> graph)
+    {
+        IndexedGraph<?> indexed= BreadthFirstSearch.indexed(graph);
+        Rows forward= new Rows(indexed, true);
+        int count= forward.count;
+
+        // first pass: list the vertices in the order their depth-first searches finish
+        int[] finished= new int[count];
+        int finishedSize=0;
+        boolean[] seen= new boolean[count];
+        int[] next= new int[count];
+        int[] calls= new int[count];
+        for(int root=0; root<count; root++){
+            if(seen[root]){
+                continue;
+            }
+            int depth=0;
+            seen[root]= true;
+            next[root]= forward.offsets[root];
+            calls[depth++]= root;
+            while(depth>0){
+                int v= calls[depth - 1];
+                if(next[v]<forward.offsets[v + 1]){
+                    int w= forward.targets[next[v]++];
+                    if(!seen[w]){
+                        seen[w]= true;
+                        next[w]= forward.offsets[w];
+                        calls[depth++]= w;
+                    }
+                    continue;
+                }
+                depth--;
+                finished[finishedSize++]= v;
+            }
+        }
+        forward= null;
+
+        // second pass: whatever reaches the last to finish, and is not yet taken, is its component
+        Rows backward= new Rows(indexed, false);
+        int[] component= new int[count];
+        Arrays.fill(component, -1);
+        int[] stack= calls;
+        int components=0;
+        for(int i=count - 1; i>=0; i--){
+            int root= finished[i];
+            if(component[root]!=-1){
+                continue;
+            }
+            int size=0;
+            component[root]= components;
+            stack[size++]= root;
+            while(size>0){
+                int v= stack[--size];
+                for(int e=backward.offsets[v]; e<backward.offsets[v + 1]; e++){
+                    int w= backward.targets[e];
+                    if(component[w]==-1){
+                        component[w]= components;
+                        stack[size++]= w;
+                    }
+                }
+            }
+            components++;
+        }
+        return component;
+    }
+
+
+    /**
+     * @param component the components found by one of the searches
+     * @return how many components there are
+     */
+    public static int count(int[] component)
+    {
+        int count=0;
+        for(int number : component){
+            count= Math.max(count, number + 1);
+        }
+        return count;
+    }
+
+
+
+
+    // PARALLEL
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Finds the strongly connected components with the forward-backward
+     * algorithm, using the common ForkJoinPool.
+     *
+     * @param graph the graph to search
+     * @return the component of each vertex, in no particular order
+     */
+    public static int[] forwardBackward(Graph<?> graph)
+    {
+        return forwardBackward(graph, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Finds the strongly connected components with the forward-backward
+     * algorithm.
+     *
+     * @param graph the graph to search
+     * @param pool the pool whose threads solve the parts
+     * @return the component of each vertex, in no particular order
+     */
+    public static int[] forwardBackward(Graph<?> graph, ForkJoinPool pool)
+    {
+        IndexedGraph<?> indexed= BreadthFirstSearch.indexed(graph);
+        Split split= new Split(new Rows(indexed, true), new Rows(indexed, false));
+        int[] rest= split.trim();
+        // the trimmed vertices keep color 0, so a fresh color keeps every part off them
+        Part all= split.newPart(rest, rest.length, 0);
+        if(all!=null){
+            pool.invoke(all);
+        }
+        return split.component;
+    }
+
+
+    /**
+     * The state shared by every part of a forward-backward search.
+     * Each part has a color of its own and owns exactly the vertices of
+     * that color, so parts running at once never write the same entry:
+     * they only read the colors of other parts' vertices, and a vertex
+     * never takes on a color that was given out before it, so a stale
+     * read can never make a part follow an edge out of itself.
+     */
+    private static final class Split {
+
+        final Rows forward;
+        final Rows backward;
+        final int[] component;
+        final int[] color;
+        // the color of the part whose forward and backward searches last reached each vertex
+        final int[] forwardMark;
+        final int[] backwardMark;
+        // the arrays shared by the Tarjan searches that finish small parts
+        final int[] order;
+        final int[] low;
+        final int[] next;
+        final AtomicInteger components= new AtomicInteger();
+        final AtomicInteger colors= new AtomicInteger(1);
+
+
+        Split(Rows forward, Rows backward){
+            this.forward= forward;
+            this.backward= backward;
+            int count= forward.count;
+            component= new int[count];
+            color= new int[count];
+            forwardMark= new int[count];
+            backwardMark= new int[count];
+            order= new int[count];
+            low= new int[count];
+            next= new int[count];
+            Arrays.fill(component, -1);
+            Arrays.fill(forwardMark, -1);
+            Arrays.fill(backwardMark, -1);
+            Arrays.fill(order, -1);
+        }
+
+
+        /**
+         * Makes each vertex that has no edges in or no edges out, once
+         * such vertices are taken away, a component of its own.
+         *
+         * @return the vertices that are left
+         */
+        int[] trim(){
+            int count= forward.count;
+            int[] in= new int[count];
+            int[] out= new int[count];
+            int[] queue= new int[count];
+            int tail=0;
+            for(int v=0; v<count; v++){
+                out[v]= forward.offsets[v + 1] - forward.offsets[v];
+                in[v]= backward.offsets[v + 1] - backward.offsets[v];
+                if(in[v]==0 || out[v]==0){
+                    component[v]= components.getAndIncrement();
+                    queue[tail++]= v;
+                }
+            }
+            for(int head=0; head<tail; head++){
+                int v= queue[head];
+                for(int e=forward.offsets[v]; e<forward.offsets[v + 1]; e++){
+                    int w= forward.targets[e];
+                    if(component[w]==-1 && --in[w]==0){
+                        component[w]= components.getAndIncrement();
+                        queue[tail++]= w;
+                    }
+                }
+                for(int e=backward.offsets[v]; e<backward.offsets[v + 1]; e++){
+                    int w= backward.targets[e];
+                    if(component[w]==-1 && --out[w]==0){
+                        component[w]= components.getAndIncrement();
+                        queue[tail++]= w;
+                    }
+                }
+            }
+
+            int[] rest= new int[count - tail];
+            int size=0;
+            for(int v=0; v<count; v++){
+                if(component[v]==-1){
+                    rest[size++]= v;
+                }
+            }
+            return rest;
+        }
+
+
+        /**
+         * Recolors some vertices as a new part.
+         *
+         * @return the task that solves them, or null if there are none
+         */
+        Part newPart(int[] vertices, int size, int depth){
+            if(size==0){
+                return null;
+            }
+            int[] members= Arrays.copyOf(vertices, size);
+            int newColor= colors.getAndIncrement();
+            for(int v : members){
+                color[v]= newColor;
+            }
+            return new Part(this, members, newColor, depth);
+        }
+
+
+        /**
+         * Marks everything a pivot reaches within its part, along the
+         * given edges.
+         */
+        void reach(Rows rows, int[] mark, int pivot, int ownColor, int[] queue){
+            int tail=0;
+            mark[pivot]= ownColor;
+            queue[tail++]= pivot;
+            for(int head=0; head<tail; head++){
+                int v= queue[head];
+                for(int e=rows.offsets[v]; e<rows.offsets[v + 1]; e++){
+                    int w= rows.targets[e];
+                    if(color[w]==ownColor && mark[w]!=ownColor){
+                        mark[w]= ownColor;
+                        queue[tail++]= w;
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Solves the vertices of one color: the pivot's component is what
+     * both reaches the pivot and is reached by it, and every other
+     * component lies wholly inside what only the pivot reaches, what
+     * only reaches the pivot, or neither, so those three parts are
+     * solved on their own.
+     */
+    private static final class Part extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Split split;
+        private final int[] vertices;
+        private final int ownColor;
+        private final int depth;
+
+
+        Part(Split split, int[] vertices, int ownColor, int depth){
+            this.split= split;
+            this.vertices= vertices;
+            this.ownColor= ownColor;
+            this.depth= depth;
+        }
+
+
+        protected void compute(){
+            if(vertices.length<=GRAIN || depth>=MAX_SPLITS){
+                tarjan(split.forward, vertices, split.color, ownColor, split.order, split.low, split.next,
+                       split.component, split.components);
+                return;
+            }
+
+            int pivot= vertices[ThreadLocalRandom.current().nextInt(vertices.length)];
+            int[] queue= new int[vertices.length];
+            split.reach(split.forward, split.forwardMark, pivot, ownColor, queue);
+            split.reach(split.backward, split.backwardMark, pivot, ownColor, queue);
+
+            int[] reached= new int[vertices.length];
+            int[] reaching= new int[vertices.length];
+            int[] neither= queue;
+            int reachedSize=0;
+            int reachingSize=0;
+            int neitherSize=0;
+            int number= split.components.getAndIncrement();
+            for(int v : vertices){
+                boolean forward= split.forwardMark[v]==ownColor;
+                boolean backward= split.backwardMark[v]==ownColor;
+                if(forward && backward){
+                    split.component[v]= number;
+                }
+                else if(forward){
+                    reached[reachedSize++]= v;
+                }
+                else if(backward){
+                    reaching[reachingSize++]= v;
+                }
+                else{
+                    neither[neitherSize++]= v;
+                }
+            }
+
+            Part[] parts= {split.newPart(reached, reachedSize, depth + 1),
+                           split.newPart(reaching, reachingSize, depth + 1),
+                           split.newPart(neither, neitherSize, depth + 1)};
+            int live=0;
+            for(Part part : parts){
+                if(part!=null){
+                    parts[live++]= part;
+                }
+            }
+            invokeAll(Arrays.copyOf(parts, live));
+        }
+    }
+
+
+
+
+    // EDGES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * The edges of a graph copied into compressed sparse rows: the
+     * targets of index i are targets[offsets[i]] to
+     * targets[offsets[i+1]-1].  An iterative search has to stop part
+     * way through a vertex's edges and come back later, which
+     * forEachNeighbor cannot do, so the searches walk this copy.
+     */
+    static final class Rows implements IntConsumer {
+
+        final int count;
+        final int[] offsets;
+        final int[] targets;
+        private int filled;
+
+
+        /**
+         * @param graph the graph to copy
+         * @param forward true for the edges out of each vertex, false for the edges into it
+         */
+        Rows(IndexedGraph<?> graph, boolean forward){
+            count= graph.numVertices();
+            offsets= new int[count + 1];
+            targets= new int[graph.numEdges()];
+            for(int i=0; i<count; i++){
+                if(forward){
+                    graph.forEachNeighbor(i, this);
+                }
+                else{
+                    graph.forEachPredecessor(i, this);
+                }
+                offsets[i + 1]= filled;
+            }
+        }
+
+
+        public void accept(int to){
+            targets[filled++]= to;
+        }
+    }
+
+
+}
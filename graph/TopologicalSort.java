@@ -0,0 +1,80 @@
+package edu.union.adt.graph;
+import java.util.function.IntConsumer;
+
+/**
+ * Orders the vertices of a graph so that every edge goes from an
+ * earlier vertex to a later one, with Kahn's algorithm: repeatedly take
+ * a vertex that no remaining vertex has an edge to.  Works over int
+ * indices with a queue in an int array, so it needs no recursion and
+ * allocates nothing per vertex.
+ *
+ * For a graph with cycles, see StrongComponents: its kosaraju method
+ * numbers the components in topological order.
+ */
+public final class TopologicalSort {
+
+
+    private TopologicalSort(){
+    }
+
+
+
+    /**
+     * @param graph the graph to order
+     * @return the index of each vertex (its position in
+     * graph.getVertices()) in topological order, or null if the graph
+     * has a cycle and so has no such order
+     */
+    public static int[] order(Graph<?> graph)
+    {
+        IndexedGraph<?> indexed= BreadthFirstSearch.indexed(graph);
+        int count= indexed.numVertices();
+        Kahn kahn= new Kahn(count);
+
+        kahn.counting= true;
+        for(int v=0; v<count; v++){
+            indexed.forEachNeighbor(v, kahn);
+        }
+        kahn.counting= false;
+        for(int v=0; v<count; v++){
+            if(kahn.inDegree[v]==0){
+                kahn.queue[kahn.tail++]= v;
+            }
+        }
+        for(int head=0; head<kahn.tail; head++){
+            indexed.forEachNeighbor(kahn.queue[head], kahn);
+        }
+        return kahn.tail==count ? kahn.queue : null;
+    }
+
+
+    /**
+     * Counts the edges into each vertex, then takes them away again,
+     * queueing each vertex whose count reaches zero.
+     */
+    private static final class Kahn implements IntConsumer {
+
+        final int[] inDegree;
+        final int[] queue;
+        int tail;
+        boolean counting;
+
+
+        Kahn(int count){
+            inDegree= new int[count];
+            queue= new int[count];
+        }
+
+
+        public void accept(int to){
+            if(counting){
+                inDegree[to]++;
+            }
+            else if(--inDegree[to]==0){
+                queue[tail++]= to;
+            }
+        }
+    }
+
+
+}
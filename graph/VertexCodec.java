@@ -0,0 +1,52 @@
+package edu.union.adt.graph;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns vertices into bytes and back, so that GraphFiles can store the
+ * vertex dictionary of a graph.  decode(encode(v)) must equal v.
+ */
+public interface VertexCodec<V> {
+
+
+        /** stores String vertices as UTF-8 */
+        VertexCodec<String> STRINGS= new VertexCodec<String>() {
+            public byte[] encode(String vertex){
+                return vertex.getBytes(StandardCharsets.UTF_8);
+            }
+
+            public String decode(byte[] bytes){
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+
+        /** stores Integer vertices as four big-endian bytes */
+        VertexCodec<Integer> INTEGERS= new VertexCodec<Integer>() {
+            public byte[] encode(Integer vertex){
+                return ByteBuffer.allocate(4).putInt(vertex).array();
+            }
+
+            public Integer decode(byte[] bytes){
+                return ByteBuffer.wrap(bytes).getInt();
+            }
+        };
+
+
+
+        /**
+         * @param vertex a vertex
+         * @return the bytes that represent it
+         */
+        byte[] encode(V vertex);
+
+
+
+        /**
+         * @param bytes bytes made by encode
+         * @return the vertex they represent
+         */
+        V decode(byte[] bytes);
+
+
+}
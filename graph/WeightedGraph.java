@@ -0,0 +1,109 @@
+package edu.union.adt.graph;
+
+/**
+ * A directed graph whose edges each have a weight, a double that is
+ * finite and not negative.
+ *
+ * Everything inherited from Graph ignores the weights: addEdge(from,
+ * to) adds an edge of weight 1, pathLength still counts edges, and two
+ * graphs are equal if they have the same vertices and edges whatever
+ * their weights.  The weighted searches are weightedPathLength and
+ * getWeightedPath.
+ */
+public interface WeightedGraph<V> extends Graph<V> {
+
+
+        /**
+         * Receives the edges out of a vertex by index, with their weights.
+         */
+        interface WeightConsumer {
+
+                /**
+                 * @param to the index of the destination vertex
+                 * @param weight the weight of the edge
+                 */
+                void accept(int to, double weight);
+        }
+
+
+
+        /**
+         * Adds a directed edge with a weight, adding either vertex if
+         * it is missing.  If the edge is already there, its weight is
+         * changed.
+         *
+         * @param from the source vertex for the added edge
+         * @param to the destination vertex for the added edge
+         * @param weight the weight of the edge
+         * @throws IllegalArgumentException if the weight is negative,
+         * infinite or NaN
+         */
+        void addEdge(V from, V to, double weight);
+
+
+
+        /**
+         * @param from the source vertex
+         * @param to the destination vertex
+         * @return the weight of the edge (from, to), or
+         * Double.POSITIVE_INFINITY if there is no such edge
+         */
+        double getWeight(V from, V to);
+
+
+
+        /**
+         * Passes the index and weight of every edge out of a vertex to
+         * the action, without allocating.
+         *
+         * @param index the index of the source vertex
+         * @param action what to do with each edge
+         */
+        void forEachWeightedNeighbor(int index, WeightConsumer action);
+
+
+
+        /**
+         * Finds the total weight of a cheapest path between two
+         * vertices, with Dijkstra's algorithm.
+         *
+         * @param from the source vertex
+         * @param to the destination vertex
+         * @return the weight of a cheapest path from 'from' to 'to', 0 if
+         * they are the same vertex, or Double.POSITIVE_INFINITY if either
+         * vertex is missing or there is no path
+         */
+        double weightedPathLength(V from, V to);
+
+
+
+        /**
+         * Finds a cheapest path between two vertices, with Dijkstra's
+         * algorithm.
+         *
+         * @param from the source vertex
+         * @param to the destination vertex
+         * @return the vertices along a cheapest path from 'from' to 'to',
+         * including both ends, or null if there is no path
+         * @throws IllegalArgumentException if either vertex is missing
+         */
+        Iterable<V> getWeightedPath(V from, V to);
+
+
+
+        /**
+         * Finds a cheapest path between two vertices with an A* search,
+         * which looks first at the vertices the heuristic says are
+         * closest to 'to'.
+         *
+         * @param from the source vertex
+         * @param to the destination vertex
+         * @param heuristic a lower bound on the cost from any vertex to 'to'
+         * @return the vertices along a cheapest path from 'from' to 'to',
+         * including both ends, or null if there is no path
+         * @throws IllegalArgumentException if either vertex is missing
+         */
+        Iterable<V> getWeightedPath(V from, V to, Heuristic<V> heuristic);
+
+
+}
@@ -0,0 +1,239 @@
+package edu.union.adt.graph;
+import java.util.Arrays;
+
+/**
+ * A weighted graph stored as adjacency lists.  It is a ListGraphLM whose
+ * adjacency rows each have a parallel row of primitive doubles, so a
+ * weight costs 8 bytes per edge and reading the edges out of a vertex
+ * walks two arrays side by side, with no boxing.  Removing an edge or a
+ * vertex moves the weights along with the indices, and snapshots copy
+ * the weight rows on write just like the index rows.  The weight rows
+ * live here; ListGraphLM itself knows nothing of weights and only calls
+ * its row hooks, which this class overrides to keep the two in step.
+ */
+public class WeightedGraphLM<V> extends ListGraphLM<V> implements WeightedGraph<V> {
+
+
+    private static final int INITIAL =10;
+
+    // weights[i][k] is the weight of the edge to adjacentRow(i)[k]
+    private double[][] weights;
+
+
+
+
+    //CONSTRUCTOR
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Create an empty graph.
+     */
+    public WeightedGraphLM()
+    {
+        this(INITIAL);
+    }
+
+
+    /**
+     * Create an empty graph with room for a given number of vertices.
+     *
+     * @param newCount the number of vertices to make room for
+     */
+    public WeightedGraphLM(int newCount)
+    {
+        super(newCount);
+        weights= new double[newCount][];
+    }
+
+
+    /**
+     * Create a snapshot that shares every array with a graph.
+     *
+     * @param source the graph to take a snapshot of
+     */
+    private WeightedGraphLM(WeightedGraphLM<V> source)
+    {
+        super(source);
+        weights= source.weights;
+    }
+
+
+    /**
+     * @return a read-only graph that shares every array with this one
+     */
+    ListGraphLM<V> view()
+    {
+        return new WeightedGraphLM<V>(this);
+    }
+
+
+
+
+    //WEIGHTS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Adds a directed edge with a weight, adding either vertex if it is
+     * missing.  If the edge is already there, its weight is changed.
+     *
+     * @param from the source vertex for the added edge
+     * @param to the destination vertex for the added edge
+     * @param weight the weight of the edge
+     * @throws IllegalArgumentException if the weight is negative,
+     * infinite or NaN
+     */
+    public void addEdge(V from, V to, double weight)
+    {
+        if(!(weight>=0) || weight==Double.POSITIVE_INFINITY){
+            throw new IllegalArgumentException("Edge weights must be finite and not negative");
+        }
+        addEdge(from, to);
+        int fromSpot= indexOf(from);
+        int position= positionOf(fromSpot, indexOf(to));
+        if(weights[fromSpot][position]!=weight){
+            changingAdjacentRow(fromSpot);
+            weights[fromSpot][position]= weight;
+        }
+    }
+
+
+    /**
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the weight of the edge (from, to), or
+     * Double.POSITIVE_INFINITY if there is no such edge
+     */
+    public double getWeight(V from, V to)
+    {
+        int fromSpot= indexOf(from);
+        int toSpot= indexOf(to);
+        if(fromSpot==-1 || toSpot==-1){
+            return Double.POSITIVE_INFINITY;
+        }
+        int position= positionOf(fromSpot, toSpot);
+        if(position==-1){
+            return Double.POSITIVE_INFINITY;
+        }
+        return weights[fromSpot][position];
+    }
+
+
+    /**
+     * Passes the index and weight of every edge out of a vertex to the
+     * action, reading the two rows side by side.
+     *
+     * @param index the index of the source vertex
+     * @param action what to do with each edge
+     */
+    public void forEachWeightedNeighbor(int index, WeightConsumer action)
+    {
+        int[] row= adjacentRow(index);
+        double[] rowWeights= weights[index];
+        int count= adjacentCount(index);
+        for(int i=0; i<count; i++){
+            action.accept(row[i], rowWeights[i]);
+        }
+    }
+
+
+
+
+    //ROW HOOKS
+    //--------------------------------------------------------------------------------------------
+    // ListGraphLM calls these as its adjacency rows change; each makes the same change to the
+    // weight rows, so weights[i] always lines up with adjacentRow(i).
+
+    protected void adjacentRowsResized(int newSize)
+    {
+        weights= Arrays.copyOf(weights, newSize);
+    }
+
+
+    protected void adjacentRowsUnshared()
+    {
+        weights= weights.clone();
+    }
+
+
+    protected void adjacentRowCopied(int spot)
+    {
+        if(weights[spot]!=null){
+            weights[spot]= weights[spot].clone();
+        }
+    }
+
+
+    /**
+     * Gives a new edge weight 1, growing the weight row to match the
+     * row of indices.
+     */
+    protected void adjacentEntryAdded(int spot, int position, int length)
+    {
+        double[] row= weights[spot];
+        if(row==null || row.length<length){
+            row= row==null ? new double[length] : Arrays.copyOf(row, length);
+            weights[spot]= row;
+        }
+        row[position]= 1;
+    }
+
+
+    protected void adjacentEntryMoved(int spot, int from, int to)
+    {
+        weights[spot][to]= weights[spot][from];
+    }
+
+
+    protected void adjacentRowMoved(int from, int to)
+    {
+        weights[to]= weights[from];
+        weights[from]= null;
+    }
+
+
+
+
+    //PATHS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Finds the total weight of a cheapest path between two vertices.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the weight of a cheapest path from 'from' to 'to', or
+     * Double.POSITIVE_INFINITY if either vertex is missing or there is no path
+     */
+    public double weightedPathLength(V from, V to)
+    {
+        return WeightedSearch.pathWeight(this, from, to);
+    }
+
+
+    /**
+     * Finds a cheapest path between two vertices.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the vertices along a cheapest path from 'from' to 'to',
+     * including both ends, or null if there is no path
+     */
+    public Iterable<V> getWeightedPath(V from, V to)
+    {
+        return WeightedSearch.getPath(this, from, to, null);
+    }
+
+
+    /**
+     * Finds a cheapest path between two vertices with an A* search.
+     *
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @param heuristic a lower bound on the cost from any vertex to 'to'
+     * @return the vertices along a cheapest path from 'from' to 'to',
+     * including both ends, or null if there is no path
+     */
+    public Iterable<V> getWeightedPath(V from, V to, Heuristic<V> heuristic)
+    {
+        return WeightedSearch.getPath(this, from, to, heuristic);
+    }
+
+
+}
@@ -0,0 +1,158 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Cheapest-path searches over the int indices of a WeightedGraph:
+ * Dijkstra's algorithm, and A* when a heuristic is given.  Both keep
+ * their distances and parents in primitive arrays and their frontier in
+ * an IndexedHeap, and stop as soon as the destination leaves the heap.
+ */
+final class WeightedSearch {
+
+
+    private WeightedSearch(){
+    }
+
+
+
+    /**
+     * @param graph the graph to search
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @return the weight of a cheapest path from 'from' to 'to', or
+     * Double.POSITIVE_INFINITY if either vertex is missing or there is no path
+     */
+    static <V> double pathWeight(WeightedGraph<V> graph, V from, V to)
+    {
+        int source= graph.indexOf(from);
+        int target= graph.indexOf(to);
+        if(source==-1 || target==-1){
+            return Double.POSITIVE_INFINITY;
+        }
+        return search(graph, source, target, null).distance[target];
+    }
+
+
+
+    /**
+     * @param graph the graph to search
+     * @param from the source vertex
+     * @param to the destination vertex
+     * @param heuristic a lower bound on the cost to 'to', or null for Dijkstra's algorithm
+     * @return the vertices along a cheapest path from 'from' to 'to',
+     * including both ends, or null if there is no path
+     * @throws IllegalArgumentException if either vertex is missing
+     */
+    static <V> ArrayList<V> getPath(WeightedGraph<V> graph, V from, V to, Heuristic<V> heuristic)
+    {
+        int source= graph.indexOf(from);
+        int target= graph.indexOf(to);
+        if(source==-1 || target==-1){
+            throw new IllegalArgumentException("Vertex does not exist, cannot produce Path");
+        }
+        Search<V> search= search(graph, source, target, heuristic);
+        if(search.distance[target]==Double.POSITIVE_INFINITY){
+            return null;
+        }
+
+        // walk the parents back from the target, then put the path in order
+        ArrayList<V> answer= new ArrayList<V>();
+        for(int spot=target; spot!=source; spot= search.parent[spot]){
+            answer.add(graph.vertexAt(spot));
+        }
+        answer.add(graph.vertexAt(source));
+        Collections.reverse(answer);
+        return answer;
+    }
+
+
+
+    /**
+     * Runs Dijkstra's algorithm, or A* if there is a heuristic, from a
+     * source until the target is settled or nothing is left to reach.
+     * A vertex whose distance improves after it was settled goes back
+     * in the heap, so a heuristic that is admissible but not consistent
+     * still gives a cheapest path.
+     */
+    private static <V> Search<V> search(WeightedGraph<V> graph, int source, int target,
+                                        Heuristic<V> heuristic)
+    {
+        Search<V> search= new Search<V>(graph, target, heuristic);
+        search.distance[source]= 0;
+        search.parent[source]= source;
+        search.heap.update(source, search.estimate(source));
+        while(!search.heap.isEmpty()){
+            search.current= search.heap.poll();
+            if(search.current==target){
+                break;
+            }
+            graph.forEachWeightedNeighbor(search.current, search);
+        }
+        return search;
+    }
+
+
+    /**
+     * The state of one search.  Relaxes each edge out of 'current' as
+     * the graph passes it in.
+     */
+    private static final class Search<V> implements WeightedGraph.WeightConsumer {
+
+        final WeightedGraph<V> graph;
+        final Heuristic<V> heuristic;
+        final V goal;
+        final double[] distance;
+        final int[] parent;
+        // the heuristic's value for each index, NaN until it is first needed
+        final double[] estimates;
+        final IndexedHeap heap;
+        int current;
+
+
+        Search(WeightedGraph<V> graph, int target, Heuristic<V> heuristic){
+            int count= graph.numVertices();
+            this.graph= graph;
+            this.heuristic= heuristic;
+            goal= graph.vertexAt(target);
+            distance= new double[count];
+            parent= new int[count];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            if(heuristic==null){
+                estimates= null;
+            }
+            else{
+                estimates= new double[count];
+                Arrays.fill(estimates, Double.NaN);
+            }
+            heap= new IndexedHeap(count);
+        }
+
+
+        /**
+         * @return the heuristic's guess at the cost from an index to the goal, or 0 without one
+         */
+        double estimate(int index){
+            if(estimates==null){
+                return 0;
+            }
+            if(Double.isNaN(estimates[index])){
+                estimates[index]= heuristic.estimate(graph.vertexAt(index), goal);
+            }
+            return estimates[index];
+        }
+
+
+        public void accept(int to, double weight){
+            double through= distance[current] + weight;
+            if(through<distance[to]){
+                distance[to]= through;
+                parent[to]= current;
+                heap.update(to, through + estimate(to));
+            }
+        }
+    }
+
+
+}
@@ -0,0 +1,79 @@
+package edu.union.adt.graph;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times loading a whole edge list through a GraphBuilder, to set
+ * against MutationBenchmark's addEdge loop and bulkLoad.  Each
+ * measurement collects every edge of the shape in a new builder and
+ * builds once:
+ * <ul>
+ * <li>build: the mutable graph the builder picks for the vertex count
+ * and density, which is ArrayGraphLM or ListGraphLM.
+ * <li>buildFrozen: a CsrGraphLM.
+ * </ul>
+ * Like bulkLoad, and unlike addEdge, these pay for adding the vertices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations= 5)
+@Measurement(iterations= 10)
+@Fork(1)
+public class BuilderBenchmark {
+
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"8"})
+    public int degree;
+
+    private List<Map.Entry<Integer, Integer>> pairs;
+
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        int[][] edges= GraphShapes.edges(shape, size, degree, new Random(QueryBenchmark.SEED));
+        pairs= new ArrayList<Map.Entry<Integer, Integer>>(edges[0].length);
+        for(int i=0; i<edges[0].length; i++){
+            pairs.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(edges[0][i], edges[1][i]));
+        }
+    }
+
+
+    @Benchmark
+    public Graph<Integer> build()
+    {
+        return new GraphBuilder<Integer>().addEdges(pairs).build();
+    }
+
+
+    @Benchmark
+    public Graph<Integer> buildFrozen()
+    {
+        return new GraphBuilder<Integer>().addEdges(pairs).buildFrozen();
+    }
+
+
+}
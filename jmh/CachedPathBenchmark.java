@@ -0,0 +1,94 @@
+package edu.union.adt.graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets pathLength on a graph made by GraphFactory with a path cache
+ * against pathLength on the same graph without one.  Queries come from
+ * only CACHED_SOURCES sources, so after the warm-up every cached query
+ * is a hit, while every uncached one is a fresh search.
+ *
+ * The factory picks the implementation from the shape and size, so a
+ * trial whose 'graph' is not the one picked fails in setup with a
+ * message saying so, and JMH goes on to the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+public class CachedPathBenchmark {
+
+
+    static final int CACHED_SOURCES =8;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"ArrayGraphLM", "ListGraphLM", "CsrGraphLM"})
+    public String graph;
+
+    @Param({"8"})
+    public int degree;
+
+    private Graph<Integer> loaded;
+    private Graph<Integer> cached;
+    private final int[] from= new int[QueryBenchmark.PAIRS];
+    private final int[] to= new int[QueryBenchmark.PAIRS];
+    private int next;
+
+
+    @Setup(Level.Trial)
+    public void load()
+    {
+        GraphShapes.Kind kind= GraphShapes.trialKind(graph, size, false);
+        Random random= new Random(QueryBenchmark.SEED);
+        int[][] edges= GraphShapes.edges(shape, size, degree, random);
+        loaded= kind.load(size, edges[0], edges[1]);
+        GraphOptions options= new GraphOptions().setExpectedVertices(size).setPathCacheCapacity(CACHED_SOURCES)
+                                                .setExpectedDensity(loaded.numEdges() / ((double) size * size));
+        cached= GraphFactory.createGraph(loaded, options.setMutable(kind.mutable));
+        if(cached.getClass()!=loaded.getClass()){
+            throw new IllegalStateException("GraphFactory picks " + cached.getClass().getSimpleName()
+                                            + ", not " + graph + ", for this shape and size");
+        }
+        for(int i=0; i<QueryBenchmark.PAIRS; i++){
+            from[i]= random.nextInt(size);
+            to[i]= random.nextInt(size);
+        }
+    }
+
+
+    @Benchmark
+    public int cachedPath()
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        return cached.pathLength(from[i % CACHED_SOURCES], to[i]);
+    }
+
+
+    @Benchmark
+    public int uncachedPath()
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        return loaded.pathLength(from[i % CACHED_SOURCES], to[i]);
+    }
+
+
+}
@@ -0,0 +1,144 @@
+package edu.union.adt.graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of one ConcurrentGraphLM shared by query and ingest
+ * threads: three threads call hasEdge and adjacentTo while one adds and
+ * removes edges, and JMH reports the operations per microsecond of
+ * each.  A second group adds vertex changes to the writer, which take
+ * the write lock and so stall the optimistic readers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+public class ConcurrentThroughputBenchmark {
+
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"random", "powerlaw"})
+    public String shape;
+
+    @Param({"8"})
+    public int degree;
+
+    private Graph<Integer> shared;
+    private final int[] from= new int[QueryBenchmark.PAIRS];
+    private final int[] to= new int[QueryBenchmark.PAIRS];
+
+
+    @Setup(Level.Trial)
+    public void load()
+    {
+        Random random= new Random(QueryBenchmark.SEED);
+        int[][] edges= GraphShapes.edges(shape, size, degree, random);
+        shared= GraphShapes.kind("ConcurrentGraphLM").load(size, edges[0], edges[1]);
+        for(int i=0; i<QueryBenchmark.PAIRS; i++){
+            from[i]= random.nextInt(size);
+            to[i]= random.nextInt(size);
+        }
+    }
+
+
+    /**
+     * Where each thread is in the list of pairs.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+
+        @Setup(Level.Trial)
+        public void spread()
+        {
+            next= (int) (Thread.currentThread().getId() * 7919);
+        }
+
+
+        int nextPair()
+        {
+            return next++ & (QueryBenchmark.PAIRS - 1);
+        }
+    }
+
+
+
+
+    // EDGE CHANGES
+    //--------------------------------------------------------------------------------------------
+    @Benchmark
+    @Group("edges")
+    @GroupThreads(3)
+    public boolean query(Cursor cursor)
+    {
+        int i= cursor.nextPair();
+        return shared.hasEdge(from[i], to[i]) || shared.degree(to[i])>0;
+    }
+
+
+    @Benchmark
+    @Group("edges")
+    @GroupThreads(1)
+    public void ingest(Cursor cursor)
+    {
+        int i= cursor.nextPair();
+        if((i & 1)==0){
+            shared.addEdge(from[i], to[i]);
+        }
+        else{
+            shared.removeEdge(to[i], from[i]);
+        }
+    }
+
+
+
+
+    // VERTEX CHANGES
+    //--------------------------------------------------------------------------------------------
+    @Benchmark
+    @Group("vertices")
+    @GroupThreads(3)
+    public boolean queryDuringVertexChanges(Cursor cursor)
+    {
+        return query(cursor);
+    }
+
+
+    @Benchmark
+    @Group("vertices")
+    @GroupThreads(1)
+    public void ingestVertices(Cursor cursor)
+    {
+        int i= cursor.nextPair();
+        // vertices past 'size' come and go; the loaded ones stay
+        int vertex= size + (i & 63);
+        if((i & 1)==0){
+            shared.addEdge(from[i], vertex);
+        }
+        else{
+            shared.removeVertex(vertex);
+        }
+    }
+
+
+}
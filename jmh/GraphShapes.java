@@ -0,0 +1,246 @@
+package edu.union.adt.graph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The graph implementations and edge lists the benchmarks share, so
+ * that every benchmark measures the same graphs.
+ *
+ * Shapes:
+ * <ul>
+ * <li>random: every edge joins two uniformly chosen vertices.
+ * <li>powerlaw: edge ends are drawn so that the chance of picking the
+ * vertex with rank k falls off as 1/k, giving a few huge hubs.
+ * <li>grid: a square grid with edges both ways between neighbors.
+ * </ul>
+ *
+ * Implementations that cannot be changed have nothing to measure in
+ * the mutating benchmarks, and the bit matrix graphs cannot hold the
+ * largest sizes; see fits.
+ */
+final class GraphShapes {
+
+
+    private GraphShapes(){
+    }
+
+
+
+
+    // IMPLEMENTATIONS
+    //--------------------------------------------------------------------------------------------
+    /**
+     * One graph implementation under test.
+     */
+    abstract static class Kind {
+
+        final String name;
+        final boolean mutable;
+        final boolean matrix;
+
+
+        Kind(String name, boolean mutable, boolean matrix){
+            this.name= name;
+            this.mutable= mutable;
+            this.matrix= matrix;
+        }
+
+
+        /**
+         * @return an empty graph with room for 'size' vertices
+         */
+        abstract Graph<Integer> empty(int size);
+
+
+        /**
+         * @return a graph holding the vertices 0 to size-1 and the given edges
+         */
+        Graph<Integer> load(int size, int[] from, int[] to){
+            Graph<Integer> graph= empty(size);
+            for(int i=0; i<size; i++){
+                graph.addVertex(i);
+            }
+            for(int i=0; i<from.length; i++){
+                graph.addEdge(from[i], to[i]);
+            }
+            return graph;
+        }
+    }
+
+
+    /**
+     * @return every implementation
+     */
+    static List<Kind> kinds()
+    {
+        List<Kind> kinds= new ArrayList<Kind>();
+        kinds.add(new Kind("ArrayGraphLM", true, true) {
+            Graph<Integer> empty(int size){
+                return new ArrayGraphLM<Integer>(Math.max(size, 1));
+            }
+        });
+        kinds.add(new Kind("ListGraphLM", true, false) {
+            Graph<Integer> empty(int size){
+                return new ListGraphLM<Integer>(size);
+            }
+        });
+        kinds.add(new Kind("ConcurrentGraphLM", true, true) {
+            Graph<Integer> empty(int size){
+                return new ConcurrentGraphLM<Integer>(size);
+            }
+        });
+        kinds.add(new Kind("WeightedGraphLM", true, false) {
+            Graph<Integer> empty(int size){
+                return new WeightedGraphLM<Integer>(size);
+            }
+
+            Graph<Integer> load(int size, int[] from, int[] to){
+                WeightedGraphLM<Integer> graph= new WeightedGraphLM<Integer>(size);
+                for(int i=0; i<size; i++){
+                    graph.addVertex(i);
+                }
+                for(int i=0; i<from.length; i++){
+                    graph.addEdge(from[i], to[i], 1 + (from[i] * 31 + to[i] & 7));
+                }
+                return graph;
+            }
+        });
+        kinds.add(new Kind("CsrGraphLM", false, false) {
+            Graph<Integer> empty(int size){
+                throw new UnsupportedOperationException("CsrGraphLM is immutable");
+            }
+
+            Graph<Integer> load(int size, int[] from, int[] to){
+                GraphBuilder<Integer> builder= new GraphBuilder<Integer>();
+                for(int i=0; i<size; i++){
+                    builder.addVertex(i);
+                }
+                for(int i=0; i<from.length; i++){
+                    builder.addEdge(from[i], to[i]);
+                }
+                return builder.buildFrozen();
+            }
+        });
+        return kinds;
+    }
+
+
+    /**
+     * @param name the simple class name of an implementation
+     * @return that implementation
+     */
+    static Kind kind(String name)
+    {
+        for(Kind kind : kinds()){
+            if(kind.name.equals(name)){
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown graph " + name);
+    }
+
+
+    /**
+     * @param kind an implementation
+     * @param size a number of vertices
+     * @return whether a graph of that size fits in the heap; the bit
+     * matrix graphs keep two matrices of size*size bits each, and are
+     * allowed half the heap for them
+     */
+    static boolean fits(Kind kind, int size)
+    {
+        return !kind.matrix || (double) size * size / 4 <= Runtime.getRuntime().maxMemory() / 2;
+    }
+
+
+    /**
+     * Looks up an implementation for a trial, failing the trial's setup
+     * with a message if it cannot take part.
+     *
+     * @param name the simple class name of an implementation
+     * @param size the number of vertices the trial loads
+     * @param changing whether the trial changes the graph
+     * @return that implementation
+     * @throws IllegalStateException if the graph is too big for the
+     * heap, or cannot be changed and has to be
+     */
+    static Kind trialKind(String name, int size, boolean changing)
+    {
+        Kind kind= kind(name);
+        if(changing && !kind.mutable){
+            throw new IllegalStateException(name + " cannot be changed");
+        }
+        if(!fits(kind, size)){
+            throw new IllegalStateException(name + " cannot hold " + size + " vertices in this heap");
+        }
+        return kind;
+    }
+
+
+
+
+    // SHAPES
+    //--------------------------------------------------------------------------------------------
+    /**
+     * Makes the edges of a graph of a given shape.
+     *
+     * @param shape random, powerlaw or grid
+     * @param size the number of vertices
+     * @param degree the average number of edges out of a vertex, for the random shapes
+     * @param random the source of randomness
+     * @return the sources and destinations of the edges, as two arrays
+     */
+    static int[][] edges(String shape, int size, int degree, Random random)
+    {
+        if(shape.equals("grid")){
+            int side= (int) Math.ceil(Math.sqrt(size));
+            int[] from= new int[4 * size];
+            int[] to= new int[4 * size];
+            int count=0;
+            for(int v=0; v<size; v++){
+                int right= v + 1;
+                int down= v + side;
+                if(v % side!=side - 1 && right<size){
+                    from[count]= v;
+                    to[count++]= right;
+                    from[count]= right;
+                    to[count++]= v;
+                }
+                if(down<size){
+                    from[count]= v;
+                    to[count++]= down;
+                    from[count]= down;
+                    to[count++]= v;
+                }
+            }
+            return new int[][] {Arrays.copyOf(from, count), Arrays.copyOf(to, count)};
+        }
+
+        boolean skewed= shape.equals("powerlaw");
+        if(!skewed && !shape.equals("random")){
+            throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        int count= (int) Math.min(Integer.MAX_VALUE - 8, (long) size * degree);
+        int[] from= new int[count];
+        int[] to= new int[count];
+        for(int i=0; i<count; i++){
+            from[i]= skewed ? skewedPick(random, size) : random.nextInt(size);
+            to[i]= skewed ? skewedPick(random, size) : random.nextInt(size);
+        }
+        return new int[][] {from, to};
+    }
+
+
+    /**
+     * @return a vertex between 0 and size-1, vertex k picked with chance proportional to 1/(k+1)
+     */
+    private static int skewedPick(Random random, int size)
+    {
+        int pick= (int) Math.pow(size + 1.0, random.nextDouble()) - 1;
+        return Math.min(pick, size - 1);
+    }
+
+
+}
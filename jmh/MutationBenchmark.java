@@ -0,0 +1,148 @@
+package edu.union.adt.graph;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the operations that change a graph: addVertex, addEdge and
+ * removeVertex.  A change cannot be repeated on the same graph, so
+ * each measurement is one batch on a freshly made graph, timed once:
+ * <ul>
+ * <li>addVertex: adds 'size' vertices to an empty graph.
+ * <li>addEdge: adds every edge of the shape to a graph holding just
+ * the vertices.
+ * <li>bulkLoad: adds every edge of the shape to an empty graph with one
+ * addEdges call, which adds the vertices too.
+ * <li>removeVertex: removes up to 1000 random vertices (a tenth of the
+ * graph if that is fewer) from a loaded graph.
+ * </ul>
+ * Divide by the batch size for the time per call.  The immutable
+ * CsrGraphLM has nothing to measure here; BuilderBenchmark sets
+ * GraphBuilder against bulkLoad.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations= 5)
+@Measurement(iterations= 10)
+@Fork(1)
+public class MutationBenchmark {
+
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"ArrayGraphLM", "ListGraphLM", "ConcurrentGraphLM", "WeightedGraphLM"})
+    public String graph;
+
+    @Param({"8"})
+    public int degree;
+
+    private GraphShapes.Kind kind;
+    private int[][] edges;
+    private List<Map.Entry<Integer, Integer>> pairs;
+    private int[] removals;
+    // the graph the next batch changes, remade before every batch
+    private Graph<Integer> empty;
+    private Graph<Integer> bulk;
+    private Graph<Integer> vertices;
+    private Graph<Integer> loaded;
+
+
+
+
+    // SETUP
+    //--------------------------------------------------------------------------------------------
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        kind= GraphShapes.trialKind(graph, size, true);
+        Random random= new Random(QueryBenchmark.SEED);
+        edges= GraphShapes.edges(shape, size, degree, random);
+        pairs= new ArrayList<Map.Entry<Integer, Integer>>(edges[0].length);
+        for(int i=0; i<edges[0].length; i++){
+            pairs.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(edges[0][i], edges[1][i]));
+        }
+        removals= new int[Math.max(1, Math.min(1000, size / 10))];
+        for(int i=0; i<removals.length; i++){
+            removals[i]= random.nextInt(size);
+        }
+    }
+
+
+    @Setup(Level.Iteration)
+    public void remake()
+    {
+        empty= kind.empty(1);
+        bulk= kind.empty(1);
+        vertices= kind.empty(size);
+        for(int i=0; i<size; i++){
+            vertices.addVertex(i);
+        }
+        loaded= kind.load(size, edges[0], edges[1]);
+    }
+
+
+
+
+    // BENCHMARKS
+    //--------------------------------------------------------------------------------------------
+    @Benchmark
+    public Graph<Integer> addVertex()
+    {
+        for(int i=0; i<size; i++){
+            empty.addVertex(i);
+        }
+        return empty;
+    }
+
+
+    @Benchmark
+    public Graph<Integer> addEdge()
+    {
+        int[] from= edges[0];
+        int[] to= edges[1];
+        for(int i=0; i<from.length; i++){
+            vertices.addEdge(from[i], to[i]);
+        }
+        return vertices;
+    }
+
+
+    @Benchmark
+    public Graph<Integer> bulkLoad()
+    {
+        bulk.addEdges(pairs);
+        return bulk;
+    }
+
+
+    @Benchmark
+    public Graph<Integer> removeVertex()
+    {
+        for(int removal : removals){
+            loaded.removeVertex(removal);
+        }
+        return loaded;
+    }
+
+
+}
@@ -0,0 +1,172 @@
+package edu.union.adt.graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Times the read-only Graph operations: contains, hasEdge, adjacentTo,
+ * degree, numEdges, pathLength, getPath and equals.  Each trial loads one graph
+ * of the given shape, size and implementation from GraphShapes, and
+ * each call queries the next of a fixed list of random vertex pairs.
+ *
+ * scanLookup finds a vertex by walking getVertices() and calling
+ * equals, as lookups did before vertices were indexed, to set against
+ * contains.
+ *
+ * The bit matrix graphs cannot hold the largest sizes; their trials
+ * fail in setup with a message saying so, and JMH goes on to the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+public class QueryBenchmark {
+
+
+    static final long SEED =42;
+    // a power of two, so the next pair is found with a mask
+    static final int PAIRS =1 << 16;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"ArrayGraphLM", "ListGraphLM", "ConcurrentGraphLM", "WeightedGraphLM", "CsrGraphLM"})
+    public String graph;
+
+    @Param({"8"})
+    public int degree;
+
+    private Graph<Integer> loaded;
+    private Graph<Integer> copy;
+    private final int[] from= new int[PAIRS];
+    private final int[] to= new int[PAIRS];
+    private int next;
+
+
+
+
+    // SETUP
+    //--------------------------------------------------------------------------------------------
+    @Setup(Level.Trial)
+    public void load()
+    {
+        GraphShapes.Kind kind= GraphShapes.trialKind(graph, size, false);
+        Random random= new Random(SEED);
+        int[][] edges= GraphShapes.edges(shape, size, degree, random);
+        loaded= kind.load(size, edges[0], edges[1]);
+        copy= kind.load(size, edges[0], edges[1]);
+        for(int i=0; i<PAIRS; i++){
+            from[i]= random.nextInt(size);
+            to[i]= random.nextInt(size);
+        }
+    }
+
+
+    /**
+     * @return the position of the next pair to query
+     */
+    private int nextPair()
+    {
+        return next++ & (PAIRS - 1);
+    }
+
+
+
+
+    // BENCHMARKS
+    //--------------------------------------------------------------------------------------------
+    @Benchmark
+    public boolean contains()
+    {
+        int i= nextPair();
+        // every other lookup misses
+        return loaded.contains((i & 1)==0 ? from[i] : -1 - from[i]);
+    }
+
+
+    @Benchmark
+    public boolean scanLookup()
+    {
+        int i= nextPair();
+        Integer wanted= (i & 1)==0 ? from[i] : -1 - from[i];
+        for(Integer vertex : loaded.getVertices()){
+            if(vertex.equals(wanted)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    @Benchmark
+    public boolean hasEdge()
+    {
+        int i= nextPair();
+        return loaded.hasEdge(from[i], to[i]);
+    }
+
+
+    @Benchmark
+    public void adjacentTo(Blackhole sink)
+    {
+        for(Integer vertex : loaded.adjacentTo(from[nextPair()])){
+            sink.consume(vertex);
+        }
+    }
+
+
+    @Benchmark
+    public int degree()
+    {
+        return loaded.degree(from[nextPair()]);
+    }
+
+
+    @Benchmark
+    public int numEdges()
+    {
+        return loaded.numEdges();
+    }
+
+
+    @Benchmark
+    public int pathLength()
+    {
+        int i= nextPair();
+        return loaded.pathLength(from[i], to[i]);
+    }
+
+
+    @Benchmark
+    public Iterable<Integer> getPath()
+    {
+        int i= nextPair();
+        return loaded.getPath(from[i], to[i]);
+    }
+
+
+    @Benchmark
+    public boolean equals()
+    {
+        return loaded.equals(copy);
+    }
+
+
+}
@@ -0,0 +1,107 @@
+package edu.union.adt.graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets the bidirectional search that hasPath, pathLength and getPath
+ * use against a breadth-first search from the source alone, which stops
+ * once it reaches the target, on a ListGraphLM.  Besides the time per
+ * query, JMH prints two counters for each: 'reached', the vertices the
+ * searches reached, and 'searches'; reached / searches is the average
+ * number of vertices one query touches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+public class SearchVisitsBenchmark {
+
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"8"})
+    public int degree;
+
+    // vertex i is at index i, since the vertices were added in order
+    private IndexedGraph<Integer> loaded;
+    private final int[] from= new int[QueryBenchmark.PAIRS];
+    private final int[] to= new int[QueryBenchmark.PAIRS];
+    private int next;
+
+
+    @Setup(Level.Trial)
+    public void load()
+    {
+        Random random= new Random(QueryBenchmark.SEED);
+        int[][] edges= GraphShapes.edges(shape, size, degree, random);
+        loaded= (IndexedGraph<Integer>) GraphShapes.kind("ListGraphLM").load(size, edges[0], edges[1]);
+        for(int i=0; i<QueryBenchmark.PAIRS; i++){
+            from[i]= random.nextInt(size);
+            to[i]= random.nextInt(size);
+        }
+    }
+
+
+    /**
+     * The counts JMH prints beside each result, cleared every iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Visits {
+
+        public long reached;
+        public long searches;
+
+
+        @Setup(Level.Iteration)
+        public void clear()
+        {
+            reached= 0;
+            searches= 0;
+        }
+    }
+
+
+    @Benchmark
+    public int oneWay(Visits visits)
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        int count= GraphSearch.visitedOneWay(loaded, from[i], to[i]);
+        visits.reached+= count;
+        visits.searches++;
+        return count;
+    }
+
+
+    @Benchmark
+    public int bidirectional(Visits visits)
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        int[] reached= new int[1];
+        GraphSearch.shortestPath(loaded, from[i], to[i], reached);
+        visits.reached+= reached[0];
+        visits.searches++;
+        return reached[0];
+    }
+
+
+}
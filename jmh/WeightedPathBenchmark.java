@@ -0,0 +1,75 @@
+package edu.union.adt.graph;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets Dijkstra's weightedPathLength against the breadth-first
+ * pathLength on the same WeightedGraphLM, whose edges get weights from
+ * 1 to 8 as GraphShapes loads them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations= 3, time= 1)
+@Measurement(iterations= 5, time= 1)
+@Fork(1)
+public class WeightedPathBenchmark {
+
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "powerlaw", "grid"})
+    public String shape;
+
+    @Param({"8"})
+    public int degree;
+
+    private WeightedGraph<Integer> loaded;
+    private final int[] from= new int[QueryBenchmark.PAIRS];
+    private final int[] to= new int[QueryBenchmark.PAIRS];
+    private int next;
+
+
+    @Setup(Level.Trial)
+    public void load()
+    {
+        Random random= new Random(QueryBenchmark.SEED);
+        int[][] edges= GraphShapes.edges(shape, size, degree, random);
+        loaded= (WeightedGraph<Integer>) GraphShapes.kind("WeightedGraphLM").load(size, edges[0], edges[1]);
+        for(int i=0; i<QueryBenchmark.PAIRS; i++){
+            from[i]= random.nextInt(size);
+            to[i]= random.nextInt(size);
+        }
+    }
+
+
+    @Benchmark
+    public double weightedPathLength()
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        return loaded.weightedPathLength(from[i], to[i]);
+    }
+
+
+    @Benchmark
+    public int pathLength()
+    {
+        int i= next++ & (QueryBenchmark.PAIRS - 1);
+        return loaded.pathLength(from[i], to[i]);
+    }
+
+
+}
@@ -0,0 +1,194 @@
+package edu.union.adt.graph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks that addEdges, which sorts a batch and writes each source's
+ * row once, leaves a graph exactly as a loop of addEdge calls would:
+ * the same vertices at the same indices, the same edges seen from both
+ * ends, and the same hash.
+ */
+@RunWith(Parameterized.class)
+public class AddEdgesTest {
+
+
+    private final String name;
+
+
+    public AddEdgesTest(String name)
+    {
+        this.name= name;
+    }
+
+
+    @Parameters(name= "{0}")
+    public static List<Object[]> implementations()
+    {
+        return Arrays.asList(new Object[][] {{"ArrayGraphLM"}, {"ListGraphLM"}, {"WeightedGraphLM"},
+                                             {"ConcurrentGraphLM"}});
+    }
+
+
+    /**
+     * @return an empty graph of the implementation under test
+     */
+    private Graph<Integer> empty()
+    {
+        if(name.equals("ArrayGraphLM")){
+            return new ArrayGraphLM<Integer>();
+        }
+        if(name.equals("ListGraphLM")){
+            return new ListGraphLM<Integer>();
+        }
+        if(name.equals("WeightedGraphLM")){
+            return new WeightedGraphLM<Integer>();
+        }
+        return new ConcurrentGraphLM<Integer>();
+    }
+
+
+    private static Map.Entry<Integer, Integer> pair(Integer from, Integer to)
+    {
+        return new AbstractMap.SimpleEntry<Integer, Integer>(from, to);
+    }
+
+
+    /**
+     * @return 'count' random pairs over 0 to range-1, with repeats and self loops
+     */
+    private static List<Map.Entry<Integer, Integer>> randomPairs(Random random, int count, int range)
+    {
+        List<Map.Entry<Integer, Integer>> pairs= new ArrayList<Map.Entry<Integer, Integer>>();
+        for(int i=0; i<count; i++){
+            pairs.add(pair(random.nextInt(range), random.nextInt(range)));
+        }
+        return pairs;
+    }
+
+
+    /**
+     * Checks that two graphs hold the same vertices at the same indices
+     * and the same edges, looked at from both ends.
+     */
+    private static void assertSameGraph(Graph<Integer> expected, Graph<Integer> actual)
+    {
+        assertEquals(expected.numVertices(), actual.numVertices());
+        assertEquals(expected.numEdges(), actual.numEdges());
+        for(int i=0; i<expected.numVertices(); i++){
+            Integer vertex= expected.vertexAt(i);
+            assertEquals("vertex at " + i, vertex, actual.vertexAt(i));
+            assertEquals("degree of " + vertex, expected.degree(vertex), actual.degree(vertex));
+            assertEquals("in-degree of " + vertex, expected.inDegree(vertex), actual.inDegree(vertex));
+            for(Integer before : actual.predecessorsOf(vertex)){
+                assertTrue(before + "->" + vertex, expected.hasEdge(before, vertex));
+            }
+        }
+        assertTrue(actual.equals(expected));
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+
+
+
+    // MATCHING ADDEDGE
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void matchesALoopOfAddEdge()
+    {
+        Random random= new Random(5);
+        Graph<Integer> bulk= empty();
+        Graph<Integer> single= empty();
+        // each batch mixes edges already there, repeats within the batch and new vertices
+        for(int batch=0; batch<30; batch++){
+            List<Map.Entry<Integer, Integer>> pairs= randomPairs(random, 1 + random.nextInt(200), 20 + batch * 10);
+            bulk.addEdges(pairs);
+            for(Map.Entry<Integer, Integer> pair : pairs){
+                single.addEdge(pair.getKey(), pair.getValue());
+            }
+            assertSameGraph(single, bulk);
+            if(batch % 5==4){
+                Integer gone= random.nextInt(20);
+                bulk.removeVertex(gone);
+                single.removeVertex(gone);
+            }
+        }
+    }
+
+
+    @Test
+    public void addsNothingForAnEmptyBatch()
+    {
+        Graph<Integer> graph= empty();
+        graph.addEdge(1, 2);
+        graph.addEdges(new ArrayList<Map.Entry<Integer, Integer>>());
+        graph.addEdges(Arrays.asList(pair(1, 2), pair(1, 2)));
+        assertEquals(2, graph.numVertices());
+        assertEquals(1, graph.numEdges());
+    }
+
+
+    @Test
+    public void givesNewEdgesTheDefaultWeight()
+    {
+        if(!name.equals("WeightedGraphLM")){
+            return;
+        }
+        WeightedGraphLM<Integer> graph= new WeightedGraphLM<Integer>();
+        graph.addEdge(0, 1, 7);
+        graph.addEdges(Arrays.asList(pair(0, 2), pair(0, 1), pair(0, 3), pair(2, 0)));
+        assertEquals(7, graph.getWeight(0, 1), 0);
+        assertEquals(1, graph.getWeight(0, 2), 0);
+        assertEquals(1, graph.getWeight(0, 3), 0);
+        assertEquals(1, graph.getWeight(2, 0), 0);
+    }
+
+
+
+
+    // LEAVING THE GRAPH ALONE
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void rejectsANullVertexBeforeChangingAnything()
+    {
+        Graph<Integer> graph= empty();
+        graph.addEdge(1, 2);
+        Graph<Integer> before= new ListGraphLM<Integer>();
+        before.addAll(graph);
+        try{
+            graph.addEdges(Arrays.asList(pair(2, 3), pair(4, 1), pair(5, null)));
+            fail("a null vertex was accepted");
+        }
+        catch(IllegalArgumentException expected){
+        }
+        assertSameGraph(before, graph);
+        assertFalse(graph.contains(3));
+    }
+
+
+    @Test
+    public void leavesEarlierSnapshotsAlone()
+    {
+        Random random= new Random(9);
+        Graph<Integer> graph= empty();
+        graph.addEdges(randomPairs(random, 300, 60));
+        Graph<Integer> snapshot= graph.snapshot();
+        Graph<Integer> copy= new ListGraphLM<Integer>();
+        copy.addAll(snapshot);
+        graph.addEdges(randomPairs(random, 300, 90));
+        assertSameGraph(copy, snapshot);
+    }
+
+
+}
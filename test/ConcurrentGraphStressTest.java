@@ -0,0 +1,490 @@
+package edu.union.adt.graph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Runs many threads against one ConcurrentGraphLM at once and then
+ * checks that the graph agrees with itself: the matrix with its
+ * transpose, the edge count and structural hash with the edges, and the
+ * result of every change that could not have been undone by another
+ * thread.
+ */
+public class ConcurrentGraphStressTest {
+
+
+    private static final int THREADS =8;
+
+    private final ExecutorService pool= Executors.newCachedThreadPool();
+
+
+    @After
+    public void stopPool() throws InterruptedException
+    {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+
+    /**
+     * Starts every task at once and waits for them all, rethrowing the
+     * first failure.
+     */
+    private void runAll(List<Callable<Void>> tasks) throws Exception
+    {
+        final CountDownLatch start= new CountDownLatch(1);
+        List<Future<Void>> running= new ArrayList<Future<Void>>();
+        for(final Callable<Void> task : tasks){
+            running.add(pool.submit(new Callable<Void>() {
+                public Void call() throws Exception{
+                    start.await();
+                    return task.call();
+                }
+            }));
+        }
+        start.countDown();
+        for(Future<Void> future : running){
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+
+    /**
+     * Checks that a graph agrees with itself and with a copy made one
+     * vertex and edge at a time.
+     */
+    private static void assertConsistent(Graph<Integer> graph)
+    {
+        int edges=0;
+        int inEdges=0;
+        Graph<Integer> copy= new ListGraphLM<Integer>();
+        for(Integer vertex : graph.getVertices()){
+            copy.addVertex(vertex);
+        }
+        for(Integer from : graph.getVertices()){
+            int degree=0;
+            for(Integer to : graph.adjacentTo(from)){
+                assertTrue(from + "->" + to, graph.hasEdge(from, to));
+                copy.addEdge(from, to);
+                degree++;
+            }
+            assertEquals("degree of " + from, degree, graph.degree(from));
+            int inDegree=0;
+            for(Integer before : graph.predecessorsOf(from)){
+                assertTrue(before + "->" + from, graph.hasEdge(before, from));
+                inDegree++;
+            }
+            assertEquals("in-degree of " + from, inDegree, graph.inDegree(from));
+            edges+= degree;
+            inEdges+= inDegree;
+        }
+        assertEquals(edges, graph.numEdges());
+        assertEquals(edges, inEdges);
+        assertTrue(graph.equals(copy));
+        assertEquals(copy.hashCode(), graph.hashCode());
+    }
+
+
+    /**
+     * @param queried the vertices 0 to queried-1 are read; none of them may ever be removed
+     * @param bound every vertex of the graph is below this
+     * @return a task that reads the graph until told to stop
+     */
+    private static Callable<Void> reader(final Graph<Integer> graph, final int queried, final int bound,
+                                         final long seed, final AtomicBoolean stop)
+    {
+        return new Callable<Void>() {
+            public Void call(){
+                Random random= new Random(seed);
+                while(!stop.get()){
+                    int from= random.nextInt(queried);
+                    int to= random.nextInt(queried);
+                    graph.hasEdge(from, to);
+                    graph.degree(from);
+                    for(Integer vertex : graph.adjacentTo(from)){
+                        assertTrue(vertex>=0 && vertex<bound);
+                    }
+                    graph.pathLength(from, to);
+                    Iterable<Integer> path= graph.getPath(from, to);
+                    if(path!=null){
+                        assertEquals(Integer.valueOf(from), path.iterator().next());
+                    }
+                    if(random.nextInt(50)==0){
+                        // the graph changes underneath, so these only have to finish
+                        graph.toString();
+                        graph.equals(graph.snapshot());
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+
+
+
+    // EDGES
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void everyThreadsLastEdgeChangeLands() throws Exception
+    {
+        final int count= 200;
+        final ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>(count);
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        // thread t owns the edges whose number is t modulo THREADS, so it alone decides their fate
+        final boolean[][] expected= new boolean[count][count];
+        final AtomicBoolean stop= new AtomicBoolean();
+        List<Callable<Void>> writers= new ArrayList<Callable<Void>>();
+        for(int t=0; t<THREADS; t++){
+            final int thread= t;
+            writers.add(new Callable<Void>() {
+                public Void call(){
+                    Random random= new Random(thread);
+                    for(int i=0; i<20000; i++){
+                        int from= random.nextInt(count);
+                        int to= random.nextInt(count);
+                        if((from * count + to) % THREADS!=thread){
+                            continue;
+                        }
+                        if(random.nextInt(3)==0){
+                            graph.removeEdge(from, to);
+                            expected[from][to]= false;
+                        }
+                        else{
+                            graph.addEdge(from, to);
+                            expected[from][to]= true;
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        List<Future<Void>> reading= new ArrayList<Future<Void>>();
+        for(int t=0; t<2; t++){
+            reading.add(pool.submit(reader(graph, count, count, t, stop)));
+        }
+        runAll(writers);
+        stop.set(true);
+        for(Future<Void> future : reading){
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        int edges=0;
+        for(int from=0; from<count; from++){
+            for(int to=0; to<count; to++){
+                assertEquals(from + "->" + to, expected[from][to], graph.hasEdge(from, to));
+                edges+= expected[from][to] ? 1 : 0;
+            }
+        }
+        assertEquals(edges, graph.numEdges());
+        assertConsistent(graph);
+    }
+
+
+
+
+    // VERTICES
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void vertexChangesRaceWithEdgeChanges() throws Exception
+    {
+        final int range= 300;
+        // the lower half stays for the readers to query; only the upper half is removed
+        final int kept= range / 2;
+        final ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>();
+        for(int i=0; i<kept; i++){
+            graph.addVertex(i);
+        }
+        final AtomicBoolean stop= new AtomicBoolean();
+        List<Callable<Void>> tasks= new ArrayList<Callable<Void>>();
+        for(int t=0; t<THREADS; t++){
+            final int thread= t;
+            tasks.add(new Callable<Void>() {
+                public Void call(){
+                    Random random= new Random(100 + thread);
+                    for(int i=0; i<20000; i++){
+                        int from= random.nextInt(range);
+                        int to= random.nextInt(range);
+                        int choice= random.nextInt(100);
+                        if(choice<60){
+                            graph.addEdge(from, to);
+                        }
+                        else if(choice<85){
+                            graph.removeEdge(from, to);
+                        }
+                        else if(choice<95){
+                            graph.addVertex(from);
+                        }
+                        else{
+                            graph.removeVertex(kept + from % (range - kept));
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        List<Future<Void>> reading= new ArrayList<Future<Void>>();
+        for(int t=0; t<2; t++){
+            reading.add(pool.submit(reader(graph, kept, range, 200 + t, stop)));
+        }
+        runAll(tasks);
+        stop.set(true);
+        for(Future<Void> future : reading){
+            future.get(60, TimeUnit.SECONDS);
+        }
+        assertConsistent(graph);
+    }
+
+
+
+
+
+
+    // SEARCHES
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void searchesRaceWithChanges() throws Exception
+    {
+        final int range= 300;
+        final int kept= range / 2;
+        final ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>();
+        for(int i=0; i<kept; i++){
+            graph.addVertex(i);
+        }
+        final PathCache<Integer> paths= new PathCache<Integer>(graph, 8);
+        final ReachabilityIndex<Integer> reachable= new ReachabilityIndex<Integer>(graph);
+        final ForkJoinPool searchers= new ForkJoinPool(2);
+        final AtomicBoolean stop= new AtomicBoolean();
+        List<Callable<Void>> tasks= new ArrayList<Callable<Void>>();
+        for(int t=0; t<THREADS / 2; t++){
+            final int thread= t;
+            tasks.add(new Callable<Void>() {
+                public Void call(){
+                    Random random= new Random(400 + thread);
+                    for(int i=0; i<20000; i++){
+                        int from= random.nextInt(range);
+                        int to= random.nextInt(range);
+                        int choice= random.nextInt(100);
+                        if(choice<60){
+                            graph.addEdge(from, to);
+                        }
+                        else if(choice<85){
+                            graph.removeEdge(from, to);
+                        }
+                        else if(choice<95){
+                            graph.addVertex(from);
+                        }
+                        else{
+                            graph.removeVertex(kept + from % (range - kept));
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        // each of these makes many index calls that must agree; on the live graph a vertex
+        // removed midway would move indices under them, and a row sized from numEdges()
+        // would overflow when an edge lands meanwhile
+        List<Future<Void>> searching= new ArrayList<Future<Void>>();
+        for(int t=0; t<2; t++){
+            final int thread= t;
+            searching.add(pool.submit(new Callable<Void>() {
+                public Void call(){
+                    Random random= new Random(500 + thread);
+                    while(!stop.get()){
+                        int[] component= StrongComponents.tarjan(graph);
+                        assertTrue(component.length>=kept);
+                        assertTrue(StrongComponents.count(component)<=component.length);
+                        StrongComponents.kosaraju(graph);
+                        StrongComponents.forwardBackward(graph, searchers);
+                        int[] order= TopologicalSort.order(graph);
+                        assertTrue(order==null || order.length>=kept);
+                        BreadthFirstSearch.distances(graph, 0, searchers);
+
+                        int from= random.nextInt(kept);
+                        int to= random.nextInt(kept);
+                        Iterable<Integer> path= paths.getPath(from, to);
+                        if(path!=null){
+                            assertEquals(Integer.valueOf(from), path.iterator().next());
+                        }
+                        paths.pathLength(from, to);
+                        reachable.hasPath(from, to);
+                    }
+                    return null;
+                }
+            }));
+        }
+        try{
+            runAll(tasks);
+            stop.set(true);
+            for(Future<Void> future : searching){
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally{
+            searchers.shutdownNow();
+        }
+
+        // once the writers are done, everything agrees with the graph again
+        assertConsistent(graph);
+        for(int from=0; from<kept; from++){
+            for(int to=0; to<kept; to+= 7){
+                assertEquals(graph.pathLength(from, to), paths.pathLength(from, to));
+                assertEquals(graph.hasPath(from, to), reachable.hasPath(from, to));
+            }
+        }
+    }
+
+
+
+
+    // SNAPSHOTS
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void snapshotsStayFixedWhileWritersRun() throws Exception
+    {
+        final int range= 200;
+        final int kept= range / 2;
+        final ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>();
+        for(int i=0; i<kept; i++){
+            graph.addVertex(i);
+        }
+        final AtomicBoolean stop= new AtomicBoolean();
+        List<Callable<Void>> tasks= new ArrayList<Callable<Void>>();
+        for(int t=0; t<THREADS; t++){
+            final int thread= t;
+            tasks.add(new Callable<Void>() {
+                public Void call(){
+                    Random random= new Random(300 + thread);
+                    for(int i=0; i<20000; i++){
+                        int from= random.nextInt(range);
+                        int to= random.nextInt(range);
+                        int choice= random.nextInt(100);
+                        if(choice<60){
+                            graph.addEdge(from, to);
+                        }
+                        else if(choice<90){
+                            graph.removeEdge(from, to);
+                        }
+                        else if(choice<97){
+                            graph.addVertex(from);
+                        }
+                        else{
+                            graph.removeVertex(kept + from % (range - kept));
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        // each snapshot is copied as soon as it is taken, and must still match its copy, and
+        // agree with itself, after the writers have changed the rows it shares many times over
+        Future<List<Graph<Integer>>> taking= pool.submit(new Callable<List<Graph<Integer>>>() {
+            public List<Graph<Integer>> call(){
+                List<Graph<Integer>> taken= new ArrayList<Graph<Integer>>();
+                while(!stop.get()){
+                    Graph<Integer> snapshot= graph.snapshot();
+                    Graph<Integer> copy= new ListGraphLM<Integer>();
+                    copy.addAll(snapshot);
+                    assertEquals(snapshot, copy);
+                    taken.add(snapshot);
+                    taken.add(copy);
+                }
+                return taken;
+            }
+        });
+        runAll(tasks);
+        stop.set(true);
+        List<Graph<Integer>> taken= taking.get(60, TimeUnit.SECONDS);
+        assertTrue(taken.size()>0);
+        for(int i=0; i<taken.size(); i+= 2){
+            assertConsistent(taken.get(i));
+            assertEquals(taken.get(i + 1), taken.get(i));
+        }
+        assertConsistent(graph);
+        assertEquals(graph, graph.snapshot());
+    }
+
+
+    @Test(expected= UnsupportedOperationException.class)
+    public void snapshotsCannotBeChanged()
+    {
+        ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>();
+        graph.addEdge(1, 2);
+        Graph<Integer> snapshot= graph.snapshot();
+        graph.addEdge(2, 3);
+        assertEquals(2, snapshot.numVertices());
+        snapshot.addEdge(2, 3);
+    }
+
+
+
+
+    // CALLING OUT
+    //--------------------------------------------------------------------------------------------
+    /**
+     * A vertex whose toString adds another vertex to a graph, as a
+     * logging hook might.
+     */
+    private static final class Noisy {
+
+        private final Graph<Object> graph;
+
+
+        Noisy(Graph<Object> graph)
+        {
+            this.graph= graph;
+        }
+
+
+        public String toString()
+        {
+            graph.addVertex("seen");
+            return "noisy";
+        }
+    }
+
+
+    @Test(timeout= 10000)
+    public void toStringHoldsNoLockWhileVerticesAreRendered()
+    {
+        Graph<Object> graph= new ConcurrentGraphLM<Object>();
+        graph.addEdge(new Noisy(graph), "other");
+        // the StampedLock is not reentrant, so this would hang if toString held the read lock
+        assertTrue(graph.toString().contains("noisy"));
+        assertTrue(graph.contains("seen"));
+    }
+
+
+    @Test(timeout= 10000)
+    public void equalsHoldsNoLockWhileTheOtherGraphIsRead()
+    {
+        final ConcurrentGraphLM<Integer> graph= new ConcurrentGraphLM<Integer>();
+        graph.addEdge(1, 2);
+        Graph<Integer> other= new ListGraphLM<Integer>() {
+            public int numVertices(){
+                graph.addVertex(3);
+                return super.numVertices();
+            }
+        };
+        other.addEdge(1, 2);
+        assertTrue(graph.equals(other));
+        assertTrue(graph.contains(3));
+    }
+
+
+}
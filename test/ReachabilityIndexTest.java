@@ -0,0 +1,188 @@
+package edu.union.adt.graph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks ReachabilityIndex.hasPath against a plain breadth-first search
+ * while the graph changes, once with closureLimit 0, so the index keeps
+ * the condensation as a DAG with topological positions and interval
+ * labels, and once with the default limit, so it keeps the full
+ * transitive closure.
+ */
+@RunWith(Parameterized.class)
+public class ReachabilityIndexTest {
+
+
+    private final int closureLimit;
+
+
+    public ReachabilityIndexTest(String mode, int closureLimit)
+    {
+        this.closureLimit= closureLimit;
+    }
+
+
+    @Parameters(name= "{0}")
+    public static List<Object[]> modes()
+    {
+        return Arrays.asList(new Object[][] {{"dag", 0}, {"closure", ReachabilityIndex.DEFAULT_CLOSURE_LIMIT}});
+    }
+
+
+    /**
+     * @return whether a breadth-first search from 'from' reaches 'to'
+     */
+    private static boolean searchFinds(Graph<Integer> graph, Integer from, Integer to)
+    {
+        if(!graph.contains(from) || !graph.contains(to)){
+            return false;
+        }
+        Set<Integer> seen= new HashSet<Integer>();
+        ArrayDeque<Integer> queue= new ArrayDeque<Integer>();
+        seen.add(from);
+        queue.add(from);
+        while(!queue.isEmpty()){
+            Integer vertex= queue.poll();
+            if(vertex.equals(to)){
+                return true;
+            }
+            for(Integer next : graph.adjacentTo(vertex)){
+                if(seen.add(next)){
+                    queue.add(next);
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private static void assertAllPairs(Graph<Integer> graph, ReachabilityIndex<Integer> index, int range)
+    {
+        for(int from=0; from<range; from++){
+            for(int to=0; to<range; to++){
+                assertEquals(from + "->" + to, searchFinds(graph, from, to), index.hasPath(from, to));
+            }
+        }
+    }
+
+
+
+
+    // RANDOM CHANGES
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void matchesABreadthFirstSearchOverRandomChanges()
+    {
+        Random random= new Random(7);
+        int range= 60;
+        Graph<Integer> graph= new ListGraphLM<Integer>();
+        ReachabilityIndex<Integer> index= new ReachabilityIndex<Integer>(graph, closureLimit);
+        for(int step=0; step<3000; step++){
+            int from= random.nextInt(range);
+            // mostly forward edges, so long acyclic stretches are updated in place between cycles
+            int to= random.nextInt(4)==0 ? random.nextInt(range) : Math.min(range - 1, from + 1 + random.nextInt(8));
+            int choice= random.nextInt(100);
+            if(choice<70){
+                index.addEdge(from, to);
+            }
+            else if(choice<78){
+                index.addVertex(from);
+            }
+            else if(choice<88){
+                index.removeEdge(from, to);
+            }
+            else if(choice<93){
+                index.removeVertex(from);
+            }
+            else{
+                // a change made behind the index's back has to be noticed too
+                graph.addEdge(from, to);
+            }
+            for(int i=0; i<4; i++){
+                int a= random.nextInt(range);
+                int b= random.nextInt(range);
+                assertEquals(a + "->" + b + " at step " + step, searchFinds(graph, a, b), index.hasPath(a, b));
+            }
+            if(step % 250==0){
+                assertAllPairs(graph, index, range);
+            }
+        }
+        assertAllPairs(graph, index, range);
+    }
+
+
+
+
+    // UPDATES IN PLACE
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void acyclicInsertsNeverRebuild()
+    {
+        Random random= new Random(11);
+        int count= 200;
+        Graph<Integer> graph= new ListGraphLM<Integer>();
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        ReachabilityIndex<Integer> index= new ReachabilityIndex<Integer>(graph, closureLimit);
+        assertTrue(index.hasPath(0, 0));
+        int rebuilds= index.getRebuilds();
+
+        // edges only go from lower to higher numbers, so no cycle forms, but they arrive in
+        // random order and keep forcing the topological positions to be reordered
+        for(int i=0; i<1500; i++){
+            int a= random.nextInt(count);
+            int b= random.nextInt(count);
+            if(a!=b){
+                index.addEdge(Math.min(a, b), Math.max(a, b));
+            }
+            int from= random.nextInt(count);
+            int to= random.nextInt(count);
+            assertEquals(from + "->" + to, searchFinds(graph, from, to), index.hasPath(from, to));
+        }
+        index.addVertex(count);
+        index.addEdge(count - 1, count);
+        assertTrue(index.hasPath(count - 1, count));
+        assertEquals(rebuilds, index.getRebuilds());
+        assertTrue(index.getUpdates()>0);
+        assertAllPairs(graph, index, count + 1);
+        assertEquals(rebuilds, index.getRebuilds());
+
+        // closing a cycle merges components, which is left to a rebuild
+        index.addEdge(count, 0);
+        assertTrue(index.hasPath(count - 1, 0));
+        assertEquals(rebuilds + 1, index.getRebuilds());
+        assertAllPairs(graph, index, count + 1);
+    }
+
+
+    @Test
+    public void removalsAreSeenAtTheNextQuery()
+    {
+        Graph<Integer> graph= new ListGraphLM<Integer>();
+        ReachabilityIndex<Integer> index= new ReachabilityIndex<Integer>(graph, closureLimit);
+        index.addEdge(1, 2);
+        index.addEdge(2, 3);
+        assertTrue(index.hasPath(1, 3));
+        index.removeEdge(2, 3);
+        assertFalse(index.hasPath(1, 3));
+        index.addEdge(2, 3);
+        index.removeVertex(2);
+        assertFalse(index.hasPath(1, 3));
+        assertFalse(index.hasPath(1, 2));
+        assertTrue(index.hasPath(3, 3));
+    }
+
+
+}
@@ -0,0 +1,272 @@
+package edu.union.adt.graph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks that removeVertex keeps every edge that does not touch the
+ * removed vertex.  Removal moves the last vertex into the removed
+ * vertex's spot, so most of these cases are about that vertex: its
+ * edges in and out, its self loop, and its edges to the removed vertex.
+ */
+@RunWith(Parameterized.class)
+public class RemoveVertexTest {
+
+
+    private final String name;
+
+
+    public RemoveVertexTest(String name)
+    {
+        this.name= name;
+    }
+
+
+    @Parameters(name= "{0}")
+    public static List<Object[]> implementations()
+    {
+        return Arrays.asList(new Object[][] {{"ArrayGraphLM"}, {"ListGraphLM"}, {"WeightedGraphLM"},
+                                             {"ConcurrentGraphLM"}});
+    }
+
+
+    /**
+     * @return an empty graph of the implementation under test
+     */
+    private Graph<Integer> empty()
+    {
+        if(name.equals("ArrayGraphLM")){
+            return new ArrayGraphLM<Integer>();
+        }
+        if(name.equals("ListGraphLM")){
+            return new ListGraphLM<Integer>();
+        }
+        if(name.equals("WeightedGraphLM")){
+            return new WeightedGraphLM<Integer>();
+        }
+        return new ConcurrentGraphLM<Integer>();
+    }
+
+
+    /**
+     * @return a graph holding the vertices 0 to count-1, in that order, and the given edges
+     */
+    private Graph<Integer> graph(int count, int[][] edges)
+    {
+        Graph<Integer> graph= empty();
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        for(int[] edge : edges){
+            graph.addEdge(edge[0], edge[1]);
+        }
+        return graph;
+    }
+
+
+    /**
+     * Checks that a graph holds exactly the given vertices and edges,
+     * looked at from both ends of each edge.
+     */
+    private static void assertGraph(Set<Integer> vertices, Set<List<Integer>> edges, Graph<Integer> graph)
+    {
+        assertEquals(vertices.size(), graph.numVertices());
+        assertEquals(edges.size(), graph.numEdges());
+        for(int i=0; i<graph.numVertices(); i++){
+            assertTrue(vertices.contains(graph.vertexAt(i)));
+        }
+        for(Integer from : vertices){
+            int out=0;
+            int in=0;
+            for(Integer to : vertices){
+                boolean edge= edges.contains(Arrays.asList(from, to));
+                assertEquals(from + "->" + to, edge, graph.hasEdge(from, to));
+                out+= edge ? 1 : 0;
+                in+= edges.contains(Arrays.asList(to, from)) ? 1 : 0;
+            }
+            assertEquals("degree of " + from, out, graph.degree(from));
+            assertEquals("in-degree of " + from, in, graph.inDegree(from));
+            for(Integer to : graph.adjacentTo(from)){
+                assertTrue(from + "->" + to, edges.contains(Arrays.asList(from, to)));
+            }
+            for(Integer before : graph.predecessorsOf(from)){
+                assertTrue(before + "->" + from, edges.contains(Arrays.asList(before, from)));
+            }
+        }
+    }
+
+
+    private static Set<Integer> vertices(Integer... vertices)
+    {
+        return new HashSet<Integer>(Arrays.asList(vertices));
+    }
+
+
+    private static Set<List<Integer>> edges(int[]... edges)
+    {
+        Set<List<Integer>> set= new HashSet<List<Integer>>();
+        for(int[] edge : edges){
+            set.add(Arrays.asList(edge[0], edge[1]));
+        }
+        return set;
+    }
+
+
+
+
+    // THE SWAPPED-IN LAST VERTEX
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void keepsTheEdgesOfTheMovedVertex()
+    {
+        Graph<Integer> graph= graph(4, new int[][] {{3, 0}, {2, 3}, {0, 2}, {1, 2}});
+        graph.removeVertex(1);
+        assertEquals(Integer.valueOf(3), graph.vertexAt(1));
+        assertGraph(vertices(0, 2, 3), edges(new int[] {3, 0}, new int[] {2, 3}, new int[] {0, 2}), graph);
+    }
+
+
+    @Test
+    public void keepsTheSelfLoopOfTheMovedVertex()
+    {
+        Graph<Integer> graph= graph(4, new int[][] {{3, 3}, {3, 1}, {1, 3}, {0, 3}});
+        graph.removeVertex(0);
+        assertGraph(vertices(1, 2, 3), edges(new int[] {3, 3}, new int[] {3, 1}, new int[] {1, 3}), graph);
+    }
+
+
+    @Test
+    public void dropsTheEdgesBetweenTheRemovedAndMovedVertices()
+    {
+        Graph<Integer> graph= graph(4, new int[][] {{1, 3}, {3, 1}, {3, 2}, {1, 1}});
+        graph.removeVertex(1);
+        assertGraph(vertices(0, 2, 3), edges(new int[] {3, 2}), graph);
+    }
+
+
+    @Test
+    public void removesTheLastVertexInPlace()
+    {
+        Graph<Integer> graph= graph(3, new int[][] {{2, 2}, {2, 0}, {0, 1}, {1, 2}});
+        graph.removeVertex(2);
+        assertGraph(vertices(0, 1), edges(new int[] {0, 1}), graph);
+    }
+
+
+    @Test
+    public void removesTheOnlyVertex()
+    {
+        Graph<Integer> graph= graph(1, new int[][] {{0, 0}});
+        graph.removeVertex(0);
+        assertGraph(vertices(), edges(), graph);
+        graph.addEdge(5, 5);
+        assertGraph(vertices(5), edges(new int[] {5, 5}), graph);
+    }
+
+
+    @Test
+    public void ignoresMissingVertices()
+    {
+        Graph<Integer> graph= graph(2, new int[][] {{0, 1}});
+        graph.removeVertex(7);
+        assertGraph(vertices(0, 1), edges(new int[] {0, 1}), graph);
+    }
+
+
+    @Test
+    public void reusesTheFreedSpot()
+    {
+        Graph<Integer> graph= graph(3, new int[][] {{2, 2}, {0, 2}});
+        graph.removeVertex(0);
+        graph.addEdge(4, 2);
+        assertGraph(vertices(1, 2, 4), edges(new int[] {2, 2}, new int[] {4, 2}), graph);
+    }
+
+
+
+
+    // MANY REMOVALS
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void matchesAModelOverManyRemovals()
+    {
+        Random random= new Random(13);
+        // more than 64 vertices, so the bit matrix rows span several words
+        int count= 150;
+        Graph<Integer> graph= empty();
+        Set<Integer> vertices= new HashSet<Integer>();
+        Set<List<Integer>> edges= new HashSet<List<Integer>>();
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+            vertices.add(i);
+        }
+        for(int i=0; i<count * 4; i++){
+            int from= random.nextInt(count);
+            int to= random.nextInt(10)==0 ? from : random.nextInt(count);
+            graph.addEdge(from, to);
+            edges.add(Arrays.asList(from, to));
+        }
+
+        // removing the last vertex often makes every swap move a vertex with edges
+        List<Integer> order= new ArrayList<Integer>(vertices);
+        for(int round=0; round<count; round++){
+            Integer removed= round % 3==0 ? graph.vertexAt(graph.numVertices() - 1) : order.get(random.nextInt(order.size()));
+            graph.removeVertex(removed);
+            order.remove(removed);
+            vertices.remove(removed);
+            for(List<Integer> edge : new ArrayList<List<Integer>>(edges)){
+                if(edge.contains(removed)){
+                    edges.remove(edge);
+                }
+            }
+            if(round % 10==0 || vertices.size()<5){
+                assertGraph(vertices, edges, graph);
+            }
+        }
+        assertGraph(vertices, edges, graph);
+    }
+
+
+    @Test
+    public void equalsAGraphBuiltWithoutTheVertex()
+    {
+        Graph<Integer> graph= graph(70, new int[][] {{69, 69}, {69, 0}, {5, 69}, {0, 5}, {5, 5}, {68, 69}});
+        graph.removeVertex(5);
+        Graph<Integer> expected= empty();
+        for(int i=0; i<70; i++){
+            if(i!=5){
+                expected.addVertex(i);
+            }
+        }
+        expected.addEdge(69, 69);
+        expected.addEdge(69, 0);
+        expected.addEdge(68, 69);
+        assertTrue(graph.equals(expected));
+        assertEquals(expected.hashCode(), graph.hashCode());
+    }
+
+
+    @Test
+    public void leavesSnapshotsAlone()
+    {
+        Graph<Integer> graph= graph(4, new int[][] {{3, 3}, {3, 0}, {1, 3}, {0, 1}});
+        Graph<Integer> snapshot= graph.snapshot();
+        graph.removeVertex(0);
+        assertGraph(vertices(1, 2, 3), edges(new int[] {3, 3}, new int[] {1, 3}), graph);
+        assertGraph(vertices(0, 1, 2, 3),
+                    edges(new int[] {3, 3}, new int[] {3, 0}, new int[] {1, 3}, new int[] {0, 1}), snapshot);
+        assertFalse(snapshot.equals(graph));
+    }
+
+
+}
@@ -0,0 +1,246 @@
+package edu.union.adt.graph;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks that tarjan, kosaraju and forwardBackward find the same
+ * components, that the first two number them in the promised orders,
+ * that none of them recurse per vertex, and that TopologicalSort.order
+ * orders every DAG and rejects every cycle.
+ */
+public class StrongComponentsTest {
+
+
+    private final ForkJoinPool pool= new ForkJoinPool(4);
+
+
+    @After
+    public void stopPool()
+    {
+        pool.shutdownNow();
+    }
+
+
+    /**
+     * @return a graph on the vertices 0 to count-1, added in that order
+     * so each vertex's index is itself, with 'edges' random edges
+     */
+    private static Graph<Integer> randomGraph(int count, int edges, long seed)
+    {
+        Random random= new Random(seed);
+        Graph<Integer> graph= new ListGraphLM<Integer>(count);
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        for(int i=0; i<edges; i++){
+            graph.addEdge(random.nextInt(count), random.nextInt(count));
+        }
+        return graph;
+    }
+
+
+    /**
+     * @return a graph of 0 to count-1 with an edge from each vertex to the next
+     */
+    private static Graph<Integer> chain(int count)
+    {
+        Graph<Integer> graph= new ListGraphLM<Integer>(count);
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        for(int i=0; i + 1<count; i++){
+            graph.addEdge(i, i + 1);
+        }
+        return graph;
+    }
+
+
+    /**
+     * Checks that two numberings split the vertices into the same
+     * components, whatever numbers they give them.
+     */
+    private static void assertSamePartition(int[] expected, int[] actual)
+    {
+        assertEquals(expected.length, actual.length);
+        int count= StrongComponents.count(expected);
+        assertEquals(count, StrongComponents.count(actual));
+        int[] match= new int[count];
+        Arrays.fill(match, -1);
+        for(int v=0; v<expected.length; v++){
+            if(match[expected[v]]==-1){
+                match[expected[v]]= actual[v];
+            }
+            assertEquals("component of " + v, match[expected[v]], actual[v]);
+        }
+        // equal counts and a consistent mapping make the mapping one to one
+    }
+
+
+    /**
+     * Checks that every edge between two components goes from a higher
+     * number to a lower one, or the other way round.
+     */
+    private static void assertOrdered(Graph<Integer> graph, int[] component, boolean descending)
+    {
+        for(Integer from : graph.getVertices()){
+            for(Integer to : graph.adjacentTo(from)){
+                int a= component[from];
+                int b= component[to];
+                if(a!=b){
+                    assertTrue(from + "->" + to, descending ? a>b : a<b);
+                }
+            }
+        }
+    }
+
+
+
+
+    // AGREEMENT
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void componentsAreMutuallyReachableSets()
+    {
+        for(int seed=0; seed<20; seed++){
+            Graph<Integer> graph= randomGraph(40, 20 + seed * 4, seed);
+            int[] component= StrongComponents.tarjan(graph);
+            for(int a=0; a<40; a++){
+                for(int b=0; b<40; b++){
+                    boolean together= graph.hasPath(a, b) && graph.hasPath(b, a);
+                    assertEquals(a + " and " + b, together, component[a]==component[b]);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void allThreeAgreeOnSmallGraphs()
+    {
+        for(int seed=0; seed<50; seed++){
+            Graph<Integer> graph= randomGraph(200, 100 + seed * 10, seed);
+            int[] tarjan= StrongComponents.tarjan(graph);
+            int[] kosaraju= StrongComponents.kosaraju(graph);
+            assertOrdered(graph, tarjan, true);
+            assertOrdered(graph, kosaraju, false);
+            assertSamePartition(tarjan, kosaraju);
+            assertSamePartition(tarjan, StrongComponents.forwardBackward(graph, pool));
+        }
+    }
+
+
+    @Test
+    public void allThreeAgreeWhenTheParallelSearchSplits()
+    {
+        // well past GRAIN vertices survive trimming, and a sparse random graph mixes one
+        // large component with many small ones, so parts are split off and solved at once
+        for(int seed=0; seed<3; seed++){
+            Graph<Integer> graph= randomGraph(50000, 100000 + seed * 20000, seed);
+            int[] tarjan= StrongComponents.tarjan(graph);
+            int[] sizes= new int[StrongComponents.count(tarjan)];
+            for(int number : tarjan){
+                sizes[number]++;
+            }
+            Arrays.sort(sizes);
+            assertTrue(sizes.length>1);
+            // no vertex of the largest component can be trimmed, and it is more than GRAIN (4096) alone
+            assertTrue(sizes[sizes.length - 1]>4096);
+            assertSamePartition(tarjan, StrongComponents.kosaraju(graph));
+            for(int round=0; round<3; round++){
+                assertSamePartition(tarjan, StrongComponents.forwardBackward(graph, pool));
+            }
+        }
+    }
+
+
+
+
+    // STACK SAFETY
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void handlesAMillionVertexChain()
+    {
+        int count= 1000000;
+        Graph<Integer> graph= chain(count);
+        int[] tarjan= StrongComponents.tarjan(graph);
+        assertEquals(count, StrongComponents.count(tarjan));
+        assertOrdered(graph, tarjan, true);
+        int[] kosaraju= StrongComponents.kosaraju(graph);
+        assertOrdered(graph, kosaraju, false);
+        assertSamePartition(tarjan, StrongComponents.forwardBackward(graph, pool));
+
+        int[] order= TopologicalSort.order(graph);
+        assertNotNull(order);
+        for(int i=0; i<count; i++){
+            assertEquals(i, order[i]);
+        }
+
+        // closing the chain into one cycle makes a single component of a million vertices
+        graph.addEdge(count - 1, 0);
+        assertEquals(1, StrongComponents.count(StrongComponents.tarjan(graph)));
+        assertEquals(1, StrongComponents.count(StrongComponents.kosaraju(graph)));
+        assertEquals(1, StrongComponents.count(StrongComponents.forwardBackward(graph, pool)));
+        assertNull(TopologicalSort.order(graph));
+    }
+
+
+
+
+    // TOPOLOGICAL ORDER
+    //--------------------------------------------------------------------------------------------
+    @Test
+    public void ordersEveryEdgeForwardInADag()
+    {
+        Random random= new Random(3);
+        int count= 500;
+        Graph<Integer> graph= new ListGraphLM<Integer>();
+        for(int i=0; i<count; i++){
+            graph.addVertex(i);
+        }
+        for(int i=0; i<3000; i++){
+            int a= random.nextInt(count);
+            int b= random.nextInt(count);
+            if(a!=b){
+                graph.addEdge(Math.max(a, b), Math.min(a, b));
+            }
+        }
+        int[] order= TopologicalSort.order(graph);
+        assertNotNull(order);
+        int[] position= new int[count];
+        Arrays.fill(position, -1);
+        for(int i=0; i<count; i++){
+            assertEquals(-1, position[order[i]]);
+            position[order[i]]= i;
+        }
+        for(Integer from : graph.getVertices()){
+            for(Integer to : graph.adjacentTo(from)){
+                assertTrue(from + "->" + to, position[from]<position[to]);
+            }
+        }
+    }
+
+
+    @Test
+    public void findsNoOrderWithACycle()
+    {
+        Graph<Integer> graph= chain(10);
+        graph.addEdge(7, 3);
+        assertNull(TopologicalSort.order(graph));
+
+        Graph<Integer> loop= chain(3);
+        loop.addEdge(1, 1);
+        assertNull(TopologicalSort.order(loop));
+
+        assertArrayEquals(new int[0], TopologicalSort.order(new ListGraphLM<Integer>()));
+    }
+
+
+}